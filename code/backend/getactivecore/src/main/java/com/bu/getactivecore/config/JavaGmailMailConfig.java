@@ -11,15 +11,31 @@ import org.springframework.mail.javamail.JavaMailSenderImpl;
 /**
  * Configuration class for setting up JavaMailSender with Gmail SMTP.
  * <p>
- * Retrieves the mail password from application properties and configures the
- * sender with SMTP host, port, authentication, and TLS settings.
+ * Retrieves the mail server, credentials and SMTP settings from the
+ * {@code spring.mail.*} application properties, so the sender can be pointed at
+ * a different server without code changes.
  */
 @Configuration
 public class JavaGmailMailConfig {
 
+	@Value("${spring.mail.host}")
+	private String m_host;
+
+	@Value("${spring.mail.port}")
+	private int m_port;
+
+	@Value("${spring.mail.username}")
+	private String m_username;
+
 	@Value("${spring.mail.password}")
 	private String m_password;
 
+	@Value("${spring.mail.properties.mail.smtp.auth:true}")
+	private boolean m_auth;
+
+	@Value("${spring.mail.properties.mail.smtp.starttls.enable:true}")
+	private boolean m_startTls;
+
 	/**
 	 * Configures and returns a JavaMailSender bean for sending emails via Gmail
 	 * SMTP.
@@ -29,15 +45,19 @@ public class JavaGmailMailConfig {
 	@Bean
 	public JavaMailSender getJavaMailSender() {
 		JavaMailSenderImpl emailSender = new JavaMailSenderImpl();
-		emailSender.setHost("smtp.gmail.com");
-		emailSender.setPort(587);
-		emailSender.setUsername("cs673getactive@gmail.com");
+		emailSender.setHost(m_host);
+		emailSender.setPort(m_port);
+		emailSender.setUsername(m_username);
 		emailSender.setPassword(m_password);
 
 		Properties props = emailSender.getJavaMailProperties();
 		props.put("mail.transport.protocol", "smtp");
-		props.put("mail.smtp.auth", "true");
-		props.put("mail.smtp.starttls.enable", "true");
+		props.put("mail.smtp.auth", String.valueOf(m_auth));
+		props.put("mail.smtp.starttls.enable", String.valueOf(m_startTls));
+		// Bound every SMTP call so a slow server cannot stall the dispatch workers
+		props.put("mail.smtp.connectiontimeout", "10000");
+		props.put("mail.smtp.timeout", "10000");
+		props.put("mail.smtp.writetimeout", "10000");
 		props.put("mail.debug", "true");
 
 		return emailSender;
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.jwt.entity.VerifiedToken;
 import com.bu.getactivecore.service.security.CustomUserDetailsService;
 
 import jakarta.servlet.FilterChain;
@@ -28,6 +29,11 @@ import lombok.extern.slf4j.Slf4j;
  * This filter extracts the token from the `Authorization` header, validates it,
  * and sets the authentication context if the token is valid. It ensures that
  * authentication is only set if the user is not already authenticated.
+ * <p>
+ * The token signature is verified exactly once per request. The resulting
+ * {@link VerifiedToken} is kept as the credentials of the authentication and as
+ * the {@link VerifiedToken#REQUEST_ATTRIBUTE} request attribute so that
+ * downstream code never has to parse the token again.
  */
 @Slf4j
 @Component
@@ -62,12 +68,11 @@ public class JwtFilter extends OncePerRequestFilter {
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
 		String header = request.getHeader("Authorization");
-		String token = null;
-		String username = null;
+		VerifiedToken verifiedToken = null;
 
 		if (header != null && header.startsWith("Bearer ")) {
-			token = header.substring(7);
-			username = m_jwtApi.getUsername(token);
+			verifiedToken = m_jwtApi.verify(header.substring(7));
+			request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
 		} else {
 			log.warn("Authorization header is missing for request: {}", request.getRequestURI());
 		}
@@ -77,13 +82,23 @@ public class JwtFilter extends OncePerRequestFilter {
 		 * authentication is only set if not already present, preventing overwriting
 		 * existing security contexts in a filter chain.
 		 */
-		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-			UserDetails userDetails = m_appContext.getBean(CustomUserDetailsService.class).loadUserByUsername(username);
-			if (m_jwtApi.validateToken(token, userDetails)) {
+		// Typed tokens (registration confirmation, refresh) are never valid as access
+		// tokens
+		if (verifiedToken != null && verifiedToken.getClaim(JwtApi.TOKEN_CLAIM_TYPE_KEY) != null) {
+			log.warn("Rejecting token of type '{}' used as access token for request: {}",
+					verifiedToken.getClaim(JwtApi.TOKEN_CLAIM_TYPE_KEY), request.getRequestURI());
+			verifiedToken = null;
+		}
+
+		if (verifiedToken != null && verifiedToken.getUsername() != null
+				&& SecurityContextHolder.getContext().getAuthentication() == null) {
+			UserDetails userDetails = m_appContext.getBean(CustomUserDetailsService.class)
+					.loadUserByUsername(verifiedToken.getUsername());
+			if (m_jwtApi.validateToken(verifiedToken, userDetails)) {
 				// Set the authentication object into the so that downstream filters and
 				// controllers can treat the request as authenticated.
 				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-						null, userDetails.getAuthorities());
+						verifiedToken, userDetails.getAuthorities());
 				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 				SecurityContextHolder.getContext().setAuthentication(authToken);
 			}
@@ -1,12 +1,11 @@
 package com.bu.getactivecore.config;
 
-import static com.bu.getactivecore.shared.Constants.PASSWORD_ENCODER_STRENGTH;
 import static java.time.LocalDateTime.now;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.bu.getactivecore.model.activity.Activity;
 import com.bu.getactivecore.model.activity.RoleType;
@@ -24,13 +23,15 @@ import lombok.extern.slf4j.Slf4j;
 public class LoadDatabase {
 	@Bean
 	CommandLineRunner demoPreloadData(ActivityRepository activityRepo, UserRepository userRepo,
-			UserActivityRepository userActivityRepo) {
+			UserActivityRepository userActivityRepo, PasswordEncoder passwordEncoder) {
 		return args -> {
 			Activity act1 = Activity.builder() //
 					.name("Rock Climbing") //
 					.startDateTime(now().plusHours(1)) //
 					.location("Campus Red Swan") //
-					.endDateTime(now().plusHours(2)).build();
+					.endDateTime(now().plusHours(2)) //
+					.participantCount(1) //
+					.build();
 			Activity act2 = Activity.builder() //
 					.name("Yoga") //
 					.location("Gym") //
@@ -47,13 +48,13 @@ public class LoadDatabase {
 			Users user1 = Users.builder() //
 					.email("arsh@edu.bu") //
 					.username("arsh") //
-					.password(new BCryptPasswordEncoder(PASSWORD_ENCODER_STRENGTH).encode("arsh")) //
+					.password(passwordEncoder.encode("arsh")) //
 					.accountState(AccountState.UNVERIFIED) //
 					.build();
 			Users user2 = Users.builder() //
 					.email("arsh2@bu.edu") //
 					.username("arsh2") //
-					.password(new BCryptPasswordEncoder(PASSWORD_ENCODER_STRENGTH).encode("arsh")) //
+					.password(passwordEncoder.encode("arsh")) //
 					.accountState(AccountState.VERIFIED) //
 					.build();
 			log.info("Preloading {}", activityRepo.save(act1));
@@ -24,6 +24,6 @@ public class PublicPaths {
 		return new OrRequestMatcher(new AntPathRequestMatcher("/h2-console/**"),
 				new AntPathRequestMatcher("/v1/register"), new AntPathRequestMatcher("/v1/register/confirmation"),
 				new AntPathRequestMatcher("/v1/register/confirmation/resend"), new AntPathRequestMatcher("/v1/health"),
-				new AntPathRequestMatcher("/v1/login"));
+				new AntPathRequestMatcher("/v1/login"), new AntPathRequestMatcher("/v1/token/refresh"));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.bu.getactivecore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs such as store cleanups.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
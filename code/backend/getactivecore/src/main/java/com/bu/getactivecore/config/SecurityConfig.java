@@ -1,13 +1,12 @@
 package com.bu.getactivecore.config;
 
-import static com.bu.getactivecore.shared.Constants.PASSWORD_ENCODER_STRENGTH;
-
 import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -17,7 +16,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.frameoptions.XFrameOptionsHeaderWriter;
@@ -26,7 +25,14 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.bu.getactivecore.service.activity.ActivityController;
+import com.bu.getactivecore.service.security.BoundedPasswordEncoder;
 import com.bu.getactivecore.service.security.CustomUserDetailsService;
+import com.bu.getactivecore.service.security.PasswordHashCalibrator;
+import com.bu.getactivecore.service.security.PasswordHashingProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 
 /**
  * This class configures the security settings for the application, including
@@ -82,6 +88,8 @@ public class SecurityConfig {
 				.exceptionHandling(accessDenied -> accessDenied.accessDeniedHandler(m_customAccessDeniedHandler))
 				.authorizeHttpRequests(request -> request
 
+						// Streamed responses finish in an async dispatch, the request itself was already authorized
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 						// Permit following endpoints without authentication
 						.requestMatchers(m_skipPaths).permitAll()
 						// All other requests require authentication
@@ -94,18 +102,41 @@ public class SecurityConfig {
 	/**
 	 * Configures the authentication provider with a custom user details service and
 	 * password encoder. This bean is used to authenticate users based on
-	 * credentials stored in the system.
+	 * credentials stored in the system. After a successful login, stored hashes
+	 * weaker than the calibrated strength, or stronger than the configured maximum
+	 * strength, are rehashed. Hashes stronger than the calibrated strength but
+	 * within the maximum are kept, so on a host calibrated below 12 existing
+	 * cost-12 hashes are not lowered, see
+	 * {@link PasswordHashCalibrator#createEncoder()}.
 	 *
+	 * @param passwordEncoder used to verify the presented password
 	 * @return the configured {@link AuthenticationProvider} instance
 	 */
 	@Bean
-	public AuthenticationProvider authenticationProvider() {
+	public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
 		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-		provider.setPasswordEncoder(new BCryptPasswordEncoder(PASSWORD_ENCODER_STRENGTH));
+		provider.setPasswordEncoder(passwordEncoder);
 		provider.setUserDetailsService(m_userDetailsService);
+		provider.setUserDetailsPasswordService(m_userDetailsService);
 		return provider;
 	}
 
+	/**
+	 * Password encoder shared by registration and login. BCrypt uses the strength
+	 * calibrated for this host and runs on a dedicated bounded pool so a burst of
+	 * hashing cannot starve request threads.
+	 *
+	 * @param properties    sizing of the hashing pool
+	 * @param calibrator    provides the BCrypt encoder for the calibrated strength
+	 * @param meterRegistry used to publish hashing metrics
+	 * @return the {@link PasswordEncoder} instance
+	 */
+	@Bean
+	public PasswordEncoder passwordEncoder(PasswordHashingProperties properties, PasswordHashCalibrator calibrator,
+			MeterRegistry meterRegistry) {
+		return new BoundedPasswordEncoder(calibrator.createEncoder(), properties, meterRegistry);
+	}
+
 	/**
 	 * This bean is responsible for managing authentication processes in the
 	 * application.
@@ -129,8 +160,9 @@ public class SecurityConfig {
 	CorsConfigurationSource corsConfigurationSource() {
 		CorsConfiguration configuration = new CorsConfiguration();
 		configuration.setAllowedOrigins(List.of("*"));
-		configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
+		configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD"));
 		configuration.setAllowedHeaders(List.of("*"));
+		configuration.setExposedHeaders(List.of(ActivityController.APPROXIMATE_TOTAL_HEADER, HttpHeaders.ETAG));
 		configuration.setAllowCredentials(false);
 
 		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -3,6 +3,7 @@ package com.bu.getactivecore.model.activity;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UuidGenerator;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
@@ -13,9 +14,11 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -25,8 +28,12 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate
 @Entity(name = "activities")
-@Table(name = "activities")
+@Table(name = "activities", indexes = {
+		@Index(name = "idx_activities_participant_count", columnList = "participant_count, id"),
+		@Index(name = "idx_activities_start_date_time", columnList = "start_date_time, id"),
+		@Index(name = "idx_activities_end_date_time", columnList = "end_date_time, start_date_time") })
 public class Activity {
 	@Id
 	@UuidGenerator
@@ -52,6 +59,48 @@ public class Activity {
 	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
 	private LocalDateTime endDateTime;
 
+	/**
+	 * Number of participants, maintained with single-statement increments by
+	 * {@link com.bu.getactivecore.repository.ActivityRepository}. The column is
+	 * never written when the entity itself is updated, so a stale copy cannot
+	 * overwrite a concurrent join or leave.
+	 */
+	@Column(name = "participant_count", nullable = false, updatable = false)
+	@Builder.Default
+	private int participantCount = 0;
+
+	/**
+	 * Maximum number of participants, null when unlimited. Enforced when a seat
+	 * is reserved, a lower limit does not remove participants who already joined.
+	 */
+	@Column(name = "max_participants")
+	private Integer maxParticipants;
+
+	/**
+	 * Last waitlist sequence issued for this activity. Like the participant count
+	 * it is only written by single-statement updates.
+	 */
+	@Column(name = "waitlist_tail", nullable = false, updatable = false)
+	@Builder.Default
+	private long waitlistTail = 0;
+
+	/**
+	 * Waitlist sequence of the last member promoted to participant. A waiting
+	 * member's position is their sequence minus this value.
+	 */
+	@Column(name = "waitlist_head", nullable = false, updatable = false)
+	@Builder.Default
+	private long waitlistHead = 0;
+
+	/**
+	 * Incremented on every update of the entity, which fails when the row was
+	 * updated since it was read. The counters above are written by bulk
+	 * statements and do not change it.
+	 */
+	@Version
+	@Column(name = "version", nullable = false)
+	private long version;
+
 	@JoinTable
 	@OneToMany
 	private List<Users> users;
@@ -12,5 +12,11 @@ public enum RoleType {
 	/**
 	 * Represents a user with participant privileges in an activity.
 	 */
-	PARTICIPANT
+	PARTICIPANT,
+
+	/**
+	 * Represents a user queued for a seat in a full activity, promoted to
+	 * {@link #PARTICIPANT} in order of their waitlist sequence.
+	 */
+	WAITLISTED
 }
\ No newline at end of file
@@ -25,9 +25,10 @@ import lombok.NoArgsConstructor;
  * activities.
  */
 @Entity
-@Table(name = "user_activities", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id",
-		"activity_id" }), indexes = {
-				@Index(name = "idx_user_activities_userid_activityid", columnList = "user_id, activity_id") })
+@Table(name = "user_activities", uniqueConstraints = @UniqueConstraint(name = "uc_user_activities_user_activity",
+		columnNames = { "user_id", "activity_id" }), indexes = {
+				@Index(name = "idx_user_activities_userid_activityid", columnList = "user_id, activity_id"),
+				@Index(name = "idx_user_activities_waitlist", columnList = "activity_id, role, waitlist_sequence") })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,4 +50,12 @@ public class UserActivity {
 	@Enumerated(EnumType.STRING)
 	@Column(nullable = false)
 	private RoleType role;
+
+	/**
+	 * Position in the queue of the activity, issued from
+	 * {@link Activity#getWaitlistTail()} when the user was waitlisted. Only set
+	 * for {@link RoleType#WAITLISTED}.
+	 */
+	@Column(name = "waitlist_sequence")
+	private Long waitlistSequence;
 }
\ No newline at end of file
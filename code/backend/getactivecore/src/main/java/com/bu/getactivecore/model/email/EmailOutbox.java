@@ -0,0 +1,68 @@
+package com.bu.getactivecore.model.email;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.UuidGenerator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A verification email waiting to be handed to the mail dispatcher.
+ * <p>
+ * Rows are written in the same transaction as the change that requires the
+ * email, so the email is neither lost when the process dies right after the
+ * commit nor sent when the transaction rolls back. A row is delivered once
+ * {@code deliveredAt} is set, and is not picked up before
+ * {@code nextAttemptAt}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox", indexes = {
+		@Index(name = "idx_email_outbox_pending", columnList = "delivered_at, created_at"),
+		@Index(name = "idx_email_outbox_username", columnList = "username, created_at") })
+public class EmailOutbox {
+
+	@Id
+	@UuidGenerator
+	private String id;
+
+	@Column(name = "recipient", nullable = false)
+	private String recipient;
+
+	@Column(name = "username", nullable = false)
+	private String username;
+
+	@Column(name = "token", nullable = false, columnDefinition = "TEXT")
+	private String token;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "delivered_at")
+	private LocalDateTime deliveredAt;
+
+	/**
+	 * Earliest time the row may be handed to the dispatcher again, either because
+	 * it is still with the dispatcher or because the last attempt failed. Null if
+	 * the row may be picked up right away.
+	 */
+	@Column(name = "next_attempt_at")
+	private LocalDateTime nextAttemptAt;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+	@Column(name = "last_error", length = 500)
+	private String lastError;
+}
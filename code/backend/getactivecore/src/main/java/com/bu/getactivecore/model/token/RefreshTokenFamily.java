@@ -0,0 +1,46 @@
+package com.bu.getactivecore.model.token;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chain of rotated refresh tokens that started with a single login.
+ * <p>
+ * Only the id of the newest refresh token of the family is stored. Presenting
+ * any other token of the family means an older token was replayed, in which
+ * case the whole family is revoked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "refresh_token_families", indexes = {
+		@Index(name = "idx_refresh_token_families_expires_at", columnList = "expires_at") })
+public class RefreshTokenFamily {
+
+	@Id
+	@Column(name = "family_id", length = 36)
+	private String familyId;
+
+	@Column(name = "username", nullable = false)
+	private String username;
+
+	@Column(name = "current_token_id", nullable = false, length = 36)
+	private String currentTokenId;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+
+	@Column(name = "revoked", nullable = false)
+	private boolean revoked;
+}
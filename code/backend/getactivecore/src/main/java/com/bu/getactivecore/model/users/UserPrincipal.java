@@ -7,7 +7,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import com.bu.getactivecore.service.users.entity.UserDto;
+import com.bu.getactivecore.service.users.entity.UserCredentialsDto;
 
 import lombok.Getter;
 
@@ -17,9 +17,11 @@ import lombok.Getter;
  *
  * <p>
  * This class acts as an adapter between the application's {@link Users} entity
- * and the Spring Security framework. It wraps a {@link UserDto} instance and
- * provides the necessary user information (e.g., username, password, roles)
- * required for authentication and authorization processes.
+ * and the Spring Security framework. It carries only what authentication and
+ * authorization need: the user id, username, password hash and account state.
+ * Profile data such as the email or avatar is deliberately left out so that a
+ * principal kept in the security context or the principal cache stays small;
+ * load the {@link Users} entity when the profile is needed.
  * </p>
  *
  * <p>
@@ -36,19 +38,30 @@ import lombok.Getter;
 public class UserPrincipal implements UserDetails {
 
 	@Getter
-	private final UserDto userDto;
+	private final String userId;
+
+	@Getter
+	private final AccountState accountState;
+
+	private final String m_username;
+
+	private final String m_password;
 
 	private final Collection<? extends GrantedAuthority> m_authorities;
 
 	/**
-	 * Constructor that initializes the UserPrincipal with a {@link UserDto} entity.
+	 * Constructor that initializes the UserPrincipal from the authentication view
+	 * of a user.
 	 *
-	 * @param userDto the {@link UserDto} entity representing the user
+	 * @param credentials the {@link UserCredentialsDto} representing the user
 	 */
-	public UserPrincipal(UserDto userDto) {
-		this.userDto = userDto;
+	public UserPrincipal(UserCredentialsDto credentials) {
+		this.userId = credentials.getUserId();
+		this.accountState = credentials.getAccountState();
+		m_username = credentials.getUsername();
+		m_password = credentials.getPassword();
 		m_authorities = Set.of(new SimpleGrantedAuthority("USER"),
-				new SimpleGrantedAuthority(userDto.getAccountState().name()));
+				new SimpleGrantedAuthority(credentials.getAccountState().name()));
 	}
 
 	@Override
@@ -58,11 +71,11 @@ public class UserPrincipal implements UserDetails {
 
 	@Override
 	public String getPassword() {
-		return userDto.getPassword();
+		return m_password;
 	}
 
 	@Override
 	public String getUsername() {
-		return userDto.getUsername();
+		return m_username;
 	}
 }
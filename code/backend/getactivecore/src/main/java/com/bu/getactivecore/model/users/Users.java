@@ -9,6 +9,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -47,4 +48,11 @@ public class Users {
 
     @Column(name = "avatar_updated_at")
     private LocalDateTime avatarUpdatedAt;
+
+	/**
+	 * Optimistic lock version, bumped by every update including the bulk state
+	 * transitions in {@link com.bu.getactivecore.repository.UserRepository}.
+	 */
+	@Version
+	private Long version;
 }
@@ -2,7 +2,11 @@ package com.bu.getactivecore.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.bu.getactivecore.model.activity.ActivityComment;
 
@@ -13,4 +17,25 @@ public interface ActivityCommentRepository extends JpaRepository<ActivityComment
 
 	Page<ActivityComment> findAllByActivityId(Pageable pageable, String activityId);
 
+	/**
+	 * Same as {@link #findAllByActivityId(Pageable, String)} without the count
+	 * query, one extra row is fetched to tell whether there is a next slice.
+	 *
+	 * @param pageable   the slice to fetch
+	 * @param activityId the activity the comments belong to
+	 * @return the requested slice
+	 */
+	Slice<ActivityComment> findSliceByActivityId(Pageable pageable, String activityId);
+
+	/**
+	 * Deletes all comments of an activity in one statement, without loading the
+	 * rows first.
+	 *
+	 * @param activityId the activity the comments belong to
+	 * @return the number of deleted comments
+	 */
+	@Modifying
+	@Query("DELETE FROM activitycomments c WHERE c.activityId = :activityId")
+	int deleteByActivityId(@Param("activityId") String activityId);
+
 }
@@ -1,24 +1,243 @@
 package com.bu.getactivecore.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.model.activity.RoleType;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository interface for Activity entity.
  */
 public interface ActivityRepository extends JpaRepository<Activity, String> {
 
+	/**
+	 * Number of rows the JDBC driver fetches per round trip when streaming
+	 * activities.
+	 */
+	int STREAM_FETCH_SIZE = 500;
+
 	Page<Activity> findByNameContaining(String name, Pageable pageable);
 
+	/**
+	 * Same as {@link #findByNameContaining(String, Pageable)} without the count
+	 * query, one extra row is fetched to tell whether there is a next slice.
+	 *
+	 * @param name     text the name must contain
+	 * @param pageable the slice to fetch
+	 * @return the requested slice
+	 */
+	Slice<Activity> findSliceByNameContaining(String name, Pageable pageable);
+
+	/**
+	 * Same as {@link #findAll(Pageable)} without the count query.
+	 *
+	 * @param pageable the slice to fetch
+	 * @return the requested slice
+	 */
+	Slice<Activity> findSliceBy(Pageable pageable);
+
 	Optional<Activity> findByName(String name);
 
-	@Query("SELECT a FROM activities a ORDER BY SIZE(a.users) DESC")
+	/**
+	 * Streams all activities in order of ID, fetching {@value #STREAM_FETCH_SIZE}
+	 * rows per round trip. Loaded activities are read-only, so Hibernate keeps no
+	 * snapshot of them. The stream must be consumed inside a transaction and
+	 * closed.
+	 * <p>
+	 * MySQL only honours the fetch size with {@code useCursorFetch=true} in the
+	 * JDBC URL, otherwise the driver reads the whole result first.
+	 *
+	 * @return all activities
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("SELECT a FROM activities a ORDER BY a.id")
+	Stream<Activity> streamAllOrderedById();
+
+	/**
+	 * Scrolls through all activities using keyset pagination, which seeks
+	 * straight to the position instead of skipping rows and runs no count query.
+	 *
+	 * @param position where to continue scrolling from
+	 * @param limit    maximum number of activities returned
+	 * @param sort     the order, must end with the id to be unambiguous
+	 * @return the activities following the position
+	 */
+	Window<Activity> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+
+	/**
+	 * Scrolls through activities whose name contains the given text using keyset
+	 * pagination.
+	 *
+	 * @param name     text the name must contain
+	 * @param position where to continue scrolling from
+	 * @param limit    maximum number of activities returned
+	 * @param sort     the order, must end with the id to be unambiguous
+	 * @return the matching activities following the position
+	 */
+	Window<Activity> findByNameContaining(String name, ScrollPosition position, Limit limit, Sort sort);
+
+	/**
+	 * Pages through activities, most participants first. The order matches the
+	 * {@code idx_activities_participant_count} index so no sort is needed.
+	 *
+	 * @param pageable the page to fetch, its sort is ignored
+	 * @return the requested page
+	 */
+	@Query("SELECT a FROM activities a ORDER BY a.participantCount DESC, a.id DESC")
 	Page<Activity> findAllSortedByPopularity(Pageable pageable);
 
+	/**
+	 * Same as {@link #findAllSortedByPopularity(Pageable)} without the count
+	 * query.
+	 *
+	 * @param pageable the slice to fetch, its sort is ignored
+	 * @return the requested slice
+	 */
+	@Query("SELECT a FROM activities a ORDER BY a.participantCount DESC, a.id DESC")
+	Slice<Activity> findSliceSortedByPopularity(Pageable pageable);
+
+	/**
+	 * Finds the activities overlapping the window {@code [from, to)}. Served by
+	 * the {@code idx_activities_end_date_time} index, since for upcoming windows
+	 * the end time condition rules out all past activities.
+	 *
+	 * @param from     start of the window
+	 * @param to       end of the window
+	 * @param pageable the batch to fetch, its sort is ignored
+	 * @return the activities in order of start time
+	 */
+	@Query("SELECT a FROM activities a WHERE a.endDateTime > :from AND a.startDateTime < :to "
+			+ "ORDER BY a.startDateTime, a.id")
+	List<Activity> findOverlapping(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+			Pageable pageable);
+
+	/**
+	 * Finds the activities starting within {@code [from, to)}, served by the
+	 * {@code idx_activities_start_date_time} index.
+	 *
+	 * @param from     earliest start time
+	 * @param to       start times must be before this
+	 * @param pageable the batch to fetch, its sort is ignored
+	 * @return the activities in order of start time
+	 */
+	@Query("SELECT a FROM activities a WHERE a.startDateTime >= :from AND a.startDateTime < :to "
+			+ "ORDER BY a.startDateTime, a.id")
+	List<Activity> findStartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+			Pageable pageable);
+
+	/**
+	 * Adds one participant to the activity in a single statement, unless the
+	 * activity is already full. Concurrent reservations queue on the row lock and
+	 * each sees the count left by the previous one, so seats are never
+	 * oversold.
+	 *
+	 * @param activityId the activity to update
+	 * @return 1 if a seat was reserved, 0 if the activity is full or unknown
+	 */
+	@Modifying
+	@Query("UPDATE activities a SET a.participantCount = a.participantCount + 1 WHERE a.id = :activityId "
+			+ "AND (a.maxParticipants IS NULL OR a.participantCount < a.maxParticipants)")
+	int reserveSeat(@Param("activityId") String activityId);
+
+	/**
+	 * Issues the next waitlist sequence of the activity. Must be followed by
+	 * {@link #findWaitlistTail(String)} in the same transaction, which the row
+	 * lock taken here keeps consistent.
+	 *
+	 * @param activityId the activity to update
+	 * @return the number of updated rows
+	 */
+	@Modifying
+	@Query("UPDATE activities a SET a.waitlistTail = a.waitlistTail + 1 WHERE a.id = :activityId")
+	int incrementWaitlistTail(@Param("activityId") String activityId);
+
+	/**
+	 * @param activityId the activity to read
+	 * @return the last waitlist sequence issued for the activity
+	 */
+	@Query("SELECT a.waitlistTail FROM activities a WHERE a.id = :activityId")
+	long findWaitlistTail(@Param("activityId") String activityId);
+
+	/**
+	 * Records that the member with the given sequence left the waitlist for a
+	 * seat. The head never moves backwards.
+	 *
+	 * @param activityId the activity to update
+	 * @param sequence   waitlist sequence of the promoted member
+	 * @return the number of updated rows
+	 */
+	@Modifying
+	@Query("UPDATE activities a SET a.waitlistHead = :sequence "
+			+ "WHERE a.id = :activityId AND a.waitlistHead < :sequence")
+	int advanceWaitlistHead(@Param("activityId") String activityId, @Param("sequence") long sequence);
+
+	/**
+	 * Removes one participant from the activity in a single statement, never
+	 * going below zero.
+	 *
+	 * @param activityId the activity to update
+	 * @return the number of updated rows
+	 */
+	@Modifying
+	@Query("UPDATE activities a SET a.participantCount = a.participantCount - 1 "
+			+ "WHERE a.id = :activityId AND a.participantCount > 0")
+	int decrementParticipantCount(@Param("activityId") String activityId);
+
+	/**
+	 * Finds the activities whose stored participant count differs from the
+	 * number of {@code user_activities} rows with the given role, without
+	 * locking them. The result may be outdated by concurrent joins and leaves
+	 * and has to be checked again under {@link #findLockedById(String)}.
+	 *
+	 * @param role the role counted as participant
+	 * @return IDs of the activities whose count seems to have drifted
+	 */
+	@Query("SELECT a.id FROM activities a WHERE a.participantCount <> "
+			+ "(SELECT COUNT(ua) FROM UserActivity ua WHERE ua.activity.id = a.id AND ua.role = :role)")
+	List<String> findIdsWithDriftedParticipantCount(@Param("role") RoleType role);
+
+	/**
+	 * Finds and locks an activity. Joins wait for the lock before reserving a
+	 * seat, so participants can be counted consistently while it is held.
+	 *
+	 * @param activityId the activity to lock
+	 * @return the activity, or {@link Optional#empty()} if it does not exist
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<Activity> findLockedById(String activityId);
+
+	/**
+	 * Overwrites the participant count of the activity, without changing its
+	 * version.
+	 *
+	 * @param activityId the activity to update
+	 * @param count      the recounted number of participants
+	 * @return the number of updated rows
+	 */
+	@Modifying
+	@Query("UPDATE activities a SET a.participantCount = :count WHERE a.id = :activityId")
+	int updateParticipantCount(@Param("activityId") String activityId, @Param("count") int count);
+
 }
@@ -0,0 +1,97 @@
+package com.bu.getactivecore.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.bu.getactivecore.model.email.EmailOutbox;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+/**
+ * Repository interface for managing {@link EmailOutbox} entities.
+ */
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, String> {
+
+	/**
+	 * Locks the oldest undelivered rows that are due for the current transaction.
+	 * Rows already locked by another poller are skipped rather than waited on, so
+	 * several instances can drain the outbox side by side.
+	 *
+	 * @param maxAttempts rows that failed this many times are left alone
+	 * @param now         rows whose next attempt is after this time are left
+	 *                    alone
+	 * @param pageable    limits the number of claimed rows
+	 * @return the claimed rows, oldest first
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+	@Query("SELECT o FROM EmailOutbox o WHERE o.deliveredAt IS NULL AND o.attempts < :maxAttempts "
+			+ "AND (o.nextAttemptAt IS NULL OR o.nextAttemptAt <= :now) ORDER BY o.createdAt")
+	List<EmailOutbox> claimPending(@Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now,
+			Pageable pageable);
+
+	/**
+	 * Marks a row as delivered.
+	 *
+	 * @param id          the ID of the row
+	 * @param deliveredAt the time the mail server accepted the email
+	 * @return 1 if the row was updated, 0 if it is gone
+	 */
+	@Modifying
+	@Query("UPDATE EmailOutbox o SET o.deliveredAt = :deliveredAt WHERE o.id = :id")
+	int markDelivered(@Param("id") String id, @Param("deliveredAt") LocalDateTime deliveredAt);
+
+	/**
+	 * Records a failed attempt of an undelivered row.
+	 *
+	 * @param id            the ID of the row
+	 * @param attempts      the number of failed attempts including this one
+	 * @param lastError     the reason of the failure
+	 * @param nextAttemptAt the earliest time of the next attempt
+	 * @return 1 if the row was updated, 0 if it is gone or was delivered meanwhile
+	 */
+	@Modifying
+	@Query("UPDATE EmailOutbox o SET o.attempts = :attempts, o.lastError = :lastError, "
+			+ "o.nextAttemptAt = :nextAttemptAt WHERE o.id = :id AND o.deliveredAt IS NULL")
+	int markFailed(@Param("id") String id, @Param("attempts") int attempts, @Param("lastError") String lastError,
+			@Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+	/**
+	 * Makes claimed rows that were not handed to the dispatcher due right away.
+	 *
+	 * @param ids the IDs of the rows
+	 * @return the number of released rows
+	 */
+	@Modifying
+	@Query("UPDATE EmailOutbox o SET o.nextAttemptAt = NULL WHERE o.id IN :ids")
+	int release(@Param("ids") List<String> ids);
+
+	boolean existsByUsernameAndCreatedAtAfter(String username, LocalDateTime createdAfter);
+
+	/**
+	 * @param maxAttempts rows that failed this many times are not counted
+	 * @return the creation time of the oldest undelivered row, if any
+	 */
+	@Query("SELECT MIN(o.createdAt) FROM EmailOutbox o WHERE o.deliveredAt IS NULL AND o.attempts < :maxAttempts")
+	Optional<LocalDateTime> findOldestPending(@Param("maxAttempts") int maxAttempts);
+
+	/**
+	 * Removes rows delivered before the given time.
+	 *
+	 * @param before the cut-off time
+	 * @return the number of removed rows
+	 */
+	@Modifying
+	@Query("DELETE FROM EmailOutbox o WHERE o.deliveredAt < :before")
+	int deleteDeliveredBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,56 @@
+package com.bu.getactivecore.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bu.getactivecore.model.token.RefreshTokenFamily;
+
+/**
+ * Repository interface for managing {@link RefreshTokenFamily} entities.
+ */
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+	/**
+	 * Atomically replaces the current token of a family, but only if the presented
+	 * token is still the current one and the family is neither revoked nor
+	 * expired.
+	 *
+	 * @param familyId         the family of the presented token
+	 * @param presentedTokenId the id of the presented refresh token
+	 * @param nextTokenId      the id of the refresh token replacing it
+	 * @param now              the current time
+	 * @param expiresAt        the new expiration of the family
+	 * @return 1 if the token was rotated, 0 otherwise
+	 */
+	@Modifying
+	@Query("UPDATE RefreshTokenFamily f SET f.currentTokenId = :nextTokenId, f.expiresAt = :expiresAt "
+			+ "WHERE f.familyId = :familyId AND f.currentTokenId = :presentedTokenId AND f.revoked = false "
+			+ "AND f.expiresAt > :now")
+	int rotate(@Param("familyId") String familyId, @Param("presentedTokenId") String presentedTokenId,
+			@Param("nextTokenId") String nextTokenId, @Param("now") LocalDateTime now,
+			@Param("expiresAt") LocalDateTime expiresAt);
+
+	/**
+	 * Revokes every token of the family.
+	 *
+	 * @param familyId the family to revoke
+	 * @return the number of revoked families
+	 */
+	@Modifying
+	@Query("UPDATE RefreshTokenFamily f SET f.revoked = true WHERE f.familyId = :familyId")
+	int revoke(@Param("familyId") String familyId);
+
+	/**
+	 * Removes families that can no longer be used.
+	 *
+	 * @param now the current time
+	 * @return the number of removed families
+	 */
+	@Modifying
+	@Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt < :now")
+	int deleteExpired(@Param("now") LocalDateTime now);
+}
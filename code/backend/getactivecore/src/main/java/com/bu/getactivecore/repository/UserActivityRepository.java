@@ -6,12 +6,16 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.bu.getactivecore.model.activity.RoleType;
 import com.bu.getactivecore.model.activity.UserActivity;
 
+import jakarta.persistence.LockModeType;
+
 /**
  * Repository interface for managing user activity roles.
  */
@@ -37,15 +41,92 @@ public interface UserActivityRepository extends JpaRepository<UserActivity, Stri
 	List<UserActivity> findByActivityIdAndRole(String activityId, RoleType role);
 
 	/**
-	 * Delete an activity based on given parameters.
+	 * Counts the users holding the given role in an activity.
 	 *
-	 * @param activityId The ID of the user to search its activity role.
+	 * @param activityId The ID of the activity.
+	 * @param role       The role to count.
+	 * @return the number of users with the role in the activity.
+	 */
+	long countByActivityIdAndRole(String activityId, RoleType role);
+
+	/**
+	 * Checks whether anyone holds the given role in an activity, stopping at the
+	 * first matching row instead of loading them all.
+	 *
+	 * @param activityId The ID of the activity.
+	 * @param role       The role to look for.
+	 * @return true if at least one user has the role in the activity.
+	 */
+	boolean existsByActivityIdAndRole(String activityId, RoleType role);
+
+	/**
+	 * Deletes every membership of an activity in one statement, without loading
+	 * the rows first.
+	 *
+	 * @param activityId The ID of the activity whose memberships to delete.
+	 * @return the number of deleted rows.
+	 */
+	@Modifying
+	@Query("DELETE FROM UserActivity ua WHERE ua.activity.id = :activityId")
+	int deleteByActivityId(@Param("activityId") String activityId);
+
+	/**
+	 * Deletes a single {@link UserActivity} in one statement.
+	 *
+	 * @param id The ID of the row to delete.
+	 * @return 1 if the row was deleted, 0 if it was already gone.
 	 */
-	void deleteByActivityId(String activityId);
+	@Modifying
+	@Query("DELETE FROM UserActivity ua WHERE ua.id = :id")
+	int deleteByIdIfPresent(@Param("id") String id);
 
-	@Query("SELECT ua FROM UserActivity ua JOIN ua.activity JOIN ua.user WHERE ua.user.userId = :userId")
+	/**
+	 * Finds and locks the member waiting longest for a seat, using the
+	 * {@code idx_user_activities_waitlist} index.
+	 *
+	 * @param activityId The ID of the activity whose waitlist to read.
+	 * @param role       Always {@link RoleType#WAITLISTED}.
+	 * @return the head of the waitlist, or {@link Optional#empty()} if nobody is
+	 *         waiting.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<UserActivity> findFirstByActivityIdAndRoleOrderByWaitlistSequenceAsc(String activityId, RoleType role);
+
+	/**
+	 * Computes the position of a waiting member from their sequence and the
+	 * sequence of the last promoted member, two indexed lookups and no counting.
+	 * Members ahead who left the waitlist are still counted until the queue
+	 * moves past them, so the position is an upper bound.
+	 *
+	 * @param userId     The ID of the waiting user.
+	 * @param activityId The ID of the activity.
+	 * @return the 1-based position, or {@link Optional#empty()} if the user is
+	 *         not waitlisted.
+	 */
+	@Query("SELECT ua.waitlistSequence - a.waitlistHead FROM UserActivity ua JOIN ua.activity a "
+			+ "WHERE ua.user.userId = :userId AND a.id = :activityId "
+			+ "AND ua.role = com.bu.getactivecore.model.activity.RoleType.WAITLISTED")
+	Optional<Long> findWaitlistPosition(@Param("userId") String userId, @Param("activityId") String activityId);
+
+	/**
+	 * Finds the activities a user is a member of. Activities the user is only
+	 * waitlisted for are left out, see {@link #findWaitlistPosition}.
+	 *
+	 * @param userId The ID of the user.
+	 * @return the memberships of the user.
+	 */
+	@Query("SELECT ua FROM UserActivity ua JOIN ua.activity JOIN ua.user WHERE ua.user.userId = :userId "
+			+ "AND ua.role <> com.bu.getactivecore.model.activity.RoleType.WAITLISTED")
 	List<UserActivity> findJoinedActivitiesByUserId(String userId);
 
-	@Query("SELECT ua FROM UserActivity ua JOIN ua.activity a JOIN ua.user u WHERE a.id = :activityId")
+	/**
+	 * Finds the members of an activity, leaving out waitlisted users.
+	 *
+	 * @param activityId The ID of the activity.
+	 * @param pageable   The page to return.
+	 * @return a page of the members of the activity.
+	 */
+	@Query("SELECT ua FROM UserActivity ua JOIN ua.activity a JOIN ua.user u WHERE a.id = :activityId "
+			+ "AND ua.role <> com.bu.getactivecore.model.activity.RoleType.WAITLISTED")
 	Page<UserActivity> findParticipantsByActivityId(@Param("activityId") String activityId, Pageable pageable);
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 package com.bu.getactivecore.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.bu.getactivecore.model.users.AccountState;
 import com.bu.getactivecore.model.users.Users;
+import com.bu.getactivecore.service.users.entity.UserCredentialsDto;
+import com.bu.getactivecore.service.users.entity.UserIdentityDto;
 
 /**
  * Repository interface for managing {@link Users} entities.
@@ -17,4 +24,58 @@ public interface UserRepository extends JpaRepository<Users, String> {
 
 	Optional<Users> findByEmailAndUsername(String email, String username);
 
+	boolean existsByUsername(String username);
+
+	/**
+	 * Loads only the columns needed to authenticate a user, skipping profile data
+	 * such as the avatar.
+	 *
+	 * @param username the username to look up
+	 * @return the credentials of the user, if found
+	 */
+	@Query("SELECT new com.bu.getactivecore.service.users.entity.UserCredentialsDto(u.userId, u.username, u.password, u.accountState) "
+			+ "FROM Users u WHERE u.username = :username")
+	Optional<UserCredentialsDto> findCredentialsByUsername(@Param("username") String username);
+
+	/**
+	 * Finds users already holding the given email or username in a single query.
+	 * At most two rows are returned since both columns are unique.
+	 *
+	 * @param email    the email to look up
+	 * @param username the username to look up
+	 * @return the email and username of every matching user
+	 */
+	@Query("SELECT new com.bu.getactivecore.service.users.entity.UserIdentityDto(u.email, u.username) "
+			+ "FROM Users u WHERE u.email = :email OR u.username = :username")
+	List<UserIdentityDto> findIdentitiesByEmailOrUsername(@Param("email") String email,
+			@Param("username") String username);
+
+	/**
+	 * Moves a user from one account state to another in a single statement, only
+	 * if the user is currently in the expected state. The version is bumped so
+	 * that stale copies of the entity fail their optimistic check.
+	 *
+	 * @param username the user to update
+	 * @param from     the state the user is expected to be in
+	 * @param to       the new state
+	 * @return 1 if the transition happened, 0 if the user is unknown or not in the
+	 *         expected state
+	 */
+	@Modifying
+	@Query("UPDATE Users u SET u.accountState = :to, u.version = u.version + 1 "
+			+ "WHERE u.username = :username AND u.accountState = :from")
+	int transitionAccountState(@Param("username") String username, @Param("from") AccountState from,
+			@Param("to") AccountState to);
+
+	/**
+	 * Replaces the password hash of a user without loading the entity.
+	 *
+	 * @param username the user to update
+	 * @param password the new password hash
+	 * @return the number of updated rows
+	 */
+	@Modifying
+	@Query("UPDATE Users u SET u.password = :password, u.version = u.version + 1 WHERE u.username = :username")
+	int updatePassword(@Param("username") String username, @Param("password") String password);
+
 }
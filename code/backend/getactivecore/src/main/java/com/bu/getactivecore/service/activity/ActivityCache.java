@@ -0,0 +1,97 @@
+package com.bu.getactivecore.service.activity;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.shared.cache.BoundedCache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Size-bounded, expiring cache of activities keyed by ID, used to check that an
+ * activity exists without a database round trip.
+ * <p>
+ * IDs matching no activity are cached as well, for a shorter time, so repeated
+ * requests for an unknown ID do not reach the database either. Activities
+ * created, updated or deleted by this instance are written through from the
+ * {@link ActivityChangedEvent} published after commit. Changes made by other
+ * instances are picked up once the entry expires.
+ * <p>
+ * Participant counts are not maintained by the cache, callers that need the
+ * exact count must read it from the database.
+ */
+@Component
+public class ActivityCache {
+
+	private final BoundedCache<String, Optional<ActivityDto>> m_cache;
+
+	private final ActivityCacheProperties m_properties;
+
+	/**
+	 * Constructs the cache and registers its statistics.
+	 *
+	 * @param properties    size and TTLs of the cache
+	 * @param meterRegistry used to publish cache statistics
+	 */
+	public ActivityCache(ActivityCacheProperties properties, MeterRegistry meterRegistry) {
+		m_properties = properties;
+		m_cache = new BoundedCache<>(properties.getMaxSize(), properties.getTtl());
+		m_cache.bindTo(meterRegistry, "activities");
+		Gauge.builder("cache.hit.ratio", this, ActivityCache::hitRatio).tag("cache", "activities")
+				.description("Share of lookups answered from the cache").register(meterRegistry);
+	}
+
+	/**
+	 * Returns the cached activity, loading it on a miss.
+	 *
+	 * @param activityId the activity to look up
+	 * @param loader     used to load the activity when it is not cached
+	 * @return the activity, or empty if there is no activity with that ID
+	 */
+	public Optional<ActivityDto> get(String activityId, Function<String, Optional<Activity>> loader) {
+		return m_cache.get(activityId, id -> loader.apply(id).map(ActivityDto::of),
+				activity -> activity.isEmpty() ? m_properties.getNegativeTtl() : null);
+	}
+
+	/**
+	 * Writes a committed change through to the cache.
+	 *
+	 * @param event the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onActivityChanged(ActivityChangedEvent event) {
+		// Invalidating first discards values loaded concurrently from before the change
+		m_cache.invalidate(event.getActivityId());
+		if (event.getType() == ActivityChangedEvent.ChangeType.DELETED) {
+			m_cache.put(event.getActivityId(), Optional.empty(), m_properties.getNegativeTtl());
+		} else {
+			m_cache.put(event.getActivityId(), Optional.of(event.getActivity()));
+		}
+	}
+
+	/**
+	 * Drops a cached activity found to be stale, for example one deleted by
+	 * another instance, so the next lookup reads it from the database.
+	 *
+	 * @param activityId the activity to drop
+	 */
+	public void evict(String activityId) {
+		m_cache.invalidate(activityId);
+	}
+
+	/**
+	 * @return the share of lookups answered from the cache, between 0 and 1
+	 */
+	public double hitRatio() {
+		long hits = m_cache.hitCount();
+		long lookups = hits + m_cache.missCount();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+}
@@ -0,0 +1,45 @@
+package com.bu.getactivecore.service.activity;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the in-process activity cache, bound from the
+ * {@code activity.cache} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * activity.cache.max-size=10000
+ * activity.cache.ttl=10m
+ * activity.cache.negative-ttl=30s
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "activity.cache")
+public class ActivityCacheProperties {
+
+	/**
+	 * Maximum number of activities, known or unknown, kept in memory.
+	 */
+	private int maxSize = 10_000;
+
+	/**
+	 * How long a cached activity is trusted before it is reloaded. Bounds
+	 * staleness for changes made by other instances.
+	 */
+	private Duration ttl = Duration.ofMinutes(10);
+
+	/**
+	 * How long an ID that matched no activity is remembered as unknown.
+	 */
+	private Duration negativeTtl = Duration.ofSeconds(30);
+}
@@ -2,40 +2,56 @@ package com.bu.getactivecore.service.activity;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.bu.getactivecore.model.activity.RoleType;
 import com.bu.getactivecore.model.users.UserPrincipal;
 import com.bu.getactivecore.service.activity.api.ActivityApi;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentCreateRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentDto;
 import com.bu.getactivecore.service.activity.entity.ActivityCreateRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityCursor;
 import com.bu.getactivecore.service.activity.entity.ActivityDeleteRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityDto;
 import com.bu.getactivecore.service.activity.entity.ActivityParticipantRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityParticipantResponseDto;
+import com.bu.getactivecore.service.activity.entity.ActivityPatchRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivitySuggestionDto;
 import com.bu.getactivecore.service.activity.entity.ActivityUpdateRequestDto;
+import com.bu.getactivecore.service.activity.entity.WaitlistPositionDto;
 import com.bu.getactivecore.service.users.entity.ParticipantDto;
+import com.bu.getactivecore.shared.entity.CursorPage;
 import com.bu.getactivecore.shared.entity.PaginatedResponse;
 import com.bu.getactivecore.shared.exception.ApiException;
 
@@ -53,6 +69,17 @@ import lombok.extern.slf4j.Slf4j;
 @CrossOrigin(origins = "*")
 public class ActivityController {
 
+	/**
+	 * Response header carrying the approximate number of activities when no
+	 * exact total is computed.
+	 */
+	public static final String APPROXIMATE_TOTAL_HEADER = "X-Approximate-Total-Count";
+
+	/**
+	 * Lets clients keep tagged responses but makes them revalidate on every use.
+	 */
+	private static final CacheControl REVALIDATE = CacheControl.noCache();
+
 	private final ActivityApi m_activityApi;
 
 	/**
@@ -66,25 +93,182 @@ public class ActivityController {
 
 	/**
 	 * Get all activities.
+	 * <p>
+	 * Unless {@code withTotal=true} is requested, a {@link Slice} is returned
+	 * which only tells whether more activities follow, saving a count query per
+	 * request. The approximate total is sent in the
+	 * {@value #APPROXIMATE_TOTAL_HEADER} header instead.
+	 * <p>
+	 * Answers with 304 when the {@code If-None-Match} header holds the current
+	 * tag of the activity list.
 	 *
-	 * @return Page of activities
+	 * @return Page or Slice of activities
 	 */
 	@GetMapping("/activities")
-	public ResponseEntity<Page<ActivityDto>> getActivities(@RequestParam(name = "page", defaultValue = "0") int page,
+	public ResponseEntity<Slice<ActivityDto>> getActivities(@RequestParam(name = "page", defaultValue = "0") int page,
 			@RequestParam(name = "size", defaultValue = "10") int size,
-			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending) {
+			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending,
+			@RequestParam(defaultValue = "false") boolean withTotal,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		String eTag = m_activityApi.getActivitiesTag();
+		if (isNotModified(ifNoneMatch, eTag)) {
+			return notModified(eTag);
+		}
+		Slice<ActivityDto> activities;
 		if (sortBy.equals("popularity")) {
 			Pageable pageable = PageRequest.of(page, size, Sort.unsorted());
-			return ResponseEntity.ok(m_activityApi.getAllActivitiesSortedByPopularity(pageable));
+			activities = withTotal ? m_activityApi.getAllActivitiesSortedByPopularity(pageable)
+					: m_activityApi.getAllActivitiesSortedByPopularitySlice(pageable);
+		} else {
+			Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+			Pageable pageable = PageRequest.of(page, size, sort);
+			activities = withTotal ? m_activityApi.getAllActivities(pageable)
+					: m_activityApi.getAllActivitiesSlice(pageable);
+		}
+		if (withTotal) {
+			return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag).body(activities);
+		}
+		return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag)
+				.header(APPROXIMATE_TOTAL_HEADER, String.valueOf(m_activityApi.getApproximateActivityCount()))
+				.body(activities);
+	}
+
+	/**
+	 * Get all activities using keyset pagination. Selected instead of
+	 * {@link #getActivities} whenever a {@code cursor} parameter is present, an
+	 * empty cursor requests the first page.
+	 *
+	 * @param cursor    cursor returned with a previous page, or empty
+	 * @param size      maximum number of activities per page
+	 * @param sortBy    id, startDateTime or popularity, ignored when following a
+	 *                  cursor
+	 * @param ascending sort direction, ignored when following a cursor
+	 * @return Page of activities with the cursors of the adjacent pages
+	 */
+	@GetMapping(path = "/activities", params = "cursor")
+	public ResponseEntity<CursorPage<ActivityDto>> getActivitiesByCursor(
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "10") int size,
+			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		String eTag = m_activityApi.getActivitiesTag();
+		if (isNotModified(ifNoneMatch, eTag)) {
+			return notModified(eTag);
 		}
+		return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag)
+				.body(m_activityApi.getActivities(toCursor(cursor, sortBy, ascending), size));
+	}
 
-		Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
-		Pageable pageable = PageRequest.of(page, size, sort);
-		return ResponseEntity.ok(m_activityApi.getAllActivities(pageable));
+	/**
+	 * Full-text search over the name, description and location of activities,
+	 * served from an in-memory index.
+	 *
+	 * @param query free text to search for
+	 * @param page  zero-based page number
+	 * @param size  number of activities per page, capped at 20
+	 * @return Page of activities ranked by relevance
+	 */
+	@GetMapping("/activities/search")
+	public ResponseEntity<Page<ActivityDto>> searchActivities(@RequestParam(name = "q") String query,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "10") int size) {
+		return ResponseEntity
+				.ok(m_activityApi.searchActivities(query, PageRequest.of(Math.max(0, page), Math.max(1, size))));
+	}
+
+	/**
+	 * Type-ahead suggestions for activity names, answered from memory.
+	 *
+	 * @param prefix beginning of the activity name
+	 * @param limit  maximum number of suggestions
+	 * @return the matching activities, most participants first
+	 */
+	@GetMapping("/activities/suggest")
+	public ResponseEntity<List<ActivitySuggestionDto>> suggestActivities(@RequestParam(name = "prefix") String prefix,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		return ResponseEntity.ok(m_activityApi.suggestActivities(prefix, limit));
+	}
+
+	/**
+	 * Get the activities overlapping a time window, for example everything
+	 * going on between 6 and 9 pm on a given day.
+	 *
+	 * @param from  start of the window, formatted as {@code yyyy-MM-dd HH:mm}
+	 * @param to    end of the window, formatted as {@code yyyy-MM-dd HH:mm}
+	 * @param limit maximum number of activities
+	 * @return the activities in order of start time
+	 */
+	@GetMapping("/activities/window")
+	public ResponseEntity<List<ActivityDto>> getActivitiesInWindow(
+			@RequestParam(name = "from") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm") LocalDateTime from,
+			@RequestParam(name = "to") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm") LocalDateTime to,
+			@RequestParam(name = "limit", defaultValue = "50") int limit) {
+		return ResponseEntity.ok(m_activityApi.getActivitiesInWindow(from, to, limit));
+	}
+
+	/**
+	 * Get the activities starting within the next minutes.
+	 *
+	 * @param withinMinutes how far ahead to look, at most the number of days held
+	 *                      by the upcoming activity index
+	 * @param limit         maximum number of activities
+	 * @return the activities in order of start time
+	 */
+	@GetMapping("/activities/starting-soon")
+	public ResponseEntity<List<ActivityDto>> getActivitiesStartingSoon(
+			@RequestParam(name = "withinMinutes", defaultValue = "60") long withinMinutes,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		return ResponseEntity.ok(m_activityApi.getActivitiesStartingSoon(withinMinutes, limit));
+	}
+
+	/**
+	 * Export all activities as newline-delimited JSON, one activity per line,
+	 * for reporting jobs. The response is streamed while activities are read,
+	 * instead of paging through {@link #getActivities}.
+	 *
+	 * @return all activities in order of ID
+	 */
+	@GetMapping(path = "/activities/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportActivities() {
+		log.info("Got request: /v1/activities/export");
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(m_activityApi::exportActivities);
+	}
+
+	private static ActivityCursor toCursor(String cursor, String sortBy, boolean ascending) {
+		return StringUtils.hasText(cursor) ? ActivityCursor.decode(cursor) : ActivityCursor.first(sortBy, ascending);
+	}
+
+	/**
+	 * @param ifNoneMatch value of the {@code If-None-Match} header, may be null
+	 * @param eTag        current tag of the requested data
+	 * @return true if the client already holds the current data
+	 */
+	private static boolean isNotModified(String ifNoneMatch, String eTag) {
+		if (ifNoneMatch == null || eTag == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			// If-None-Match uses the weak comparison. "*" is not honoured, it would
+			// also match representations that do not exist.
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals(eTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static <T> ResponseEntity<T> notModified(String eTag) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).eTag(eTag).build();
 	}
 
 	/**
-	 * Get the roster of participants for a specific activity.
+	 * Get the roster of participants for a specific activity. Answers with 304
+	 * when the {@code If-None-Match} header holds the current tag of the
+	 * activity and the user may still read the roster.
 	 *
 	 * @param activityId the ID of the activity
 	 * @return Page of users participating in the activity
@@ -95,10 +279,18 @@ public class ActivityController {
 	public ResponseEntity<PaginatedResponse<ParticipantDto>> getRoster(@PathVariable String activityId,
 			@AuthenticationPrincipal UserPrincipal user,
 			@SortDefault(sort = "name", direction = Sort.Direction.ASC) @PageableDefault(size = 20) final Pageable pageable,
-			HttpServletRequest request) throws ApiException {
+			HttpServletRequest request,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+			throws ApiException {
 		log.debug("Got request at /activities/{}/participants", activityId);
+		String eTag = m_activityApi.getActivityTag(activityId);
+		if (isNotModified(ifNoneMatch, eTag)) {
+			// Users who left keep their tag, only members learn the roster is unchanged
+			m_activityApi.assertRosterAccess(user.getUserId(), activityId);
+			return notModified(eTag);
+		}
 
-		String requestedUserId = user.getUserDto().getUserId();
+		String requestedUserId = user.getUserId();
 		Page<ParticipantDto> roster = m_activityApi.getActivityRoster(requestedUserId, activityId, pageable);
 
 		// Build base path and extra query params
@@ -109,29 +301,47 @@ public class ActivityController {
 				queryParams.put(key, values[0]); // simplistic, assumes single value
 			}
 		});
-		return ResponseEntity.ok(new PaginatedResponse<>(roster, basePath, queryParams));
+		return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag)
+				.body(new PaginatedResponse<>(roster, basePath, queryParams));
 	}
 
 	/**
-	 * Get activities by name.
+	 * Get activities by name, see {@link #getActivities} for {@code withTotal}.
 	 *
-	 * @return Page of activities matching the name
+	 * @return Page or Slice of activities matching the name
 	 */
 	@GetMapping("/activity/{name}")
-	public ResponseEntity<Page<ActivityDto>> getActivityByName(@PathVariable String name,
+	public ResponseEntity<Slice<ActivityDto>> getActivityByName(@PathVariable String name,
 			@RequestParam(name = "page", defaultValue = "0") int page,
 			@RequestParam(name = "size", defaultValue = "10") int size,
-			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending) {
+			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending,
+			@RequestParam(defaultValue = "false") boolean withTotal) {
 		Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 		Pageable pageable = PageRequest.of(page, size, sort);
-		return ResponseEntity.ok(m_activityApi.getActivityByName(name, pageable));
+		return ResponseEntity.ok(withTotal ? m_activityApi.getActivityByName(name, pageable)
+				: m_activityApi.getActivityByNameSlice(name, pageable));
+	}
+
+	/**
+	 * Get activities by name using keyset pagination, see
+	 * {@link #getActivitiesByCursor}.
+	 *
+	 * @return Page of activities matching the name with the cursors of the
+	 *         adjacent pages
+	 */
+	@GetMapping(path = "/activity/{name}", params = "cursor")
+	public ResponseEntity<CursorPage<ActivityDto>> getActivityByNameByCursor(@PathVariable String name,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "10") int size,
+			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending) {
+		return ResponseEntity.ok(m_activityApi.getActivityByName(name, toCursor(cursor, sortBy, ascending), size));
 	}
 
 	@GetMapping("/activity/participants")
 	public ActivityParticipantResponseDto getJoinedActivities(@AuthenticationPrincipal UserPrincipal user) {
 		log.info("Got request: /v1/activity/participants");
 
-		String userId = user.getUserDto().getUserId();
+		String userId = user.getUserId();
 		return new ActivityParticipantResponseDto(m_activityApi.getJoinedActivities(userId));
 	}
 
@@ -140,9 +350,22 @@ public class ActivityController {
 			@Valid @RequestBody ActivityParticipantRequestDto request) {
 		log.info("Got request: /v1/activity/participant");
 
-		String userId = user.getUserDto().getUserId();
-		m_activityApi.joinActivity(userId, request.getActivityId());
-		return ResponseEntity.status(HttpStatus.OK).build();
+		String userId = user.getUserId();
+		RoleType role = m_activityApi.joinActivity(userId, request.getActivityId());
+		// Accepted but not yet joined, the position can be polled
+		return ResponseEntity.status(role == RoleType.WAITLISTED ? HttpStatus.ACCEPTED : HttpStatus.OK).build();
+	}
+
+	/**
+	 * Get the position of the current user in the waitlist of a full activity.
+	 *
+	 * @param id the ID of the activity
+	 * @return the position, 1 being next in line
+	 */
+	@GetMapping("/activity/{id}/waitlist/position")
+	public ResponseEntity<WaitlistPositionDto> getWaitlistPosition(@AuthenticationPrincipal UserPrincipal user,
+			@PathVariable String id) {
+		return ResponseEntity.ok(m_activityApi.getWaitlistPosition(user.getUserId(), id));
 	}
 
 	@DeleteMapping("/activity/participants")
@@ -150,7 +373,7 @@ public class ActivityController {
 			@Valid @RequestBody ActivityParticipantRequestDto request) {
 		log.info("Got request: /v1/activity/leave");
 
-		String userId = user.getUserDto().getUserId();
+		String userId = user.getUserId();
 		m_activityApi.leaveActivity(userId, request.getActivityId());
 		return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
 	}
@@ -182,7 +405,7 @@ public class ActivityController {
 	@PostMapping("/activity")
 	public ResponseEntity<Object> createActivity(@AuthenticationPrincipal UserPrincipal user,
 			@RequestBody @Valid ActivityCreateRequestDto requestDto) {
-		String userId = user.getUserDto().getUserId();
+		String userId = user.getUserId();
 		m_activityApi.createActivity(userId, requestDto);
 		return ResponseEntity.status(HttpStatus.CREATED).build();
 	}
@@ -203,6 +426,20 @@ public class ActivityController {
 		return ResponseEntity.ok(m_activityApi.updateActivity(id, request));
 	}
 
+	/**
+	 * Partially update an activity, only the fields present in the request are
+	 * changed.
+	 *
+	 * @param request fields to change and the version they are based on
+	 * @return the updated activity, or 409 if it was changed in the meantime
+	 */
+	@PatchMapping("/activity/{id}")
+	@PreAuthorize("@activityPermissionEvaluator.assertAuthorizedToUpdateActivity(authentication, #id)")
+	public ResponseEntity<ActivityDto> patchActivity(@PathVariable String id,
+			@Valid @RequestBody ActivityPatchRequestDto request) {
+		return ResponseEntity.ok(m_activityApi.patchActivity(id, request));
+	}
+
 	/**
 	 * create an activity comment
 	 *
@@ -212,24 +449,34 @@ public class ActivityController {
 	@PostMapping("/activity/{id}/comment")
 	public ResponseEntity<Object> createActivityComment(@AuthenticationPrincipal UserPrincipal user,
 			@PathVariable String id, @RequestBody @Valid ActivityCommentCreateRequestDto requestDto) {
-		String userId = user.getUserDto().getUserId();
+		String userId = user.getUserId();
 		m_activityApi.createActivityComment(userId, id, requestDto, LocalDateTime.now());
 		return ResponseEntity.status(HttpStatus.CREATED).build();
 	}
 
 	/**
-	 * Get all comments by activity id.
+	 * Get all comments by activity id, see {@link #getActivities} for
+	 * {@code withTotal}. Answers with 304 when the {@code If-None-Match} header
+	 * holds the current tag of the activity.
 	 *
-	 * @return Page of activities
+	 * @return Page or Slice of activity comments
 	 */
 	@GetMapping("/activity/{id}/comments")
-	public ResponseEntity<Page<ActivityCommentDto>> getActivityComments(@PathVariable String id,
+	public ResponseEntity<Slice<ActivityCommentDto>> getActivityComments(@PathVariable String id,
 			@RequestParam(name = "page", defaultValue = "0") int page,
 			@RequestParam(name = "size", defaultValue = "10") int size,
-			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending) {
+			@RequestParam(defaultValue = "id") String sortBy, @RequestParam(defaultValue = "true") boolean ascending,
+			@RequestParam(defaultValue = "false") boolean withTotal,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		String eTag = m_activityApi.getActivityTag(id);
+		if (isNotModified(ifNoneMatch, eTag)) {
+			return notModified(eTag);
+		}
 		Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 		Pageable pageable = PageRequest.of(page, size, sort);
-		return ResponseEntity.ok(m_activityApi.getAllActivityComments(pageable, id));
+		return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag)
+				.body(withTotal ? m_activityApi.getAllActivityComments(pageable, id)
+						: m_activityApi.getAllActivityCommentsSlice(pageable, id));
 	}
 
-}
\ No newline at end of file
+}
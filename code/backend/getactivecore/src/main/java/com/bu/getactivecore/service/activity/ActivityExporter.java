@@ -0,0 +1,80 @@
+package com.bu.getactivecore.service.activity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Writes all activities as newline-delimited JSON while they are read from the
+ * database.
+ * <p>
+ * Rows are fetched in batches through a server-side cursor and the persistence
+ * context is cleared after every batch, so memory use stays the same however
+ * many activities there are.
+ */
+@Component
+public class ActivityExporter {
+
+	private final ActivityRepository m_activityRepo;
+
+	private final EntityManager m_entityManager;
+
+	private final ObjectWriter m_writer;
+
+	/**
+	 * Constructs the exporter.
+	 *
+	 * @param activityRepo  used to stream activities
+	 * @param entityManager used to drop exported activities from the persistence
+	 *                      context
+	 * @param objectMapper  used to serialize activities
+	 */
+	public ActivityExporter(ActivityRepository activityRepo, EntityManager entityManager, ObjectMapper objectMapper) {
+		m_activityRepo = activityRepo;
+		m_entityManager = entityManager;
+		// The caller owns the stream, and flushing it per line would send tiny chunks
+		m_writer = objectMapper.writerFor(ActivityDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+	}
+
+	/**
+	 * Writes every activity as one JSON object per line.
+	 *
+	 * @param out where to write the activities, left open
+	 * @return the number of exported activities
+	 * @throws IOException if writing to {@code out} fails
+	 */
+	@Transactional(readOnly = true)
+	public long export(OutputStream out) throws IOException {
+		long exported = 0;
+		try (Stream<Activity> activities = m_activityRepo.streamAllOrderedById()) {
+			Iterator<Activity> iterator = activities.iterator();
+			while (iterator.hasNext()) {
+				m_writer.writeValue(out, ActivityDto.of(iterator.next()));
+				out.write('\n');
+				if (++exported % ActivityRepository.STREAM_FETCH_SIZE == 0) {
+					// Exported activities are not needed again
+					m_entityManager.clear();
+					out.flush();
+				}
+			}
+		}
+		out.flush();
+		return exported;
+	}
+}
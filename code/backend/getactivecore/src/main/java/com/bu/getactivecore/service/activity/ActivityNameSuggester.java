@@ -0,0 +1,217 @@
+package com.bu.getactivecore.service.activity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.activity.entity.ActivitySuggestionDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Type-ahead suggestions for activity names, answered from memory.
+ * <p>
+ * All names are kept in an immutable array sorted by their lower case form, so
+ * the names starting with a prefix form one contiguous range found by binary
+ * search. Readers only ever see a complete snapshot and take no lock. Creates,
+ * renames and deletes copy the array with a single entry changed.
+ * <p>
+ * Suggestions are ordered by participant count. Counts change on every join
+ * and leave without an {@link ActivityChangedEvent}, so they are picked up by
+ * a periodic rebuild from the database.
+ */
+@Slf4j
+@Component
+public class ActivityNameSuggester {
+
+	private static final int REBUILD_BATCH_SIZE = 1000;
+
+	private static final Comparator<ActivitySuggestionDto> BY_POPULARITY = Comparator
+			.comparingInt(ActivitySuggestionDto::getParticipantCount)
+			.thenComparing(ActivitySuggestionDto::getName, Comparator.reverseOrder());
+
+	private final ActivityRepository m_activityRepo;
+
+	private final ReplayingSnapshot<Snapshot> m_snapshot = new ReplayingSnapshot<>(new Snapshot(new Entry[0]),
+			Snapshot::apply);
+
+	/**
+	 * Constructs the suggester.
+	 *
+	 * @param activityRepo used to load all activity names
+	 */
+	public ActivityNameSuggester(ActivityRepository activityRepo) {
+		m_activityRepo = activityRepo;
+	}
+
+	/**
+	 * Reloads all names and participant counts from the database.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${activity.suggest.refresh-interval-ms:300000}",
+			fixedDelayString = "${activity.suggest.refresh-interval-ms:300000}")
+	public void rebuild() {
+		Snapshot rebuilt = m_snapshot.rebuild(this::load);
+		if (rebuilt == null) {
+			log.debug("Skipping rebuild of activity name suggestions, one is already running");
+		} else {
+			log.debug("Loaded {} activity names for suggestions", rebuilt.entries.length);
+		}
+	}
+
+	private Snapshot load() {
+		List<Entry> entries = new ArrayList<>();
+		Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+		Page<Activity> batch;
+		do {
+			batch = m_activityRepo.findAll(pageable);
+			batch.forEach(activity -> entries.add(Entry.of(ActivityDto.of(activity))));
+			pageable = batch.nextPageable();
+		} while (batch.hasNext());
+		return new Snapshot(entries.stream().filter(entry -> entry.key != null).sorted().toArray(Entry[]::new));
+	}
+
+	/**
+	 * Applies a committed change to the suggestions.
+	 *
+	 * @param event the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onActivityChanged(ActivityChangedEvent event) {
+		m_snapshot.apply(event);
+	}
+
+	/**
+	 * Returns the most popular activities whose name starts with the prefix,
+	 * ignoring case.
+	 *
+	 * @param prefix the beginning of the name
+	 * @param limit  maximum number of suggestions
+	 * @return the suggestions, most participants first
+	 */
+	public List<ActivitySuggestionDto> suggest(String prefix, int limit) {
+		if (prefix == null || prefix.isBlank() || limit <= 0) {
+			return List.of();
+		}
+		return m_snapshot.get().topByPopularity(normalize(prefix), limit);
+	}
+
+	/**
+	 * @return the number of names held
+	 */
+	public int size() {
+		return m_snapshot.get().entries.length;
+	}
+
+	private static String normalize(String name) {
+		return name == null ? null : name.strip().toLowerCase(Locale.ROOT);
+	}
+
+	private record Entry(String key, ActivitySuggestionDto suggestion) implements Comparable<Entry> {
+
+		static Entry of(ActivityDto activity) {
+			return new Entry(normalize(activity.getName()),
+					new ActivitySuggestionDto(activity.getId(), activity.getName(), activity.getParticipantCount()));
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int byKey = key.compareTo(other.key);
+			return byKey != 0 ? byKey : suggestion.getId().compareTo(other.suggestion.getId());
+		}
+	}
+
+	private static final class Snapshot {
+
+		private final Entry[] entries;
+
+		Snapshot(Entry[] entries) {
+			this.entries = entries;
+		}
+
+		/**
+		 * @return a copy of this snapshot with the change applied
+		 */
+		Snapshot apply(ActivityChangedEvent change) {
+			Entry[] result = entries;
+			int existing = indexOfId(change.getActivityId());
+			if (existing >= 0) {
+				Entry[] removed = new Entry[result.length - 1];
+				System.arraycopy(result, 0, removed, 0, existing);
+				System.arraycopy(result, existing + 1, removed, existing, result.length - existing - 1);
+				result = removed;
+			}
+			if (change.getType() != ActivityChangedEvent.ChangeType.DELETED && change.getActivity() != null
+					&& change.getActivity().getName() != null) {
+				Entry entry = Entry.of(change.getActivity());
+				int insertAt = Arrays.binarySearch(result, entry);
+				insertAt = insertAt >= 0 ? insertAt : -insertAt - 1;
+				Entry[] added = new Entry[result.length + 1];
+				System.arraycopy(result, 0, added, 0, insertAt);
+				added[insertAt] = entry;
+				System.arraycopy(result, insertAt, added, insertAt + 1, result.length - insertAt);
+				result = added;
+			}
+			return result == entries ? this : new Snapshot(result);
+		}
+
+		private int indexOfId(String id) {
+			// Renames move an entry, so it can only be found by scanning
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i].suggestion.getId().equals(id)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		List<ActivitySuggestionDto> topByPopularity(String prefix, int limit) {
+			int from = lowerBound(prefix);
+			PriorityQueue<ActivitySuggestionDto> top = new PriorityQueue<>(limit + 1, BY_POPULARITY);
+			for (int i = from; i < entries.length && entries[i].key.startsWith(prefix); i++) {
+				top.add(entries[i].suggestion);
+				if (top.size() > limit) {
+					top.poll();
+				}
+			}
+			List<ActivitySuggestionDto> result = new ArrayList<>(top);
+			result.sort(BY_POPULARITY.reversed());
+			return result;
+		}
+
+		/**
+		 * @return the index of the first entry whose key is not less than the
+		 *         prefix
+		 */
+		private int lowerBound(String prefix) {
+			int low = 0;
+			int high = entries.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (entries[mid].key.compareTo(prefix) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
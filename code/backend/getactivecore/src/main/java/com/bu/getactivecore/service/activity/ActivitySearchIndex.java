@@ -0,0 +1,342 @@
+package com.bu.getactivecore.service.activity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.WindowIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process inverted index over the name, description and location of all
+ * activities.
+ * <p>
+ * The index is built from the database once the application is ready and then
+ * kept up to date from {@link ActivityChangedEvent}s published after each
+ * committed create, update or delete. It is rebuilt periodically in case an
+ * event was missed, changes committed during a rebuild are replayed on the
+ * rebuilt index before it is swapped in.
+ * <p>
+ * Every query term must match; the last term also matches as a prefix so results can be shown while the user types,
+ * expanding to at most {@value #MAX_PREFIX_EXPANSIONS} of the indexed terms it
+ * starts with.
+ * Hits are ranked by a field-weighted TF-IDF score, matches in the name
+ * counting more than matches in the location or description.
+ */
+@Slf4j
+@Component
+public class ActivitySearchIndex {
+
+	private static final float NAME_WEIGHT = 3f;
+
+	private static final float LOCATION_WEIGHT = 2f;
+
+	private static final float DESCRIPTION_WEIGHT = 1f;
+
+	/**
+	 * Upper bound on the number of terms a prefix expands to, keeps one-letter
+	 * queries cheap. The terms found in the most activities are kept.
+	 */
+	private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+	private static final int MAX_QUERY_TERMS = 8;
+
+	private static final int REBUILD_BATCH_SIZE = 1000;
+
+	private final ActivityRepository m_activityRepo;
+
+	/**
+	 * Guards the current postings, which are updated in place.
+	 */
+	private final ReadWriteLock m_lock = new ReentrantReadWriteLock();
+
+	private final ReplayingSnapshot<Postings> m_postings = new ReplayingSnapshot<>(new Postings(),
+			this::applyLocked);
+
+	/**
+	 * Constructs the index.
+	 *
+	 * @param activityRepo  used to build the index at startup
+	 * @param meterRegistry used to publish the index size
+	 */
+	public ActivitySearchIndex(ActivityRepository activityRepo, MeterRegistry meterRegistry) {
+		m_activityRepo = activityRepo;
+		Gauge.builder("activity.search.index.documents", this, ActivitySearchIndex::documentCount)
+				.description("Number of activities held by the search index").register(meterRegistry);
+		Gauge.builder("activity.search.index.terms", this, ActivitySearchIndex::termCount)
+				.description("Number of distinct terms held by the search index").register(meterRegistry);
+	}
+
+	/**
+	 * Loads all activities into a fresh index, in batches, and swaps it in.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${activity.search.refresh-interval-ms:3600000}",
+			fixedDelayString = "${activity.search.refresh-interval-ms:3600000}")
+	public void rebuild() {
+		Postings rebuilt = m_postings.rebuild(this::load);
+		if (rebuilt == null) {
+			log.debug("Skipping rebuild of the search index, one is already running");
+		} else {
+			log.info("Indexed {} activities for search", documentCount());
+		}
+	}
+
+	private Postings load() {
+		Postings postings = new Postings();
+		// Seeks past the last loaded ID, so deletes meanwhile cannot make a batch skip rows
+		WindowIterator<Activity> activities = WindowIterator
+				.of(position -> m_activityRepo.findAllBy(position, Limit.of(REBUILD_BATCH_SIZE), Sort.by("id")))
+				.startingAt(ScrollPosition.keyset());
+		activities.forEachRemaining(activity -> postings.index(ActivityDto.of(activity)));
+		return postings;
+	}
+
+	/**
+	 * Applies a committed change to the index.
+	 *
+	 * @param event the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onActivityChanged(ActivityChangedEvent event) {
+		m_postings.apply(event);
+	}
+
+	/**
+	 * Adds or replaces an activity in the index.
+	 *
+	 * @param activity the activity to index
+	 */
+	public void index(ActivityDto activity) {
+		m_postings.apply(ActivityChangedEvent.updated(activity));
+	}
+
+	/**
+	 * Removes an activity from the index.
+	 *
+	 * @param activityId ID of the activity to remove
+	 */
+	public void remove(String activityId) {
+		m_postings.apply(ActivityChangedEvent.deleted(activityId));
+	}
+
+	private Postings applyLocked(Postings postings, ActivityChangedEvent change) {
+		m_lock.writeLock().lock();
+		try {
+			postings.apply(change);
+		} finally {
+			m_lock.writeLock().unlock();
+		}
+		return postings;
+	}
+
+	/**
+	 * Searches the index.
+	 *
+	 * @param query    free text, every term must match
+	 * @param pageable the page of ranked hits to return, its sort is ignored
+	 * @return the IDs of the matching activities, best match first
+	 */
+	public Page<String> search(String query, Pageable pageable) {
+		List<String> terms = tokenize(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+		if (terms.isEmpty()) {
+			return Page.empty(pageable);
+		}
+
+		Map<String, Float> scores;
+		m_lock.readLock().lock();
+		try {
+			Postings postings = m_postings.get();
+			int documents = postings.documentTerms.size();
+			scores = null;
+			for (int i = 0; i < terms.size() && (scores == null || !scores.isEmpty()); i++) {
+				boolean prefix = i == terms.size() - 1;
+				Map<String, Float> termScores = postings.scoreTerm(terms.get(i), prefix, documents);
+				scores = scores == null ? termScores : intersect(scores, termScores);
+			}
+		} finally {
+			m_lock.readLock().unlock();
+		}
+
+		List<Map.Entry<String, Float>> ranked = new ArrayList<>(scores.entrySet());
+		ranked.sort(Map.Entry.<String, Float>comparingByValue(Comparator.reverseOrder())
+				.thenComparing(Map.Entry.comparingByKey()));
+		int from = (int) Math.min(pageable.getOffset(), ranked.size());
+		int to = Math.min(from + pageable.getPageSize(), ranked.size());
+		List<String> ids = ranked.subList(from, to).stream().map(Map.Entry::getKey).toList();
+		return new PageImpl<>(ids, pageable, ranked.size());
+	}
+
+	/**
+	 * @return the number of indexed activities
+	 */
+	public int documentCount() {
+		m_lock.readLock().lock();
+		try {
+			return m_postings.get().documentTerms.size();
+		} finally {
+			m_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of distinct indexed terms
+	 */
+	public int termCount() {
+		m_lock.readLock().lock();
+		try {
+			return m_postings.get().terms.size();
+		} finally {
+			m_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Splits text into lower case terms on anything that is not a letter or
+	 * digit.
+	 *
+	 * @param text the text to split, may be null
+	 * @return the terms in order of appearance
+	 */
+	static List<String> tokenize(String text) {
+		if (text == null || text.isBlank()) {
+			return List.of();
+		}
+		List<String> terms = new ArrayList<>();
+		for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+			if (!token.isEmpty()) {
+				terms.add(token);
+			}
+		}
+		return terms;
+	}
+
+	private static Map<String, Float> intersect(Map<String, Float> scores, Map<String, Float> termScores) {
+		Map<String, Float> result = new HashMap<>();
+		scores.forEach((id, score) -> {
+			Float termScore = termScores.get(id);
+			if (termScore != null) {
+				result.put(id, score + termScore);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * The inverted index itself, not thread-safe.
+	 */
+	private static final class Postings {
+
+		/**
+		 * Term to the weight of that term in each activity containing it.
+		 */
+		private final TreeMap<String, Map<String, Float>> terms = new TreeMap<>();
+
+		/**
+		 * Activity ID to the terms indexed for it, used to remove stale postings.
+		 */
+		private final Map<String, Set<String>> documentTerms = new HashMap<>();
+
+		void apply(ActivityChangedEvent change) {
+			if (change.getType() == ActivityChangedEvent.ChangeType.DELETED) {
+				remove(change.getActivityId());
+			} else {
+				index(change.getActivity());
+			}
+		}
+
+		void index(ActivityDto activity) {
+			Map<String, Float> weights = new HashMap<>();
+			addTerms(weights, activity.getName(), NAME_WEIGHT);
+			addTerms(weights, activity.getLocation(), LOCATION_WEIGHT);
+			addTerms(weights, activity.getDescription(), DESCRIPTION_WEIGHT);
+
+			remove(activity.getId());
+			weights.forEach((term, weight) -> terms.computeIfAbsent(term, t -> new HashMap<>())
+					.put(activity.getId(), weight));
+			documentTerms.put(activity.getId(), weights.keySet());
+		}
+
+		void remove(String activityId) {
+			Set<String> indexed = documentTerms.remove(activityId);
+			if (indexed == null) {
+				return;
+			}
+			for (String term : indexed) {
+				Map<String, Float> postings = terms.get(term);
+				if (postings != null) {
+					postings.remove(activityId);
+					if (postings.isEmpty()) {
+						terms.remove(term);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Scores every activity containing the term, or any term starting with it
+		 * if {@code prefix} is set. Only the expansions found in the most activities
+		 * are used, ties going to the lexicographically first. An activity matching
+		 * several expansions keeps its best score.
+		 */
+		private Map<String, Float> scoreTerm(String term, boolean prefix, int documents) {
+			Map<String, Float> scores = new HashMap<>();
+			Set<Map.Entry<String, Map<String, Float>>> matches = new LinkedHashSet<>();
+			Map<String, Float> exact = terms.get(term);
+			if (exact != null) {
+				matches.add(Map.entry(term, exact));
+			}
+			if (prefix) {
+				NavigableMap<String, Map<String, Float>> expansions = terms.subMap(term, false,
+						term + Character.MAX_VALUE, false);
+				// Ranks the expansions before truncating, the sort is stable so ties stay in term order
+				Comparator<Map.Entry<String, Map<String, Float>>> bySize = Comparator
+						.comparingInt(e -> e.getValue().size());
+				expansions.entrySet().stream().sorted(bySize.reversed()).limit(MAX_PREFIX_EXPANSIONS)
+						.forEach(matches::add);
+			}
+			for (Map.Entry<String, Map<String, Float>> match : matches) {
+				Map<String, Float> postings = match.getValue();
+				float idf = (float) Math.log(1 + (double) documents / postings.size());
+				// Prefix expansions rank slightly below exact matches
+				float boost = match.getKey().equals(term) ? 1f : 0.8f;
+				postings.forEach((id, weight) -> scores.merge(id, weight * idf * boost, Math::max));
+			}
+			return scores;
+		}
+
+		private static void addTerms(Map<String, Float> weights, String text, float fieldWeight) {
+			for (String term : tokenize(text)) {
+				weights.merge(term, fieldWeight, Float::sum);
+			}
+		}
+	}
+}
@@ -2,26 +2,47 @@ package com.bu.getactivecore.service.activity;
 
 import static com.bu.getactivecore.model.activity.RoleType.ADMIN;
 import static com.bu.getactivecore.model.activity.RoleType.PARTICIPANT;
+import static com.bu.getactivecore.model.activity.RoleType.WAITLISTED;
+import static com.bu.getactivecore.shared.ErrorCode.ACTIVITY_MODIFIED;
 import static com.bu.getactivecore.shared.ErrorCode.PARTICIPANTS_PRESENT;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.bu.getactivecore.model.activity.Activity;
 import com.bu.getactivecore.model.activity.ActivityComment;
+import com.bu.getactivecore.model.activity.RoleType;
 import com.bu.getactivecore.model.activity.UserActivity;
 import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.ActivityCommentRepository;
@@ -29,15 +50,22 @@ import com.bu.getactivecore.repository.ActivityRepository;
 import com.bu.getactivecore.repository.UserActivityRepository;
 import com.bu.getactivecore.repository.UserRepository;
 import com.bu.getactivecore.service.activity.api.ActivityApi;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentCreateRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentDto;
+import com.bu.getactivecore.service.activity.entity.ActivityContentChangedEvent;
 import com.bu.getactivecore.service.activity.entity.ActivityCreateRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityCursor;
 import com.bu.getactivecore.service.activity.entity.ActivityDeleteRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.activity.entity.ActivityPatchRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivitySuggestionDto;
 import com.bu.getactivecore.service.activity.entity.ActivityUpdateRequestDto;
 import com.bu.getactivecore.service.activity.entity.UserActivityDto;
+import com.bu.getactivecore.service.activity.entity.WaitlistPositionDto;
 import com.bu.getactivecore.service.users.entity.ParticipantDto;
 import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.entity.CursorPage;
 import com.bu.getactivecore.shared.exception.ApiException;
 
 import jakarta.validation.Valid;
@@ -54,6 +82,14 @@ public class ActivityService implements ActivityApi {
 
 	private static final int MAX_PAGE_SIZE = 20;
 
+	private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+	private static final int MAX_SUGGESTIONS = 20;
+
+	private static final int MAX_WINDOW_RESULTS = 100;
+
+	private static final String MEMBERSHIP_CONSTRAINT = "uc_user_activities_user_activity";
+
 	private static final Map<String, String> ROSTER_SORT_MAPPING = Map.of("name", "user.username");
 
 	private final ActivityCommentRepository m_activityCommentRepo;
@@ -64,6 +100,22 @@ public class ActivityService implements ActivityApi {
 
 	private final UserActivityRepository m_userActivityRepo;
 
+	private final ActivitySearchIndex m_searchIndex;
+
+	private final ActivityNameSuggester m_nameSuggester;
+
+	private final UpcomingActivityIndex m_upcomingIndex;
+
+	private final ActivityCache m_activityCache;
+
+	private final ActivityVersions m_activityVersions;
+
+	private final ActivityExporter m_activityExporter;
+
+	private final ApplicationEventPublisher m_eventPublisher;
+
+	private final AtomicLong m_approximateActivityCount = new AtomicLong();
+
 	/**
 	 * Constructs the ActivityService.
 	 *
@@ -71,13 +123,51 @@ public class ActivityService implements ActivityApi {
 	 * @param userRepo            used to fetch and manage user
 	 * @param userActivityRepo    used to fetch and manage user activities
 	 * @param activityCommentRepo used to fetch and manage activity comment
+	 * @param searchIndex         used to answer full-text searches
+	 * @param nameSuggester       used to answer type-ahead name lookups
+	 * @param upcomingIndex       used to answer time-window queries
+	 * @param activityCache       used to look up activities without a database
+	 *                            round trip
+	 * @param activityVersions    used to tag activity reads for conditional
+	 *                            requests
+	 * @param activityExporter    used to stream all activities
+	 * @param eventPublisher      used to announce created, updated and deleted
+	 *                            activities and changes to their participants
+	 *                            and comments
 	 */
 	public ActivityService(ActivityRepository activityRepo, UserActivityRepository userActivityRepo,
-			ActivityCommentRepository activityCommentRepo, UserRepository userRepo) {
+			ActivityCommentRepository activityCommentRepo, UserRepository userRepo, ActivitySearchIndex searchIndex,
+			ActivityNameSuggester nameSuggester, UpcomingActivityIndex upcomingIndex, ActivityCache activityCache,
+			ActivityVersions activityVersions, ActivityExporter activityExporter,
+			ApplicationEventPublisher eventPublisher) {
 		m_activityRepo = activityRepo;
 		m_userRepo = userRepo;
 		m_userActivityRepo = userActivityRepo;
 		m_activityCommentRepo = activityCommentRepo;
+		m_searchIndex = searchIndex;
+		m_nameSuggester = nameSuggester;
+		m_upcomingIndex = upcomingIndex;
+		m_activityCache = activityCache;
+		m_activityVersions = activityVersions;
+		m_activityExporter = activityExporter;
+		m_eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public String getActivitiesTag() {
+		return m_activityVersions.listTag();
+	}
+
+	@Override
+	public String getActivityTag(String activityId) {
+		return m_activityVersions.activityTag(activityId);
+	}
+
+	@Override
+	public long exportActivities(OutputStream out) throws IOException {
+		long exported = m_activityExporter.export(out);
+		log.info("Exported {} activities", exported);
+		return exported;
 	}
 
 	@Override
@@ -98,6 +188,130 @@ public class ActivityService implements ActivityApi {
 		return activities.map(ActivityDto::of);
 	}
 
+	@Override
+	public Page<ActivityDto> searchActivities(String query, Pageable pageable) {
+		Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE));
+		Page<String> hits = m_searchIndex.search(query, page);
+		if (hits.isEmpty()) {
+			return new PageImpl<>(List.of(), page, hits.getTotalElements());
+		}
+		Map<String, Activity> activities = m_activityRepo.findAllById(hits.getContent()).stream()
+				.collect(Collectors.toMap(Activity::getId, Function.identity()));
+		// Keep the ranking of the index, skipping hits deleted since they were indexed
+		List<ActivityDto> content = hits.getContent().stream().map(activities::get)
+				.filter(Objects::nonNull).map(ActivityDto::of).toList();
+		return new PageImpl<>(content, page, hits.getTotalElements());
+	}
+
+	@Override
+	public List<ActivitySuggestionDto> suggestActivities(String prefix, int limit) {
+		return m_nameSuggester.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+	}
+
+	@Override
+	public List<ActivityDto> getActivitiesInWindow(LocalDateTime from, LocalDateTime to, int limit) {
+		if (!to.isAfter(from)) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST)
+					.message("End of the window must be after its start").build());
+		}
+		int max = Math.max(1, Math.min(limit, MAX_WINDOW_RESULTS));
+		// Windows beyond the horizon of the index fall back to the database
+		return m_upcomingIndex.findOverlapping(from, to, max).orElseGet(() -> m_activityRepo
+				.findOverlapping(from, to, PageRequest.of(0, max)).stream().map(ActivityDto::of).toList());
+	}
+
+	@Override
+	public List<ActivityDto> getActivitiesStartingSoon(long withinMinutes, int limit) {
+		if (withinMinutes <= 0) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST)
+					.message("Period must be positive").build());
+		}
+		// Also keeps the end of the period representable
+		Duration horizon = m_upcomingIndex.horizon();
+		if (withinMinutes > horizon.toMinutes()) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST)
+					.message("Period must not exceed " + horizon.toDays() + " days").build());
+		}
+		int max = Math.max(1, Math.min(limit, MAX_WINDOW_RESULTS));
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime until = now.plusMinutes(withinMinutes);
+		return m_upcomingIndex.findStartingBetween(now, until, max).orElseGet(() -> m_activityRepo
+				.findStartingBetween(now, until, PageRequest.of(0, max)).stream().map(ActivityDto::of).toList());
+	}
+
+	@Override
+	public Slice<ActivityDto> getAllActivitiesSlice(Pageable pageable) {
+		return m_activityRepo.findSliceBy(pageable).map(ActivityDto::of);
+	}
+
+	@Override
+	public Slice<ActivityDto> getAllActivitiesSortedByPopularitySlice(Pageable pageable) {
+		return m_activityRepo.findSliceSortedByPopularity(pageable).map(ActivityDto::of);
+	}
+
+	@Override
+	public Slice<ActivityDto> getActivityByNameSlice(String activityName, Pageable pageable) {
+		return m_activityRepo.findSliceByNameContaining(activityName, pageable).map(ActivityDto::of);
+	}
+
+	@Override
+	public long getApproximateActivityCount() {
+		return m_approximateActivityCount.get();
+	}
+
+	/**
+	 * Refreshes the count returned by {@link #getApproximateActivityCount()} in
+	 * the background so that listings do not each run a count query.
+	 */
+	@Scheduled(fixedDelayString = "${activity.approximate-count.refresh-interval-ms:30000}")
+	public void refreshApproximateActivityCount() {
+		m_approximateActivityCount.set(m_activityRepo.count());
+	}
+
+	@Override
+	public CursorPage<ActivityDto> getActivities(ActivityCursor cursor, int size) {
+		int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+		Window<Activity> window = m_activityRepo.findAllBy(cursor.toScrollPosition(), Limit.of(limit),
+				cursor.toSort());
+		return toCursorPage(window, cursor, limit);
+	}
+
+	@Override
+	public CursorPage<ActivityDto> getActivityByName(String activityName, ActivityCursor cursor, int size) {
+		int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+		Window<Activity> window = m_activityRepo.findByNameContaining(activityName, cursor.toScrollPosition(),
+				Limit.of(limit), cursor.toSort());
+		return toCursorPage(window, cursor, limit);
+	}
+
+	/**
+	 * Builds the cursors of the pages adjacent to the given window. When scrolling
+	 * backward {@link Window#hasNext()} tells whether there are more activities
+	 * before the window rather than after it.
+	 */
+	private static CursorPage<ActivityDto> toCursorPage(Window<Activity> window, ActivityCursor cursor, int limit) {
+		List<Activity> content = window.getContent();
+		ActivityCursor next;
+		ActivityCursor previous;
+		if (content.isEmpty()) {
+			// Nothing beyond the cursor, only offer to go back where we came from
+			next = cursor.isBackward() ? cursor.reversed() : null;
+			previous = !cursor.isBackward() && !cursor.isFirst() ? cursor.reversed() : null;
+		} else if (cursor.isBackward()) {
+			next = cursor.after(content.get(content.size() - 1));
+			previous = window.hasNext() ? cursor.before(content.get(0)) : null;
+		} else {
+			next = window.hasNext() ? cursor.after(content.get(content.size() - 1)) : null;
+			previous = cursor.isFirst() ? null : cursor.before(content.get(0));
+		}
+		return CursorPage.<ActivityDto>builder() //
+				.content(content.stream().map(ActivityDto::of).toList()) //
+				.size(limit) //
+				.nextCursor(next == null ? null : next.encode()) //
+				.previousCursor(previous == null ? null : previous.encode()) //
+				.build();
+	}
+
 	@Override
 	@Transactional
 	public void createActivity(String userId, ActivityCreateRequestDto requestDto) {
@@ -128,6 +342,15 @@ public class ActivityService implements ActivityApi {
 		Users user = getUserById(userId);
 		UserActivity userActivityRole = UserActivity.builder().user(user).activity(createdActivity).role(ADMIN).build();
 		m_userActivityRepo.save(userActivityRole);
+		m_eventPublisher.publishEvent(ActivityChangedEvent.created(ActivityDto.of(createdActivity)));
+	}
+
+	/**
+	 * Looks up an activity through the cache, so existence checks usually skip
+	 * the database.
+	 */
+	private Optional<ActivityDto> findActivity(String activityId) {
+		return m_activityCache.get(activityId, m_activityRepo::findById);
 	}
 
 	private Users getUserById(String userId) {
@@ -136,15 +359,15 @@ public class ActivityService implements ActivityApi {
 	}
 
 	@Override
+	@Transactional
 	public void deleteActivity(String activityId, ActivityDeleteRequestDto requestDto) {
-		Optional<Activity> activity = m_activityRepo.findById(activityId);
+		Optional<ActivityDto> activity = findActivity(activityId);
 
 		if (activity.isEmpty()) {
 			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST).message("Activity not found").build());
 		}
 
-		List<UserActivity> userActivities = m_userActivityRepo.findByActivityIdAndRole(activityId, PARTICIPANT);
-		if (!requestDto.isForce() && !userActivities.isEmpty()) {
+		if (!requestDto.isForce() && m_userActivityRepo.existsByActivityIdAndRole(activityId, PARTICIPANT)) {
 			throw new ApiException(ApiErrorPayload.builder()
                     .status(FORBIDDEN)
                     .errorCode(PARTICIPANTS_PRESENT)
@@ -152,17 +375,18 @@ public class ActivityService implements ActivityApi {
                     .build());
 		}
 
-		m_userActivityRepo.deleteByActivityId(activityId);
+		int comments = m_activityCommentRepo.deleteByActivityId(activityId);
+		int memberships = m_userActivityRepo.deleteByActivityId(activityId);
 		m_activityRepo.deleteById(activityId);
+		log.debug("Deleted activity '{}' with {} memberships and {} comments", activityId, memberships, comments);
+		m_eventPublisher.publishEvent(ActivityChangedEvent.deleted(activityId));
 	}
 
 	@Override
+	@Transactional
 	public ActivityDto updateActivity(String id, ActivityUpdateRequestDto requestDto) {
-		Optional<Activity> activity = m_activityRepo.findById(id);
-		if (activity.isEmpty()) {
-			throw new ApiException(
-					ApiErrorPayload.builder().status(HttpStatus.BAD_REQUEST).message("Activity not found").build());
-		}
+		Activity activity = findActivityForUpdate(id);
+		Integer previousMaxParticipants = activity.getMaxParticipants();
 
 		if (requestDto.getEndDateTime().isBefore(LocalDateTime.now())
 				|| requestDto.getEndDateTime().isBefore(requestDto.getStartDateTime())) {
@@ -182,14 +406,116 @@ public class ActivityService implements ActivityApi {
 					.message("Start date time cannot be in the past").build());
 		}
 
-		Activity updateActivity = m_activityRepo.save(ActivityUpdateRequestDto.from(id, requestDto));
-		return ActivityDto.of(updateActivity);
+		checkNameAvailable(id, requestDto.getName());
+		activity.setName(requestDto.getName());
+		activity.setDescription(requestDto.getDescription());
+		activity.setLocation(requestDto.getLocation());
+		activity.setStartDateTime(requestDto.getStartDateTime());
+		activity.setEndDateTime(requestDto.getEndDateTime());
+		// Clients unaware of the limit leave it out, which must not lift it
+		Optional.ofNullable(requestDto.getMaxParticipants()).ifPresent(activity::setMaxParticipants);
+		return saveUpdated(activity, previousMaxParticipants);
+	}
+
+	@Override
+	@Transactional
+	public ActivityDto patchActivity(String id, ActivityPatchRequestDto requestDto) {
+		Activity activity = findActivityForUpdate(id);
+		if (activity.getVersion() != requestDto.getVersion()) {
+			throw activityModified(id, requestDto.getVersion());
+		}
+		Integer previousMaxParticipants = activity.getMaxParticipants();
+
+		LocalDateTime start = Objects.requireNonNullElse(requestDto.getStartDateTime(), activity.getStartDateTime());
+		LocalDateTime end = Objects.requireNonNullElse(requestDto.getEndDateTime(), activity.getEndDateTime());
+		// Only times being changed must be in the future, an ongoing activity can be extended
+		if (requestDto.getEndDateTime() != null && end.isBefore(LocalDateTime.now())) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST)
+					.message("End date time cannot be in the past").build());
+		}
+		if ((requestDto.getStartDateTime() != null || requestDto.getEndDateTime() != null) && !end.isAfter(start)) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST)
+					.message("End date time cannot be on or before start date time").build());
+		}
+		if (requestDto.getStartDateTime() != null && start.isBefore(LocalDateTime.now())) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST)
+					.message("Start date time cannot be in the past").build());
+		}
+
+		if (requestDto.getName() != null) {
+			checkNameAvailable(id, requestDto.getName());
+		}
+		// Unchanged fields are left out of the UPDATE statement, see Activity
+		Optional.ofNullable(requestDto.getName()).ifPresent(activity::setName);
+		Optional.ofNullable(requestDto.getDescription()).ifPresent(activity::setDescription);
+		Optional.ofNullable(requestDto.getLocation()).ifPresent(activity::setLocation);
+		activity.setStartDateTime(start);
+		activity.setEndDateTime(end);
+		Optional.ofNullable(requestDto.getMaxParticipants()).ifPresent(activity::setMaxParticipants);
+		return saveUpdated(activity, previousMaxParticipants);
+	}
+
+	/**
+	 * Fails if another activity already has the name. Must run before the name is
+	 * set, the query would otherwise flush the rename and hit the unique
+	 * constraint.
+	 */
+	private void checkNameAvailable(String id, String name) {
+		m_activityRepo.findByName(name).filter(a -> !a.getId().equals(id)).ifPresent(a -> {
+			throw new ApiException(
+					ApiErrorPayload.builder().status(BAD_REQUEST).message("Activity name exists").build());
+		});
+	}
+
+	private Activity findActivityForUpdate(String id) {
+		return m_activityRepo.findById(id).orElseThrow(() -> new ApiException(
+				ApiErrorPayload.builder().status(BAD_REQUEST).message("Activity not found").build()));
+	}
+
+	/**
+	 * Flushes the changes of a loaded activity, failing if it was updated by
+	 * someone else in the meantime. Seats added by raising the participant limit
+	 * are given to the waitlist.
+	 */
+	private ActivityDto saveUpdated(Activity activity, Integer previousMaxParticipants) {
+		long readVersion = activity.getVersion();
+		Activity saved;
+		try {
+			saved = m_activityRepo.saveAndFlush(activity);
+		} catch (ObjectOptimisticLockingFailureException e) {
+			throw activityModified(activity.getId(), readVersion);
+		}
+		if (isCapacityRaised(previousMaxParticipants, saved.getMaxParticipants())) {
+			int promoted = 0;
+			while (promoteFromWaitlist(saved.getId())) {
+				promoted++;
+			}
+			if (promoted > 0) {
+				m_eventPublisher.publishEvent(ActivityContentChangedEvent.participants(saved.getId()));
+			}
+		}
+		ActivityDto updated = ActivityDto.of(saved);
+		m_eventPublisher.publishEvent(ActivityChangedEvent.updated(updated));
+		return updated;
+	}
+
+	private static boolean isCapacityRaised(Integer previous, Integer current) {
+		return previous != null && current != null && current > previous;
+	}
+
+	private static ApiException activityModified(String id, long version) {
+		return new ApiException(ApiErrorPayload.builder() //
+				.status(CONFLICT) //
+				.errorCode(ACTIVITY_MODIFIED) //
+				.message("Activity was modified by someone else") //
+				.debugMessage("Activity '" + id + "' is no longer at version " + version) //
+				.build());
 	}
 
 	@Override
 	public void createActivityComment(String userId, String activityId,
 			@Valid ActivityCommentCreateRequestDto requestDto, LocalDateTime timestamp) {
-		Optional<Activity> activity = m_activityRepo.findById(activityId);
+		Optional<ActivityDto> activity = findActivity(activityId);
 		if (activity.isEmpty()) {
 			throw new ApiException(
 					ApiErrorPayload.builder().status(HttpStatus.BAD_REQUEST).message("Activity not found").build());
@@ -198,12 +524,13 @@ public class ActivityService implements ActivityApi {
 		ActivityComment activityComment = ActivityComment.builder().activityId(activityId).userId(userId)
 				.comment(requestDto.getComment()).timestamp(timestamp).build();
 		m_activityCommentRepo.save(activityComment);
+		m_eventPublisher.publishEvent(ActivityContentChangedEvent.comments(activityId));
 
 	}
 
 	@Override
 	public Page<ActivityCommentDto> getAllActivityComments(Pageable page, String activityId) {
-		Optional<Activity> activity = m_activityRepo.findById(activityId);
+		Optional<ActivityDto> activity = findActivity(activityId);
 
 		if (activity.isEmpty()) {
 			throw new ApiException(
@@ -214,50 +541,159 @@ public class ActivityService implements ActivityApi {
 		return comments.map(ActivityCommentDto::of);
 	}
 
+	@Override
+	public Slice<ActivityCommentDto> getAllActivityCommentsSlice(Pageable page, String activityId) {
+		findActivity(activityId).orElseThrow(() -> new ApiException(
+				ApiErrorPayload.builder().status(HttpStatus.BAD_REQUEST).message("Activity not found").build()));
+		return m_activityCommentRepo.findSliceByActivityId(page, activityId).map(ActivityCommentDto::of);
+	}
+
 	@Override
 	public List<UserActivityDto> getJoinedActivities(String userId) {
 		return m_userActivityRepo.findJoinedActivitiesByUserId(userId).stream().map(UserActivityDto::of).toList();
 	}
 
 	@Override
-	public void joinActivity(String userId, String activityId) {
-		m_userActivityRepo.findByUserIdAndActivityId(userId, activityId).ifPresent(userActivity -> {
-			throw new ApiException(
-					ApiErrorPayload.builder().status(BAD_REQUEST).message("User already joined activity").build());
-		});
-		Activity activity = m_activityRepo.findById(activityId).orElseThrow(() -> new ApiException(
+	@Transactional
+	public RoleType joinActivity(String userId, String activityId) {
+		findActivity(activityId).orElseThrow(() -> new ApiException(
 				ApiErrorPayload.builder().status(BAD_REQUEST).message("Activity does not exist").build()));
 
+		if (!m_userRepo.existsById(userId)) {
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST).message("User not found").build());
+		}
+
+		// The seat is reserved before the membership is inserted so the exclusive lock
+		// on the activity row comes first. Inserting first takes a shared lock on it
+		// through the foreign key, and concurrent joins would deadlock upgrading it.
+		// A repeated join fails on the unique constraint and its rollback releases the
+		// seat.
+		RoleType role = m_activityRepo.reserveSeat(activityId) > 0 ? PARTICIPANT : WAITLISTED;
+		Long waitlistSequence = null;
+		if (role == WAITLISTED) {
+			// Full, queue behind everyone already waiting. No seat was reserved either if
+			// the activity was deleted since it was cached.
+			if (m_activityRepo.incrementWaitlistTail(activityId) == 0) {
+				m_activityCache.evict(activityId);
+				throw new ApiException(
+						ApiErrorPayload.builder().status(BAD_REQUEST).message("Activity does not exist").build());
+			}
+			waitlistSequence = m_activityRepo.findWaitlistTail(activityId);
+		}
 		UserActivity userActivity = UserActivity.builder() //
-				.user(getUserById(userId)) //
-				.activity(activity) //
-				.role(PARTICIPANT) //
+				.user(m_userRepo.getReferenceById(userId)) //
+				.activity(m_activityRepo.getReferenceById(activityId)) //
+				.role(role) //
+				.waitlistSequence(waitlistSequence) //
 				.build();
-		m_userActivityRepo.save(userActivity);
+		try {
+			m_userActivityRepo.saveAndFlush(userActivity);
+		} catch (DataIntegrityViolationException e) {
+			if (!violatedConstraint(e).contains(MEMBERSHIP_CONSTRAINT)) {
+				throw e;
+			}
+			throw new ApiException(
+					ApiErrorPayload.builder().status(BAD_REQUEST).message("User already joined activity").build());
+		}
+
+		m_eventPublisher.publishEvent(ActivityContentChangedEvent.participants(activityId));
+		if (role == WAITLISTED) {
+			log.debug("User '{}' waitlisted for activity '{}' with sequence {}", userId, activityId,
+					waitlistSequence);
+		}
+		return role;
 	}
 
 	@Override
+	public WaitlistPositionDto getWaitlistPosition(String userId, String activityId) {
+		long position = m_userActivityRepo.findWaitlistPosition(userId, activityId).orElseThrow(() -> {
+			String debugMessage = String.format("User '%s' is not waitlisted for activity '%s'", userId, activityId);
+			return new ApiException(ApiErrorPayload.builder() //
+					.status(NOT_FOUND) //
+					.message("User is not on the waitlist of this activity") //
+					.debugMessage(debugMessage).build());
+		});
+		return new WaitlistPositionDto(activityId, position);
+	}
+
+	/**
+	 * @param e the exception raised when inserting a membership
+	 * @return the lower-cased name of the violated constraint, or an empty string
+	 *         if the database did not report one
+	 */
+	private static String violatedConstraint(DataIntegrityViolationException e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+				return violation.getConstraintName().toLowerCase(Locale.ROOT);
+			}
+		}
+		return "";
+	}
+
+	@Override
+	@Transactional
 	public void leaveActivity(String userId, String activityId) {
-		m_userActivityRepo.findByUserIdAndActivityId(userId, activityId).ifPresentOrElse(m_userActivityRepo::delete,
-				() -> log.warn("No activity found for user '{}' with activity ID '{}' to leave", userId, activityId));
+		m_userActivityRepo.findByUserIdAndActivityId(userId, activityId).ifPresentOrElse(userActivity -> {
+			// Only the request that actually removed the row adjusts the counter
+			int deleted = m_userActivityRepo.deleteByIdIfPresent(userActivity.getId());
+			if (deleted > 0) {
+				m_eventPublisher.publishEvent(ActivityContentChangedEvent.participants(activityId));
+			}
+			if (deleted > 0 && userActivity.getRole() == PARTICIPANT) {
+				m_activityRepo.decrementParticipantCount(activityId);
+				promoteFromWaitlist(activityId);
+			}
+		}, () -> log.warn("No activity found for user '{}' with activity ID '{}' to leave", userId, activityId));
+	}
+
+	/**
+	 * Gives a free seat to the member waiting longest, if any. Runs after the
+	 * participant count was decremented or the limit raised, whose lock on the
+	 * activity row makes concurrent changes promote one member each.
+	 *
+	 * @return true if a member was promoted
+	 */
+	private boolean promoteFromWaitlist(String activityId) {
+		Optional<UserActivity> head = m_userActivityRepo
+				.findFirstByActivityIdAndRoleOrderByWaitlistSequenceAsc(activityId, WAITLISTED);
+		// The limit may have been lowered below the number of participants
+		if (head.isEmpty() || m_activityRepo.reserveSeat(activityId) == 0) {
+			return false;
+		}
+		UserActivity promoted = head.get();
+		m_activityRepo.advanceWaitlistHead(activityId, promoted.getWaitlistSequence());
+		promoted.setRole(PARTICIPANT);
+		promoted.setWaitlistSequence(null);
+		m_userActivityRepo.save(promoted);
+		log.debug("Promoted user '{}' from the waitlist of activity '{}'", promoted.getUser().getUserId(),
+				activityId);
+		return true;
 	}
 
 	@Override
-	public Page<ParticipantDto> getActivityRoster(String requestedUserId, String activityId, Pageable pageable) {
-		m_activityRepo.findById(activityId).orElseThrow(() -> new ApiException(ApiErrorPayload.builder() //
+	public void assertRosterAccess(String requestedUserId, String activityId) {
+		findActivity(activityId).orElseThrow(() -> new ApiException(ApiErrorPayload.builder() //
 				.status(NOT_FOUND) //
 				.message("Activity does not exist") //
 				.debugMessage("Activity not found: '" + activityId + "'") //
 				.build()));
 
-		m_userActivityRepo.findByUserIdAndActivityId(requestedUserId, activityId).orElseThrow(() -> {
+		// Waitlisted users are not members yet and may not see who is
+		boolean member = m_userActivityRepo.findByUserIdAndActivityId(requestedUserId, activityId)
+				.filter(membership -> membership.getRole() != WAITLISTED).isPresent();
+		if (!member) {
 			String debugMessage = String.format("User '%s' does not have access to activity '%s'", requestedUserId,
 					activityId);
-			return new ApiException(ApiErrorPayload.builder() //
+			throw new ApiException(ApiErrorPayload.builder() //
 					.status(FORBIDDEN) //
 					.message("User does not have access to this activity") //
 					.debugMessage(debugMessage).build());
-		});
+		}
+	}
+
+	@Override
+	public Page<ParticipantDto> getActivityRoster(String requestedUserId, String activityId, Pageable pageable) {
+		assertRosterAccess(requestedUserId, activityId);
 		List<Sort.Order> sanitizedSortOrder = pageable.getSort().stream() //
 				.filter(order -> ROSTER_SORT_MAPPING.containsKey(order.getProperty())) //
 				.map(order -> {
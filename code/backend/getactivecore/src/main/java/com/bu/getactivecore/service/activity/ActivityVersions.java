@@ -0,0 +1,131 @@
+package com.bu.getactivecore.service.activity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityContentChangedEvent;
+
+/**
+ * Version counters from which the entity tags of activity reads are derived,
+ * so that a poll for unchanged data can be answered with 304 without touching
+ * the database.
+ * <p>
+ * Each activity has a version that moves whenever the activity is updated or
+ * deleted, a user joins or leaves it, or it is commented. The activity list has
+ * its own version, which moves on any change that shows up in the list.
+ * Versions are bumped from events published after commit, so a new tag is
+ * never handed out before the data it describes is visible.
+ * <p>
+ * Versions live in memory and start over on restart, tags therefore carry a
+ * random prefix chosen at startup. Only the most recently used
+ * {@value #DEFAULT_MAX_TRACKED} activities keep their own version, the others
+ * share a floor that is raised to the version of every evicted entry. Like {@link ActivityCache}, changes made by
+ * other instances or directly in the database are not seen.
+ */
+@Component
+public class ActivityVersions {
+
+	static final int DEFAULT_MAX_TRACKED = 10_000;
+
+	private final String m_epoch = UUID.randomUUID().toString().substring(0, 8);
+
+	private final AtomicLong m_sequence = new AtomicLong();
+
+	private final AtomicLong m_listVersion = new AtomicLong();
+
+	/**
+	 * Version of the recently changed or read activities, in access order.
+	 * Guarded by itself.
+	 */
+	private final LinkedHashMap<String, Long> m_versions;
+
+	/**
+	 * Version reported for activities without an entry. Raised to the version of
+	 * each evicted entry, so a tag never falls back to an earlier one, including
+	 * that of a deleted activity. Guarded by {@link #m_versions}.
+	 */
+	private long m_floor;
+
+	/**
+	 * Constructs the versions, tracking {@value #DEFAULT_MAX_TRACKED} activities.
+	 */
+	public ActivityVersions() {
+		this(DEFAULT_MAX_TRACKED);
+	}
+
+	/**
+	 * @param maxTracked maximum number of activities keeping their own version
+	 */
+	ActivityVersions(int maxTracked) {
+		m_versions = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				if (size() > maxTracked) {
+					m_floor = Math.max(m_floor, eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return strong entity tag of the activity list
+	 */
+	public String listTag() {
+		return tag(m_listVersion.get());
+	}
+
+	/**
+	 * @param activityId the activity
+	 * @return strong entity tag of the activity and everything attached to it
+	 */
+	public String activityTag(String activityId) {
+		synchronized (m_versions) {
+			Long version = m_versions.get(activityId);
+			return tag(version == null ? m_floor : version);
+		}
+	}
+
+	private String tag(long version) {
+		return "\"" + m_epoch + "-" + version + "\"";
+	}
+
+	private void bump(String activityId) {
+		// Versions come from one sequence so an activity never returns to an earlier one
+		synchronized (m_versions) {
+			m_versions.merge(activityId, m_sequence.incrementAndGet(), Math::max);
+		}
+	}
+
+	/**
+	 * Moves the versions of the changed activity and of the activity list.
+	 *
+	 * @param event the committed change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onActivityChanged(ActivityChangedEvent event) {
+		bump(event.getActivityId());
+		m_listVersion.incrementAndGet();
+	}
+
+	/**
+	 * Moves the version of the activity, and of the activity list when its
+	 * participant count changed.
+	 *
+	 * @param event the committed change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onContentChanged(ActivityContentChangedEvent event) {
+		bump(event.getActivityId());
+		if (event.getContent() == ActivityContentChangedEvent.Content.PARTICIPANTS) {
+			m_listVersion.incrementAndGet();
+		}
+	}
+}
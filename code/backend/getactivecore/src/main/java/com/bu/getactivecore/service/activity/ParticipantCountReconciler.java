@@ -0,0 +1,106 @@
+package com.bu.getactivecore.service.activity;
+
+import static com.bu.getactivecore.model.activity.RoleType.PARTICIPANT;
+
+import java.util.Optional;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.repository.UserActivityRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically repairs the denormalized {@code participant_count} of
+ * activities.
+ * <p>
+ * The counter is maintained by single-statement increments when users join or
+ * leave, but rows written outside of {@link ActivityService} (data fixes, demo
+ * data, failed transactions on other nodes) can make it drift from the
+ * {@code user_activities} table. Activities that were repaired are counted in
+ * {@code activity.participant.count.repaired}.
+ * <p>
+ * Each activity is repaired in its own short transaction, which locks the
+ * activity row before counting its participants. Joins reserve their seat on
+ * that row first, so none can commit between the count and the update, and
+ * joins and leaves of other activities are not held up.
+ */
+@Slf4j
+@Component
+public class ParticipantCountReconciler {
+
+	private final ActivityRepository m_activityRepo;
+
+	private final UserActivityRepository m_userActivityRepo;
+
+	private final TransactionTemplate m_txTemplate;
+
+	private final Counter m_repaired;
+
+	/**
+	 * Constructs the reconciler.
+	 *
+	 * @param activityRepo       used to find and update drifted counts
+	 * @param userActivityRepo   used to recount participants
+	 * @param transactionManager used to repair each activity in its own
+	 *                           transaction
+	 * @param meterRegistry      used to publish the number of repaired
+	 *                           activities
+	 */
+	public ParticipantCountReconciler(ActivityRepository activityRepo, UserActivityRepository userActivityRepo,
+			PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+		m_activityRepo = activityRepo;
+		m_userActivityRepo = userActivityRepo;
+		m_txTemplate = new TransactionTemplate(transactionManager);
+		m_repaired = Counter.builder("activity.participant.count.repaired")
+				.description("Activities whose participant count drifted and was recomputed").register(meterRegistry);
+	}
+
+	/**
+	 * Recomputes the participant count of every activity whose stored value
+	 * does not match {@code user_activities}.
+	 *
+	 * @return the number of repaired activities
+	 */
+	@Scheduled(initialDelayString = "${activity.participant-count.reconcile-initial-delay-ms:60000}",
+			fixedDelayString = "${activity.participant-count.reconcile-interval-ms:3600000}")
+	public int reconcile() {
+		int repaired = 0;
+		for (String activityId : m_activityRepo.findIdsWithDriftedParticipantCount(PARTICIPANT)) {
+			if (Boolean.TRUE.equals(m_txTemplate.execute(status -> repair(activityId)))) {
+				repaired++;
+			}
+		}
+		if (repaired > 0) {
+			m_repaired.increment(repaired);
+			log.warn("Repaired participant count of {} activities", repaired);
+		}
+		return repaired;
+	}
+
+	/**
+	 * @return true if the count had drifted and was repaired
+	 */
+	private boolean repair(String activityId) {
+		Optional<Activity> activity = m_activityRepo.findLockedById(activityId);
+		if (activity.isEmpty()) {
+			return false;
+		}
+		// Counted after the lock is taken, so joins committed meanwhile are included
+		int count = (int) m_userActivityRepo.countByActivityIdAndRole(activityId, PARTICIPANT);
+		if (activity.get().getParticipantCount() == count) {
+			return false;
+		}
+		log.debug("Participant count of activity '{}' drifted from {} to {}", activityId,
+				activity.get().getParticipantCount(), count);
+		m_activityRepo.updateParticipantCount(activityId, count);
+		return true;
+	}
+}
@@ -0,0 +1,99 @@
+package com.bu.getactivecore.service.activity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+
+/**
+ * In-memory view of the activities that is kept up to date from
+ * {@link ActivityChangedEvent}s and rebuilt from the database from time to
+ * time.
+ * <p>
+ * A rebuild reads the database while changes keep being committed. Changes
+ * applied meanwhile are recorded and replayed on the rebuilt view before it
+ * replaces the current one, so a rebuild never undoes a change it did not
+ * read. Only one rebuild runs at a time, one started while another is running
+ * is skipped.
+ *
+ * @param <S> the type of the view
+ */
+final class ReplayingSnapshot<S> {
+
+	private final BiFunction<S, ActivityChangedEvent, S> m_applier;
+
+	private final AtomicBoolean m_rebuilding = new AtomicBoolean();
+
+	private volatile S m_current;
+
+	/**
+	 * Changes applied while a rebuild is running, null otherwise. Guarded by
+	 * {@code this}.
+	 */
+	private List<ActivityChangedEvent> m_pendingChanges;
+
+	/**
+	 * Constructs the holder.
+	 *
+	 * @param initial the view used until the first rebuild
+	 * @param applier applies a change to a view, returning the updated view
+	 */
+	ReplayingSnapshot(S initial, BiFunction<S, ActivityChangedEvent, S> applier) {
+		m_current = initial;
+		m_applier = applier;
+	}
+
+	/**
+	 * @return the current view
+	 */
+	S get() {
+		return m_current;
+	}
+
+	/**
+	 * Applies a committed change to the current view, and to the one being
+	 * rebuilt if any.
+	 *
+	 * @param change the change
+	 */
+	synchronized void apply(ActivityChangedEvent change) {
+		m_current = m_applier.apply(m_current, change);
+		if (m_pendingChanges != null) {
+			m_pendingChanges.add(change);
+		}
+	}
+
+	/**
+	 * Replaces the current view with one loaded from the database, unless
+	 * another rebuild is already running.
+	 *
+	 * @param loader reads the database and builds the new view
+	 * @return the new view, or null if the rebuild was skipped
+	 */
+	S rebuild(Supplier<S> loader) {
+		if (!m_rebuilding.compareAndSet(false, true)) {
+			return null;
+		}
+		try {
+			synchronized (this) {
+				m_pendingChanges = new ArrayList<>();
+			}
+			S rebuilt = loader.get();
+			synchronized (this) {
+				for (ActivityChangedEvent change : m_pendingChanges) {
+					rebuilt = m_applier.apply(rebuilt, change);
+				}
+				m_current = rebuilt;
+			}
+			return rebuilt;
+		} finally {
+			synchronized (this) {
+				m_pendingChanges = null;
+			}
+			m_rebuilding.set(false);
+		}
+	}
+}
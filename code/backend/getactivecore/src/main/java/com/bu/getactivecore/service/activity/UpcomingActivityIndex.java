@@ -0,0 +1,290 @@
+package com.bu.getactivecore.service.activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interval tree over the activities that have not ended yet and start within
+ * the configured horizon, answering time-window queries from memory.
+ * <p>
+ * The activities are kept in an immutable array sorted by start time which is
+ * read as an implicit balanced binary search tree, the middle element of every
+ * range being its root. Each node also records the latest end time within its
+ * subtree, so an overlap query skips every subtree that ends before the window
+ * and every right subtree that starts after it. Readers only ever see a
+ * complete snapshot and take no lock.
+ * <p>
+ * Creates, updates and deletes arrive as {@link ActivityChangedEvent}s and
+ * replace the snapshot with an updated copy. A periodic rebuild drops finished
+ * activities and moves the horizon forward.
+ */
+@Slf4j
+@Component
+public class UpcomingActivityIndex {
+
+	private static final int REBUILD_BATCH_SIZE = 1000;
+
+	private static final Comparator<ActivityDto> BY_START = Comparator.comparing(ActivityDto::getStartDateTime)
+			.thenComparing(ActivityDto::getId);
+
+	private final ActivityRepository m_activityRepo;
+
+	private final long m_horizonDays;
+
+	private final ReplayingSnapshot<Snapshot> m_snapshot;
+
+	/**
+	 * Constructs the index.
+	 *
+	 * @param activityRepo used to load the upcoming activities
+	 * @param horizonDays  how many days ahead activities are held in memory
+	 */
+	public UpcomingActivityIndex(ActivityRepository activityRepo,
+			@Value("${activity.schedule.horizon-days:30}") long horizonDays) {
+		m_activityRepo = activityRepo;
+		m_horizonDays = horizonDays;
+		// Covers nothing until the first rebuild, queries go to the database
+		LocalDateTime never = LocalDateTime.MIN;
+		m_snapshot = new ReplayingSnapshot<>(new Snapshot(new ActivityDto[0], never, never), Snapshot::apply);
+	}
+
+	/**
+	 * Reloads the activities between now and the horizon from the database.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${activity.schedule.refresh-interval-ms:600000}",
+			fixedDelayString = "${activity.schedule.refresh-interval-ms:600000}")
+	public void rebuild() {
+		rebuild(LocalDateTime.now());
+	}
+
+	/**
+	 * Reloads the activities between the given time and the horizon.
+	 *
+	 * @param now start of the covered period
+	 */
+	void rebuild(LocalDateTime now) {
+		LocalDateTime until = now.plusDays(m_horizonDays);
+		Snapshot rebuilt = m_snapshot.rebuild(() -> load(now, until));
+		if (rebuilt == null) {
+			log.debug("Skipping rebuild of upcoming activities, one is already running");
+		} else {
+			log.debug("Loaded {} upcoming activities until {}", rebuilt.activities.length, until);
+		}
+	}
+
+	private Snapshot load(LocalDateTime now, LocalDateTime until) {
+		List<ActivityDto> activities = new ArrayList<>();
+		List<Activity> batch;
+		int page = 0;
+		do {
+			batch = m_activityRepo.findOverlapping(now, until, PageRequest.of(page++, REBUILD_BATCH_SIZE));
+			batch.forEach(activity -> activities.add(ActivityDto.of(activity)));
+		} while (batch.size() == REBUILD_BATCH_SIZE);
+		return new Snapshot(activities.stream().sorted(BY_START).toArray(ActivityDto[]::new), now, until);
+	}
+
+	/**
+	 * Applies a committed change to the index.
+	 *
+	 * @param event the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onActivityChanged(ActivityChangedEvent event) {
+		m_snapshot.apply(event);
+	}
+
+	/**
+	 * Finds the activities overlapping the window {@code [from, to)}.
+	 *
+	 * @param from  start of the window
+	 * @param to    end of the window, after {@code from}
+	 * @param limit maximum number of activities returned
+	 * @return the activities in order of start time, or empty when the window
+	 *         is not fully covered by the index
+	 */
+	public Optional<List<ActivityDto>> findOverlapping(LocalDateTime from, LocalDateTime to, int limit) {
+		Snapshot snapshot = m_snapshot.get();
+		if (!snapshot.covers(from, to)) {
+			return Optional.empty();
+		}
+		List<ActivityDto> result = new ArrayList<>();
+		snapshot.collectOverlapping(0, snapshot.activities.length, from, to, limit, result);
+		return Optional.of(result);
+	}
+
+	/**
+	 * Finds the activities starting within {@code [from, to)}.
+	 *
+	 * @param from  earliest start time
+	 * @param to    start times must be before this
+	 * @param limit maximum number of activities returned
+	 * @return the activities in order of start time, or empty when the period
+	 *         is not fully covered by the index
+	 */
+	public Optional<List<ActivityDto>> findStartingBetween(LocalDateTime from, LocalDateTime to, int limit) {
+		Snapshot snapshot = m_snapshot.get();
+		if (!snapshot.covers(from, to)) {
+			return Optional.empty();
+		}
+		List<ActivityDto> result = new ArrayList<>();
+		ActivityDto[] activities = snapshot.activities;
+		for (int i = snapshot.firstStartingAtOrAfter(from); i < activities.length && result.size() < limit
+				&& activities[i].getStartDateTime().isBefore(to); i++) {
+			result.add(activities[i]);
+		}
+		return Optional.of(result);
+	}
+
+	/**
+	 * @return how far ahead of now activities are held
+	 */
+	public Duration horizon() {
+		return Duration.ofDays(m_horizonDays);
+	}
+
+	/**
+	 * @return the number of activities held
+	 */
+	public int size() {
+		return m_snapshot.get().activities.length;
+	}
+
+	private static final class Snapshot {
+
+		/**
+		 * Sorted by start time, the implicit tree.
+		 */
+		private final ActivityDto[] activities;
+
+		/**
+		 * Latest end time within the subtree rooted at each index.
+		 */
+		private final LocalDateTime[] maxEnd;
+
+		/**
+		 * Every activity ending after this time and starting before
+		 * {@link #coveredUntil} is held.
+		 */
+		private final LocalDateTime coveredFrom;
+
+		private final LocalDateTime coveredUntil;
+
+		Snapshot(ActivityDto[] activities, LocalDateTime coveredFrom, LocalDateTime coveredUntil) {
+			this.activities = activities;
+			this.coveredFrom = coveredFrom;
+			this.coveredUntil = coveredUntil;
+			this.maxEnd = new LocalDateTime[activities.length];
+			computeMaxEnd(0, activities.length);
+		}
+
+		private LocalDateTime computeMaxEnd(int low, int high) {
+			if (low >= high) {
+				return null;
+			}
+			int mid = (low + high) >>> 1;
+			LocalDateTime max = activities[mid].getEndDateTime();
+			LocalDateTime left = computeMaxEnd(low, mid);
+			LocalDateTime right = computeMaxEnd(mid + 1, high);
+			if (left != null && left.isAfter(max)) {
+				max = left;
+			}
+			if (right != null && right.isAfter(max)) {
+				max = right;
+			}
+			maxEnd[mid] = max;
+			return max;
+		}
+
+		boolean covers(LocalDateTime from, LocalDateTime to) {
+			// An activity overlapping the window ends after from and starts before to
+			return !from.isBefore(coveredFrom) && !to.isAfter(coveredUntil);
+		}
+
+		boolean holds(ActivityDto activity) {
+			return activity.getStartDateTime() != null && activity.getEndDateTime() != null
+					&& activity.getEndDateTime().isAfter(coveredFrom)
+					&& activity.getStartDateTime().isBefore(coveredUntil);
+		}
+
+		/**
+		 * In-order walk of the subtree over {@code [low, high)}, so results come
+		 * out sorted by start time.
+		 */
+		void collectOverlapping(int low, int high, LocalDateTime from, LocalDateTime to, int limit,
+				List<ActivityDto> result) {
+			if (low >= high || result.size() >= limit) {
+				return;
+			}
+			int mid = (low + high) >>> 1;
+			if (!maxEnd[mid].isAfter(from)) {
+				// Everything below ends before the window
+				return;
+			}
+			collectOverlapping(low, mid, from, to, limit, result);
+			ActivityDto activity = activities[mid];
+			if (!activity.getStartDateTime().isBefore(to)) {
+				// This and everything to the right starts after the window
+				return;
+			}
+			if (activity.getEndDateTime().isAfter(from) && result.size() < limit) {
+				result.add(activity);
+			}
+			collectOverlapping(mid + 1, high, from, to, limit, result);
+		}
+
+		/**
+		 * @return the index of the first activity starting at or after the time
+		 */
+		int firstStartingAtOrAfter(LocalDateTime time) {
+			int low = 0;
+			int high = activities.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (activities[mid].getStartDateTime().isBefore(time)) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * @return a copy of this snapshot with the change applied
+		 */
+		Snapshot apply(ActivityChangedEvent change) {
+			List<ActivityDto> result = new ArrayList<>(Arrays.asList(activities));
+			boolean changed = result.removeIf(activity -> activity.getId().equals(change.getActivityId()));
+			if (change.getType() != ActivityChangedEvent.ChangeType.DELETED && change.getActivity() != null
+					&& holds(change.getActivity())) {
+				ActivityDto activity = change.getActivity();
+				int insertAt = -Collections.binarySearch(result, activity, BY_START) - 1;
+				result.add(Math.max(insertAt, 0), activity);
+				changed = true;
+			}
+			return changed ? new Snapshot(result.toArray(ActivityDto[]::new), coveredFrom, coveredUntil) : this;
+		}
+	}
+}
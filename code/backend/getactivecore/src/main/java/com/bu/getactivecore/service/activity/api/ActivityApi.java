@@ -1,19 +1,29 @@
 package com.bu.getactivecore.service.activity.api;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import com.bu.getactivecore.model.activity.RoleType;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentCreateRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentDto;
 import com.bu.getactivecore.service.activity.entity.ActivityCreateRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityCursor;
 import com.bu.getactivecore.service.activity.entity.ActivityDeleteRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.activity.entity.ActivityPatchRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivitySuggestionDto;
 import com.bu.getactivecore.service.activity.entity.ActivityUpdateRequestDto;
 import com.bu.getactivecore.service.activity.entity.UserActivityDto;
+import com.bu.getactivecore.service.activity.entity.WaitlistPositionDto;
 import com.bu.getactivecore.service.users.entity.ParticipantDto;
+import com.bu.getactivecore.shared.entity.CursorPage;
+import com.bu.getactivecore.shared.exception.ApiException;
 
 import jakarta.validation.Valid;
 
@@ -44,6 +54,99 @@ public interface ActivityApi {
 	 */
 	Page<ActivityDto> getActivityByName(String activityName, Pageable page);
 
+	/**
+	 * Searches the name, description and location of all activities. An
+	 * incomplete last term matches the 64 most common terms starting with it.
+	 *
+	 * @param query free text, every term must match and the last one may be
+	 *              incomplete
+	 * @param page  the page of results to return, ranked by relevance, at most
+	 *              20 per page
+	 * @return Page of activities, best match first
+	 */
+	Page<ActivityDto> searchActivities(String query, Pageable page);
+
+	/**
+	 * Suggests activity names for a type-ahead without querying the database.
+	 *
+	 * @param prefix beginning of the activity name, case is ignored
+	 * @param limit  maximum number of suggestions
+	 * @return the matching activities, most participants first
+	 */
+	List<ActivitySuggestionDto> suggestActivities(String prefix, int limit);
+
+	/**
+	 * Retrieves the activities overlapping a time window, served from memory
+	 * when the window lies within the upcoming period held by the index.
+	 *
+	 * @param from  start of the window
+	 * @param to    end of the window, must be after {@code from}
+	 * @param limit maximum number of activities returned
+	 * @return the activities in order of start time
+	 */
+	List<ActivityDto> getActivitiesInWindow(LocalDateTime from, LocalDateTime to, int limit);
+
+	/**
+	 * Retrieves the activities starting from now until the given period has
+	 * passed.
+	 *
+	 * @param withinMinutes the period in minutes, must be positive and not
+	 *                      exceed the horizon of the upcoming activity index
+	 * @param limit         maximum number of activities returned
+	 * @return the activities in order of start time
+	 */
+	List<ActivityDto> getActivitiesStartingSoon(long withinMinutes, int limit);
+
+	/**
+	 * Retrieves all activities without counting them.
+	 *
+	 * @return Slice of activities telling whether more follow
+	 */
+	Slice<ActivityDto> getAllActivitiesSlice(Pageable page);
+
+	/**
+	 * Retrieves all activities sorted by popularity without counting them.
+	 *
+	 * @return Slice of activities telling whether more follow
+	 */
+	Slice<ActivityDto> getAllActivitiesSortedByPopularitySlice(Pageable page);
+
+	/**
+	 * Retrieves activities by their name without counting them.
+	 *
+	 * @param activityName Name of the activity to search for
+	 * @return Slice of activities telling whether more follow
+	 */
+	Slice<ActivityDto> getActivityByNameSlice(String activityName, Pageable page);
+
+	/**
+	 * Returns the number of activities as of the last periodic refresh. Cheap
+	 * enough to be sent along with every count-free listing.
+	 *
+	 * @return the approximate number of activities
+	 */
+	long getApproximateActivityCount();
+
+	/**
+	 * Retrieves one page of activities using keyset pagination.
+	 *
+	 * @param cursor position and order to continue from
+	 * @param size   maximum number of activities returned
+	 * @return the page along with the cursors of the adjacent pages
+	 */
+	CursorPage<ActivityDto> getActivities(ActivityCursor cursor, int size);
+
+	/**
+	 * Retrieves one page of activities matching the given name using keyset
+	 * pagination.
+	 *
+	 * @param activityName Name of the activity to search for
+	 * @param cursor       position and order to continue from
+	 * @param size         maximum number of activities returned
+	 * @return the page along with the cursors of the adjacent pages
+	 */
+	CursorPage<ActivityDto> getActivityByName(String activityName, ActivityCursor cursor, int size);
+
 	/**
 	 * Creates a new activity.
 	 *
@@ -54,7 +157,7 @@ public interface ActivityApi {
 	void createActivity(String userId, @Valid ActivityCreateRequestDto requestDto);
 
 	/**
-	 * Delete an activity.
+	 * Delete an activity together with its memberships and comments.
 	 *
 	 * @param activityId ID of a to be deleted activity
 	 * @param requestDto Details of the activity to be deleted
@@ -70,6 +173,17 @@ public interface ActivityApi {
 	 */
 	ActivityDto updateActivity(String activityId, @Valid ActivityUpdateRequestDto requestDto);
 
+	/**
+	 * Update only the given fields of an activity. Fails with
+	 * {@link org.springframework.http.HttpStatus#CONFLICT} if the activity was
+	 * updated since the version the changes are based on.
+	 *
+	 * @param activityId ID of the activity to be updated
+	 * @param requestDto Fields to change and the version they are based on
+	 * @return Response containing details of the updated activity
+	 */
+	ActivityDto patchActivity(String activityId, @Valid ActivityPatchRequestDto requestDto);
+
 	/**
 	 * Retrieves a list of joined activities for the requested user as either a
 	 * participant or admin.
@@ -81,15 +195,27 @@ public interface ActivityApi {
 	List<UserActivityDto> getJoinedActivities(String userId);
 
 	/**
-	 * Joins an activity.
+	 * Joins an activity, or queues for a seat if the activity is full.
 	 *
 	 * @param userId     ID of the user joining the activity
 	 * @param activityId ID of the activity to join
+	 * @return {@link RoleType#PARTICIPANT} if a seat was taken,
+	 *         {@link RoleType#WAITLISTED} if the user was queued
 	 */
-	void joinActivity(String userId, String activityId);
+	RoleType joinActivity(String userId, String activityId);
 
 	/**
-	 * Leaves an activity.
+	 * Retrieves the position of a user in the waitlist of an activity.
+	 *
+	 * @param userId     ID of the waiting user
+	 * @param activityId ID of the activity
+	 * @return the position, 1 being next in line
+	 */
+	WaitlistPositionDto getWaitlistPosition(String userId, String activityId);
+
+	/**
+	 * Leaves an activity. A freed seat goes to the head of the waitlist in the
+	 * same transaction.
 	 *
 	 * @param userId     ID of the user leaving the activity
 	 * @param activityId ID of the activity to leave
@@ -107,6 +233,17 @@ public interface ActivityApi {
 	 */
 	Page<ParticipantDto> getActivityRoster(String requestedUserId, String activityId, Pageable pageable);
 
+	/**
+	 * Checks that a user may read the roster of an activity, which is the case
+	 * for its members but not for waitlisted users.
+	 *
+	 * @param requestedUserId ID of the user requesting the participant list.
+	 * @param activityId      ID of the activity.
+	 * @throws ApiException with status 404 if the activity does not exist, or 403
+	 *                      if the user is not a member.
+	 */
+	void assertRosterAccess(String requestedUserId, String activityId) throws ApiException;
+
 	/**
 	 * Creates a new activity comment.
 	 *
@@ -125,4 +262,36 @@ public interface ActivityApi {
 	 */
 	Page<ActivityCommentDto> getAllActivityComments(Pageable page, String activityId);
 
+	/**
+	 * Retrieves activity comments without counting them.
+	 *
+	 * @return Slice of activity comments telling whether more follow
+	 */
+	Slice<ActivityCommentDto> getAllActivityCommentsSlice(Pageable page, String activityId);
+
+	/**
+	 * Entity tag of the activity list, changing whenever an activity is created,
+	 * updated or deleted or its participant count changes.
+	 *
+	 * @return a quoted strong entity tag
+	 */
+	String getActivitiesTag();
+
+	/**
+	 * Entity tag of an activity together with its participants and comments.
+	 *
+	 * @param activityId ID of the activity
+	 * @return a quoted strong entity tag
+	 */
+	String getActivityTag(String activityId);
+
+	/**
+	 * Writes all activities as newline-delimited JSON, one activity per line,
+	 * while they are read from the database.
+	 *
+	 * @param out where to write the activities, left open
+	 * @return the number of exported activities
+	 * @throws IOException if writing to {@code out} fails
+	 */
+	long exportActivities(OutputStream out) throws IOException;
 }
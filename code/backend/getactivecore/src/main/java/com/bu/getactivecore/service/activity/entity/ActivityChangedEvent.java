@@ -0,0 +1,52 @@
+package com.bu.getactivecore.service.activity.entity;
+
+import lombok.Value;
+
+/**
+ * Published by the activity service whenever an activity is created, updated
+ * or deleted, so that in-process indexes can follow along without polling the
+ * database.
+ */
+@Value
+public class ActivityChangedEvent {
+
+	/**
+	 * Kind of change that happened to the activity.
+	 */
+	public enum ChangeType {
+		CREATED, UPDATED, DELETED
+	}
+
+	ChangeType type;
+
+	String activityId;
+
+	/**
+	 * State of the activity after the change, null if it was deleted.
+	 */
+	ActivityDto activity;
+
+	/**
+	 * @param activity the created activity
+	 * @return the event describing the creation
+	 */
+	public static ActivityChangedEvent created(ActivityDto activity) {
+		return new ActivityChangedEvent(ChangeType.CREATED, activity.getId(), activity);
+	}
+
+	/**
+	 * @param activity the updated activity
+	 * @return the event describing the update
+	 */
+	public static ActivityChangedEvent updated(ActivityDto activity) {
+		return new ActivityChangedEvent(ChangeType.UPDATED, activity.getId(), activity);
+	}
+
+	/**
+	 * @param activityId ID of the deleted activity
+	 * @return the event describing the deletion
+	 */
+	public static ActivityChangedEvent deleted(String activityId) {
+		return new ActivityChangedEvent(ChangeType.DELETED, activityId, null);
+	}
+}
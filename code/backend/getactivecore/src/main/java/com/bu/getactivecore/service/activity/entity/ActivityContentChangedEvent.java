@@ -0,0 +1,39 @@
+package com.bu.getactivecore.service.activity.entity;
+
+import lombok.Value;
+
+/**
+ * Published by the activity service when something attached to an activity
+ * changes without the activity itself being updated, so that cached
+ * representations of the activity can be invalidated.
+ */
+@Value
+public class ActivityContentChangedEvent {
+
+	/**
+	 * Part of the activity that changed.
+	 */
+	public enum Content {
+		PARTICIPANTS, COMMENTS
+	}
+
+	Content content;
+
+	String activityId;
+
+	/**
+	 * @param activityId ID of the activity a user joined or left
+	 * @return the event describing the change of the roster
+	 */
+	public static ActivityContentChangedEvent participants(String activityId) {
+		return new ActivityContentChangedEvent(Content.PARTICIPANTS, activityId);
+	}
+
+	/**
+	 * @param activityId ID of the activity that was commented
+	 * @return the event describing the new comment
+	 */
+	public static ActivityContentChangedEvent comments(String activityId) {
+		return new ActivityContentChangedEvent(Content.COMMENTS, activityId);
+	}
+}
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Value;
@@ -43,9 +44,15 @@ public class ActivityCreateRequestDto {
 	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
 	LocalDateTime endDateTime;
 
+	/**
+	 * Maximum number of participants, unlimited when absent.
+	 */
+	@Positive(message = "Maximum participants must be positive")
+	Integer maxParticipants;
+
 	public static Activity from(ActivityCreateRequestDto request) {
 		return Activity.builder().location(request.getLocation()).name(request.getName())
 				.startDateTime(request.getStartDateTime()).endDateTime(request.getEndDateTime())
-				.description(request.getDescription()).build();
+				.description(request.getDescription()).maxParticipants(request.getMaxParticipants()).build();
 	}
 }
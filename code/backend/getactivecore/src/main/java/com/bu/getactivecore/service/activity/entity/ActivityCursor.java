@@ -0,0 +1,208 @@
+package com.bu.getactivecore.service.activity.entity;
+
+import static com.bu.getactivecore.shared.ErrorCode.DATA_STRUCTURE_INVALID;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import lombok.Getter;
+
+/**
+ * Position in a keyset paginated activity listing.
+ * <p>
+ * A cursor holds the sort key and id of the activity at the edge of a page and
+ * the direction to continue in. It is handed to clients as an opaque string;
+ * the sort order is part of that string, so following a cursor always yields
+ * the same ordering as the page it came from.
+ */
+@Getter
+public final class ActivityCursor {
+
+	private static final String SEPARATOR = "|";
+
+	private static final String ID_PROPERTY = "id";
+
+	/**
+	 * Orderings that can be paged through with a cursor. Each of them is backed
+	 * by an index whose last column is the activity id.
+	 */
+	public enum SortKey {
+		ID("id", "id"), //
+		START_DATE_TIME("startDateTime", "startDateTime"), //
+		POPULARITY("popularity", "participantCount");
+
+		private final String m_requestName;
+
+		private final String m_property;
+
+		SortKey(String requestName, String property) {
+			m_requestName = requestName;
+			m_property = property;
+		}
+
+		/**
+		 * @param sortBy the {@code sortBy} request parameter
+		 * @return the matching sort key
+		 * @throws ApiException if the listing cannot be paged by that key
+		 */
+		public static SortKey fromRequest(String sortBy) {
+			for (SortKey key : values()) {
+				if (key.m_requestName.equals(sortBy)) {
+					return key;
+				}
+			}
+			throw invalid("Cursor pagination supports sorting by id, startDateTime or popularity");
+		}
+	}
+
+	private final SortKey sortKey;
+
+	private final boolean ascending;
+
+	private final boolean backward;
+
+	/**
+	 * Sort key and id of the edge activity, null for the first page.
+	 */
+	private final String keyValue;
+
+	private final String id;
+
+	private ActivityCursor(SortKey sortKey, boolean ascending, boolean backward, String keyValue, String id) {
+		this.sortKey = sortKey;
+		// Popularity is always listed most popular first, like the offset listing
+		this.ascending = sortKey != SortKey.POPULARITY && ascending;
+		this.backward = backward;
+		this.keyValue = keyValue;
+		this.id = id;
+	}
+
+	/**
+	 * @param sortBy    the {@code sortBy} request parameter
+	 * @param ascending whether the listing is sorted in ascending order
+	 * @return a cursor pointing before the first activity
+	 */
+	public static ActivityCursor first(String sortBy, boolean ascending) {
+		return new ActivityCursor(SortKey.fromRequest(sortBy), ascending, false, null, null);
+	}
+
+	/**
+	 * @param activity the last activity of the current page
+	 * @return a cursor to the activities following the given one
+	 */
+	public ActivityCursor after(Activity activity) {
+		return new ActivityCursor(sortKey, ascending, false, keyOf(activity), activity.getId());
+	}
+
+	/**
+	 * @param activity the first activity of the current page
+	 * @return a cursor to the activities preceding the given one
+	 */
+	public ActivityCursor before(Activity activity) {
+		return new ActivityCursor(sortKey, ascending, true, keyOf(activity), activity.getId());
+	}
+
+	/**
+	 * @return a cursor at the same position scrolling in the opposite direction
+	 */
+	public ActivityCursor reversed() {
+		return new ActivityCursor(sortKey, ascending, !backward, keyValue, id);
+	}
+
+	/**
+	 * @return whether this cursor points before the first activity
+	 */
+	public boolean isFirst() {
+		return id == null;
+	}
+
+	/**
+	 * @return the sort to scroll with, the id always breaks ties
+	 */
+	public Sort toSort() {
+		Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+		if (sortKey == SortKey.ID) {
+			return Sort.by(direction, ID_PROPERTY);
+		}
+		return Sort.by(direction, sortKey.m_property, ID_PROPERTY);
+	}
+
+	/**
+	 * @return the keyset position to continue scrolling from
+	 */
+	public ScrollPosition toScrollPosition() {
+		if (isFirst()) {
+			return ScrollPosition.keyset();
+		}
+		Map<String, Object> keys = new LinkedHashMap<>();
+		switch (sortKey) {
+		case START_DATE_TIME -> keys.put(sortKey.m_property, LocalDateTime.parse(keyValue));
+		case POPULARITY -> keys.put(sortKey.m_property, Integer.valueOf(keyValue));
+		case ID -> {
+			// The id is the only key
+		}
+		}
+		keys.put(ID_PROPERTY, id);
+		return backward ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+	}
+
+	/**
+	 * @return the opaque string representation handed to clients
+	 */
+	public String encode() {
+		String raw = String.join(SEPARATOR, sortKey.name(), ascending ? "A" : "D", backward ? "B" : "F",
+				keyValue == null ? "" : keyValue, id == null ? "" : id);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses a cursor previously produced by {@link #encode()}.
+	 *
+	 * @param cursor the opaque cursor
+	 * @return the decoded cursor
+	 * @throws ApiException if the cursor is malformed
+	 */
+	public static ActivityCursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\" + SEPARATOR, -1);
+			if (parts.length != 5 || parts[4].isEmpty()) {
+				throw invalid("Invalid cursor");
+			}
+			SortKey sortKey = SortKey.valueOf(parts[0]);
+			String keyValue = sortKey == SortKey.ID ? null : parts[3];
+			ActivityCursor decoded = new ActivityCursor(sortKey, "A".equals(parts[1]), "B".equals(parts[2]), keyValue,
+					parts[4]);
+			// Fail now rather than when the query is bound
+			decoded.toScrollPosition();
+			return decoded;
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw invalid("Invalid cursor");
+		}
+	}
+
+	private String keyOf(Activity activity) {
+		return switch (sortKey) {
+		case ID -> null;
+		case START_DATE_TIME -> String.valueOf(activity.getStartDateTime());
+		case POPULARITY -> String.valueOf(activity.getParticipantCount());
+		};
+	}
+
+	private static ApiException invalid(String message) {
+		return new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(DATA_STRUCTURE_INVALID)
+				.message(message).build());
+	}
+}
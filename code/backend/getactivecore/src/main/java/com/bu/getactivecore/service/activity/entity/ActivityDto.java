@@ -26,6 +26,18 @@ public class ActivityDto {
 
 	private LocalDateTime endDateTime;
 
+	private int participantCount;
+
+	/**
+	 * Maximum number of participants, null when unlimited.
+	 */
+	private Integer maxParticipants;
+
+	/**
+	 * Version of the activity, to be sent back with partial updates.
+	 */
+	private long version;
+
 	/**
 	 * Converts an Activity entity to an ActivityDto.
 	 *
@@ -35,6 +47,7 @@ public class ActivityDto {
 	public static ActivityDto of(Activity activity) {
 		return ActivityDto.builder().id(activity.getId()).location(activity.getLocation()).name(activity.getName())
 				.startDateTime(activity.getStartDateTime()).endDateTime(activity.getEndDateTime())
-				.description(activity.getDescription()).build();
+				.description(activity.getDescription()).participantCount(activity.getParticipantCount())
+				.maxParticipants(activity.getMaxParticipants()).version(activity.getVersion()).build();
 	}
 }
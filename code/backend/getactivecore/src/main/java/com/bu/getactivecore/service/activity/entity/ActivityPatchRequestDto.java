@@ -0,0 +1,55 @@
+package com.bu.getactivecore.service.activity.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * DTO for partially updating an existing activity. Fields left out keep their
+ * current value.
+ */
+@Value
+@Builder
+public class ActivityPatchRequestDto {
+
+	@Size(min = 1, max = 250, message = "The length of name must be between 1 and 250")
+	private String name;
+
+	@Size(max = 250, message = "The length of description must be less or equal to 250")
+	private String description;
+
+	@Size(min = 1, max = 250, message = "The length of location must be between 1 and 250")
+	private String location;
+
+	@DateTimeFormat(pattern = "yyyy-MM-dd HH:mm", iso = ISO.DATE_TIME)
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
+	private LocalDateTime startDateTime;
+
+	@DateTimeFormat(pattern = "yyyy-MM-dd HH:mm", iso = ISO.DATE_TIME)
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
+	private LocalDateTime endDateTime;
+
+	/**
+	 * New maximum number of participants. A limit cannot be removed with a
+	 * partial update.
+	 */
+	@Positive(message = "Maximum participants must be positive")
+	private Integer maxParticipants;
+
+	/**
+	 * Version of the activity the changes are based on, as returned in
+	 * {@link ActivityDto#getVersion()}.
+	 */
+	@NotNull(message = "Version cannot be blank")
+	private Long version;
+
+}
@@ -0,0 +1,21 @@
+package com.bu.getactivecore.service.activity.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Activity name offered by the type-ahead suggestions.
+ */
+@Value
+@AllArgsConstructor
+public class ActivitySuggestionDto {
+
+	String id;
+
+	String name;
+
+	/**
+	 * Number of participants when the suggestions were last refreshed.
+	 */
+	int participantCount;
+}
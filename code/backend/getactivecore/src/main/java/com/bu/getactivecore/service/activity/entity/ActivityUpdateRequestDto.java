@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Value;
@@ -42,10 +43,17 @@ public class ActivityUpdateRequestDto {
 	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
 	private LocalDateTime endDateTime;
 
+	/**
+	 * Maximum number of participants, left unchanged when absent. Like with a
+	 * partial update, a limit cannot be removed.
+	 */
+	@Positive(message = "Maximum participants must be positive")
+	private Integer maxParticipants;
+
 	public static Activity from(String id, ActivityUpdateRequestDto request) {
 		return Activity.builder().id(id).location(request.getLocation()).name(request.getName())
 				.startDateTime(request.getStartDateTime()).endDateTime(request.getEndDateTime())
-				.description(request.getDescription()).build();
+				.description(request.getDescription()).maxParticipants(request.getMaxParticipants()).build();
 	}
 
 }
@@ -0,0 +1,20 @@
+package com.bu.getactivecore.service.activity.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Position of a user in the waitlist of a full activity.
+ */
+@Value
+@AllArgsConstructor
+public class WaitlistPositionDto {
+
+	String activityId;
+
+	/**
+	 * 1 for the next member to get a seat. Members ahead who left are counted
+	 * until the queue moves past them, so this is an upper bound.
+	 */
+	long position;
+}
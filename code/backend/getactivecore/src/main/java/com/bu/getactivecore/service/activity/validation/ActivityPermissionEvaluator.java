@@ -46,7 +46,7 @@ public class ActivityPermissionEvaluator {
 	 *                                       activity
 	 */
 	public void assertAuthorizedToUpdateActivity(Authentication authentication, String activityId) {
-		String userId = ((UserPrincipal) authentication.getPrincipal()).getUserDto().getUserId();
+		String userId = ((UserPrincipal) authentication.getPrincipal()).getUserId();
 		Optional<UserActivity> userActivity = userActivityRepo.findByUserIdAndActivityId(userId, activityId);
 		if (userActivity.isEmpty()) {
 			String reason = String.format("User %s is not an admin of activity %s", userId, activityId);
@@ -0,0 +1,71 @@
+package com.bu.getactivecore.service.email;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the verification email outbox, bound from the
+ * {@code mail.outbox} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * mail.outbox.poll-interval-ms=500
+ * mail.outbox.batch-size=50
+ * mail.outbox.max-attempts=10
+ * mail.outbox.initial-backoff=30s
+ * mail.outbox.max-backoff=1h
+ * mail.outbox.lease-timeout=10m
+ * mail.outbox.retention=1d
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "mail.outbox")
+public class EmailOutboxProperties {
+
+	/**
+	 * Delay between two polls of the outbox, in milliseconds.
+	 */
+	private long pollIntervalMs = 500;
+
+	/**
+	 * Number of rows claimed per transaction.
+	 */
+	private int batchSize = 50;
+
+	/**
+	 * Number of failed hand-offs after which a row is no longer picked up.
+	 */
+	private int maxAttempts = 10;
+
+	/**
+	 * Delay before a failed row is picked up again, doubled on every further
+	 * attempt.
+	 */
+	private Duration initialBackoff = Duration.ofSeconds(30);
+
+	/**
+	 * Upper bound of the delay between two attempts of a row.
+	 */
+	private Duration maxBackoff = Duration.ofHours(1);
+
+	/**
+	 * How long a row handed to the dispatcher is left alone before it is picked
+	 * up again, in case its outcome was lost to a restart. Should exceed the time
+	 * the dispatcher may spend retrying a message.
+	 */
+	private Duration leaseTimeout = Duration.ofMinutes(10);
+
+	/**
+	 * How long delivered rows are kept before being removed.
+	 */
+	private Duration retention = Duration.ofDays(1);
+}
@@ -0,0 +1,239 @@
+package com.bu.getactivecore.service.email;
+
+import static com.bu.getactivecore.shared.ErrorCode.SERVICE_BUSY;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bu.getactivecore.model.email.EmailOutbox;
+import com.bu.getactivecore.repository.EmailOutboxRepository;
+import com.bu.getactivecore.service.email.api.EmailApi;
+import com.bu.getactivecore.service.email.api.EmailOutboxApi;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transactional outbox for verification emails.
+ * <p>
+ * Callers record the email in the {@code email_outbox} table as part of their
+ * own transaction. A scheduled poller claims due rows in batches, skipping rows
+ * locked by other instances, and leases them for {@code leaseTimeout} before
+ * handing them to {@link EmailApi}. A row is marked delivered only once the mail
+ * server accepted the email. A failed row is backed off exponentially until
+ * {@code maxAttempts} is reached, a row rejected for good, for example for an
+ * invalid recipient, is given up on at once. If the outcome is lost, for example to a
+ * restart, the row is picked up again once its lease expires, so an email may
+ * be sent twice but is never lost.
+ * <p>
+ * The age of the oldest undelivered row is published as
+ * {@code mail.outbox.lag}.
+ */
+@Slf4j
+@Service
+public class EmailOutboxService implements EmailOutboxApi {
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	private final EmailOutboxRepository m_outboxRepo;
+
+	private final EmailApi m_emailApi;
+
+	private final EmailOutboxProperties m_properties;
+
+	private final TransactionTemplate m_txTemplate;
+
+	private final Counter m_relayed;
+
+	private final Counter m_delivered;
+
+	private final Counter m_abandoned;
+
+	private final AtomicLong m_lagMs = new AtomicLong();
+
+	/**
+	 * Constructs the outbox.
+	 *
+	 * @param outboxRepo         used to store and claim outbox rows
+	 * @param emailApi           used to send the claimed emails
+	 * @param properties         batching and retry settings
+	 * @param transactionManager used to claim and mark each batch in its own
+	 *                           transaction
+	 * @param meterRegistry      used to publish outbox metrics
+	 */
+	public EmailOutboxService(EmailOutboxRepository outboxRepo, EmailApi emailApi, EmailOutboxProperties properties,
+			PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+		m_outboxRepo = outboxRepo;
+		m_emailApi = emailApi;
+		m_properties = properties;
+		m_txTemplate = new TransactionTemplate(transactionManager);
+		m_relayed = Counter.builder("mail.outbox.relayed").description("Outbox rows handed to the mail dispatcher")
+				.register(meterRegistry);
+		m_delivered = Counter.builder("mail.outbox.delivered")
+				.description("Outbox rows whose email was accepted by the mail server").register(meterRegistry);
+		m_abandoned = Counter.builder("mail.outbox.abandoned")
+				.description("Outbox rows given up on after too many failed attempts").register(meterRegistry);
+		Gauge.builder("mail.outbox.lag", m_lagMs, lag -> lag.get() / 1000.0).baseUnit("seconds")
+				.description("Age of the oldest undelivered outbox row").register(meterRegistry);
+	}
+
+	@Override
+	@Transactional
+	public void enqueueVerificationEmail(@NonNull String email, @NonNull String username,
+			@NonNull String registrationToken) {
+		m_outboxRepo.save(EmailOutbox.builder().recipient(email).username(username).token(registrationToken)
+				.createdAt(LocalDateTime.now()).build());
+	}
+
+	@Override
+	public boolean hasRecentVerificationEmail(@NonNull String username, @NonNull Duration window) {
+		return m_outboxRepo.existsByUsernameAndCreatedAtAfter(username, LocalDateTime.now().minus(window));
+	}
+
+	/**
+	 * Drains the due rows of the outbox, claiming one batch per transaction, until
+	 * a batch comes back short or the dispatcher is saturated.
+	 */
+	@Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:500}")
+	public void relayPending() {
+		int batchSize = Math.max(1, m_properties.getBatchSize());
+		List<EmailOutbox> claimed;
+		do {
+			claimed = m_txTemplate.execute(status -> claimBatch(batchSize));
+		} while (claimed != null && relayBatch(claimed) && claimed.size() == batchSize);
+		updateLag();
+	}
+
+	/**
+	 * Periodically drops rows that were delivered a while ago.
+	 */
+	@Scheduled(fixedDelayString = "${mail.outbox.cleanup-interval-ms:3600000}")
+	@Transactional
+	public void deleteDelivered() {
+		int deleted = m_outboxRepo.deleteDeliveredBefore(LocalDateTime.now().minus(m_properties.getRetention()));
+		if (deleted > 0) {
+			log.debug("Deleted {} delivered outbox rows", deleted);
+		}
+	}
+
+	/**
+	 * Claims one batch of due rows and leases them, so that no poller picks them
+	 * up while they are with the dispatcher.
+	 */
+	private List<EmailOutbox> claimBatch(int batchSize) {
+		LocalDateTime now = LocalDateTime.now();
+		List<EmailOutbox> rows = m_outboxRepo.claimPending(m_properties.getMaxAttempts(), now,
+				PageRequest.of(0, batchSize));
+		LocalDateTime leaseExpiry = now.plus(m_properties.getLeaseTimeout());
+		rows.forEach(row -> row.setNextAttemptAt(leaseExpiry));
+		return rows;
+	}
+
+	/**
+	 * Hands the claimed rows to the mail dispatcher, outside of the claiming
+	 * transaction.
+	 *
+	 * @return false if the dispatcher is saturated and polling should pause
+	 */
+	private boolean relayBatch(List<EmailOutbox> rows) {
+		for (int i = 0; i < rows.size(); i++) {
+			EmailOutbox row = rows.get(i);
+			try {
+				m_emailApi.sendVerificationEmail(row.getRecipient(), row.getToken())
+						.whenComplete((sent, failure) -> onOutcome(row, failure));
+				m_relayed.increment();
+			} catch (ApiException e) {
+				if (e.getError().getErrorCode() == SERVICE_BUSY) {
+					// Leave this and the remaining rows for the next poll
+					log.debug("Mail dispatcher is saturated, pausing outbox relay");
+					List<String> ids = rows.subList(i, rows.size()).stream().map(EmailOutbox::getId).toList();
+					m_txTemplate.executeWithoutResult(status -> m_outboxRepo.release(ids));
+					return false;
+				}
+				onOutcome(row, e);
+			} catch (RuntimeException e) {
+				onOutcome(row, e);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records the outcome of a row reported by the dispatcher. If this fails the
+	 * row is picked up again once its lease expires.
+	 *
+	 * @param row     the row as it was claimed
+	 * @param failure the reason the email could not be sent, or null if it was
+	 *                sent
+	 */
+	private void onOutcome(EmailOutbox row, Throwable failure) {
+		try {
+			if (failure == null) {
+				m_txTemplate.executeWithoutResult(
+						status -> m_outboxRepo.markDelivered(row.getId(), LocalDateTime.now()));
+				m_delivered.increment();
+				return;
+			}
+			boolean retryable = isRetryable(failure);
+			// Rows at maxAttempts are no longer claimed
+			int attempts = retryable ? row.getAttempts() + 1
+					: Math.max(row.getAttempts() + 1, m_properties.getMaxAttempts());
+			LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+			m_txTemplate.executeWithoutResult(status -> m_outboxRepo.markFailed(row.getId(), attempts,
+					truncate(failure.getMessage()), nextAttemptAt));
+			if (!retryable) {
+				m_abandoned.increment();
+				log.error("Giving up on verification email for user '{}', the failure is permanent",
+						row.getUsername(), failure);
+			} else if (attempts >= m_properties.getMaxAttempts()) {
+				m_abandoned.increment();
+				log.error("Giving up on verification email for user '{}' after {} attempts", row.getUsername(),
+						attempts, failure);
+			} else {
+				log.warn("Failed to send verification email for user '{}' (attempt {}), retrying at {}: {}",
+						row.getUsername(), attempts, nextAttemptAt, failure.getMessage());
+			}
+		} catch (RuntimeException e) {
+			log.error("Failed to record outcome of outbox row '{}'", row.getId(), e);
+		}
+	}
+
+	/**
+	 * Failures reported by the dispatcher are transient. An {@link ApiException}
+	 * other than a busy dispatcher rejects the email itself, it would fail the
+	 * same way on every attempt.
+	 */
+	private static boolean isRetryable(Throwable failure) {
+		return !(failure instanceof ApiException e) || e.getError().getErrorCode() == SERVICE_BUSY;
+	}
+
+	private Duration backoff(int attempts) {
+		Duration backoff = m_properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+		return backoff.compareTo(m_properties.getMaxBackoff()) > 0 ? m_properties.getMaxBackoff() : backoff;
+	}
+
+	private void updateLag() {
+		m_lagMs.set(m_outboxRepo.findOldestPending(m_properties.getMaxAttempts())
+				.map(oldest -> Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis())).orElse(0L));
+	}
+
+	private static String truncate(String message) {
+		if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+			return message;
+		}
+		return message.substring(0, MAX_ERROR_LENGTH);
+	}
+}
@@ -1,12 +1,13 @@
 package com.bu.getactivecore.service.email;
 
 import static com.bu.getactivecore.shared.ErrorCode.EMAIL_INVALID;
-import static com.bu.getactivecore.shared.ErrorCode.EMAIL_SEND_FAILED;
+import static com.bu.getactivecore.shared.ErrorCode.SERVICE_BUSY;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailParseException;
-import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
@@ -15,17 +16,26 @@ import com.bu.getactivecore.service.email.api.EmailApi;
 import com.bu.getactivecore.shared.ApiErrorPayload;
 import com.bu.getactivecore.shared.exception.ApiException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for sending email verifications.
+ * <p>
+ * Emails are handed to a {@link MailDispatcher} and sent in the background, so
+ * callers, and the transactions they run in, never wait on the mail server. The
+ * returned future tells them whether the email was eventually sent.
  */
 @Slf4j
 @Service
 public class EmailVerificationService implements EmailApi {
 
-	private final JavaMailSender m_javaEmailSender;
+	private final MailDispatcher m_dispatcher;
 
 	@Value("${spring.mail.username}")
 	private String m_serverEmail;
@@ -34,31 +44,55 @@ public class EmailVerificationService implements EmailApi {
 	 * Constructor for EmailVerificationService.
 	 *
 	 * @param javaEmailSender used for sending emails
+	 * @param properties      queue, batching and retry settings of the dispatcher
+	 * @param meterRegistry   used to publish dispatch metrics
+	 */
+	public EmailVerificationService(JavaMailSender javaEmailSender, MailDispatchProperties properties,
+			MeterRegistry meterRegistry) {
+		m_dispatcher = new MailDispatcher(javaEmailSender, properties, meterRegistry);
+	}
+
+	/**
+	 * Starts the background dispatcher.
 	 */
-	public EmailVerificationService(JavaMailSender javaEmailSender) {
-		m_javaEmailSender = javaEmailSender;
+	@PostConstruct
+	public void start() {
+		m_dispatcher.start();
+	}
+
+	/**
+	 * Stops the background dispatcher.
+	 */
+	@PreDestroy
+	public void stop() {
+		m_dispatcher.shutdown();
 	}
 
 	@Override
-	public void sendVerificationEmail(@NonNull String email, @NonNull String registrationToken) throws ApiException {
+	public CompletableFuture<Void> sendVerificationEmail(@NonNull String email, @NonNull String registrationToken)
+			throws ApiException {
+		try {
+			new InternetAddress(email, true).validate();
+		} catch (AddressException e) {
+			log.error("Invalid verification email address: {}", email, e);
+			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(EMAIL_INVALID)
+					.message("Unable to send verification email to email address: '" + email + "'")
+					.debugMessage(e.getLocalizedMessage()).build());
+		}
+
 		String body = String.format(EmailTemplates.REGISTRATION_TEMPLATE, registrationToken);
 		SimpleMailMessage msg = new SimpleMailMessage();
 		msg.setFrom(m_serverEmail);
 		msg.setTo(email);
 		msg.setSubject("GetActive: Registration Verification");
 		msg.setText(body);
-		try {
-			m_javaEmailSender.send(msg);
-		} catch (MailParseException e) {
-			log.error("Failed to send verification email to: {}", email, e);
-			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(EMAIL_INVALID)
-					.message("Unable to send verification email to email address: '" + email + "'")
-					.debugMessage(e.getLocalizedMessage()).build());
-		} catch (MailSendException e) {
-			log.error("Failed to send verification email to: {}", email, e);
-			throw new ApiException(ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(EMAIL_SEND_FAILED)
-					.message("Unable to send verification email to email address: '" + email + "'")
-					.debugMessage(e.getLocalizedMessage()).build());
+		CompletableFuture<Void> delivery = new CompletableFuture<>();
+		if (!m_dispatcher.submit(msg, delivery)) {
+			log.error("Mail dispatch queue is full, cannot send verification email to: {}", email);
+			throw new ApiException(ApiErrorPayload.builder().status(SERVICE_UNAVAILABLE).errorCode(SERVICE_BUSY)
+					.message("Unable to send verification email right now, please retry later")
+					.debugMessage("Mail dispatch queue is full").retryAfterSeconds(30L).build());
 		}
+		return delivery;
 	}
 }
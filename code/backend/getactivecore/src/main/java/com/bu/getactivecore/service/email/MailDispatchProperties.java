@@ -0,0 +1,76 @@
+package com.bu.getactivecore.service.email;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the asynchronous mail dispatcher, bound from the
+ * {@code mail.dispatch} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * mail.dispatch.workers=2
+ * mail.dispatch.queue-capacity=1000
+ * mail.dispatch.batch-size=20
+ * mail.dispatch.max-attempts=5
+ * mail.dispatch.initial-backoff=2s
+ * mail.dispatch.max-backoff=5m
+ * mail.dispatch.idle-timeout=30s
+ * mail.dispatch.drain-timeout=10s
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "mail.dispatch")
+public class MailDispatchProperties {
+
+	/**
+	 * Number of worker threads, each holding its own SMTP connection.
+	 */
+	private int workers = 2;
+
+	/**
+	 * Number of messages that may wait to be sent. Further messages are rejected.
+	 */
+	private int queueCapacity = 1000;
+
+	/**
+	 * Largest number of messages a worker sends over its connection in one go.
+	 */
+	private int batchSize = 20;
+
+	/**
+	 * Number of times a message is attempted before it is dropped.
+	 */
+	private int maxAttempts = 5;
+
+	/**
+	 * Delay before the first retry, doubled on every further attempt.
+	 */
+	private Duration initialBackoff = Duration.ofSeconds(2);
+
+	/**
+	 * Upper bound of the delay between two attempts.
+	 */
+	private Duration maxBackoff = Duration.ofMinutes(5);
+
+	/**
+	 * How long a worker keeps its SMTP connection open without any message to
+	 * send.
+	 */
+	private Duration idleTimeout = Duration.ofSeconds(30);
+
+	/**
+	 * How long a shutdown waits for the workers to send the messages still
+	 * queued.
+	 */
+	private Duration drainTimeout = Duration.ofSeconds(10);
+}
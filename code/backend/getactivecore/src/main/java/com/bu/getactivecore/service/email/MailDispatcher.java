@@ -0,0 +1,391 @@
+package com.bu.getactivecore.service.email;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends mail in the background so that callers never wait on the mail server.
+ * <p>
+ * Messages are put on a bounded queue and picked up by a small number of
+ * worker threads. Each worker drains up to {@code batchSize} messages at a time
+ * and sends them over an SMTP connection it keeps open between batches, closing
+ * it only after {@code idleTimeout} without work or after a failure. A send
+ * failing on a reused connection is repeated once over a fresh connection, as
+ * the server may have dropped it in the meantime. Failed messages are re-queued
+ * with exponential backoff until {@code maxAttempts} is reached. On shutdown the
+ * queue is drained for up to {@code drainTimeout}. Callers learn the outcome of
+ * a message from the future passed to
+ * {@link #submit(SimpleMailMessage, CompletableFuture)}.
+ * <p>
+ * Connection reuse requires a {@link JavaMailSenderImpl}. Any other
+ * {@link JavaMailSender} still gets batched sends, with one connection per
+ * batch.
+ */
+@Slf4j
+public class MailDispatcher {
+
+	private static final long POLL_SLICE_MS = 200;
+
+	private final JavaMailSender m_sender;
+
+	private final MailDispatchProperties m_properties;
+
+	private final BlockingQueue<PendingMail> m_queue;
+
+	private final ExecutorService m_workers;
+
+	private final ScheduledExecutorService m_retryScheduler;
+
+	private final Set<PendingMail> m_awaitingRetry = ConcurrentHashMap.newKeySet();
+
+	private final Counter m_sent;
+
+	private final Counter m_retried;
+
+	private final Counter m_failed;
+
+	private final Counter m_rejected;
+
+	private final Counter m_connections;
+
+	private final Timer m_batchTimer;
+
+	private volatile boolean m_running;
+
+	private volatile boolean m_stopped;
+
+	/**
+	 * Constructs the dispatcher and registers its metrics. Workers are only started
+	 * by {@link #start()}.
+	 *
+	 * @param sender        used to send the messages
+	 * @param properties    queue, batching and retry settings
+	 * @param meterRegistry used to publish dispatch metrics
+	 */
+	public MailDispatcher(JavaMailSender sender, MailDispatchProperties properties, MeterRegistry meterRegistry) {
+		m_sender = sender;
+		m_properties = properties;
+		m_queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+		m_workers = Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()),
+				new DispatchThreadFactory("mail-dispatch-"));
+		m_retryScheduler = Executors.newSingleThreadScheduledExecutor(new DispatchThreadFactory("mail-retry-"));
+
+		m_sent = Counter.builder("mail.dispatch.sent").description("Messages handed to the mail server")
+				.register(meterRegistry);
+		m_retried = Counter.builder("mail.dispatch.retried").description("Failed sends scheduled for another attempt")
+				.register(meterRegistry);
+		m_failed = Counter.builder("mail.dispatch.failed").description("Messages dropped after their last attempt")
+				.register(meterRegistry);
+		m_rejected = Counter.builder("mail.dispatch.rejected")
+				.description("Messages rejected because the queue was full").register(meterRegistry);
+		m_connections = Counter.builder("mail.dispatch.connections").description("SMTP connections opened")
+				.register(meterRegistry);
+		m_batchTimer = Timer.builder("mail.dispatch.batch").description("Time spent sending one batch of messages")
+				.register(meterRegistry);
+		Gauge.builder("mail.dispatch.queue.depth", m_queue, BlockingQueue::size)
+				.description("Messages waiting to be sent").register(meterRegistry);
+	}
+
+	/**
+	 * Starts the worker threads.
+	 */
+	public void start() {
+		m_running = true;
+		for (int i = 0; i < Math.max(1, m_properties.getWorkers()); i++) {
+			m_workers.execute(this::runWorker);
+		}
+	}
+
+	/**
+	 * Stops the workers once they sent the messages still queued, waiting at most
+	 * {@code drainTimeout}. Messages failing meanwhile are not retried. Messages
+	 * left unsent are given up on, which their callers learn from the future
+	 * passed to {@link #submit(SimpleMailMessage, CompletableFuture)}.
+	 */
+	public void shutdown() {
+		m_stopped = true;
+		m_running = false;
+		m_retryScheduler.shutdownNow();
+		m_workers.shutdown();
+		try {
+			if (!m_workers.awaitTermination(m_properties.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+				m_workers.shutdownNow();
+				m_workers.awaitTermination(5, TimeUnit.SECONDS);
+			}
+		} catch (InterruptedException e) {
+			m_workers.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		List<PendingMail> unsent = new ArrayList<>(m_awaitingRetry);
+		m_queue.drainTo(unsent);
+		if (!unsent.isEmpty()) {
+			log.warn("Mail dispatcher stopped with {} unsent messages", unsent.size());
+			MailSendException stopped = new MailSendException("Mail dispatcher was shut down");
+			unsent.forEach(mail -> mail.delivery().completeExceptionally(stopped));
+		}
+	}
+
+	/**
+	 * Queues a message for sending.
+	 *
+	 * @param message the message to send
+	 * @return false if the queue is full and the message was not accepted
+	 */
+	public boolean submit(SimpleMailMessage message) {
+		return submit(message, new CompletableFuture<>());
+	}
+
+	/**
+	 * Queues a message for sending and reports its outcome.
+	 *
+	 * @param message  the message to send
+	 * @param delivery completed once the mail server accepted the message, or
+	 *                 exceptionally once the message is given up on
+	 * @return false if the queue is full or the dispatcher was shut down and the
+	 *         message was not accepted, in which case {@code delivery} is left
+	 *         untouched
+	 */
+	public boolean submit(SimpleMailMessage message, CompletableFuture<Void> delivery) {
+		if (!m_stopped && m_queue.offer(new PendingMail(message, 0, delivery))) {
+			return true;
+		}
+		m_rejected.increment();
+		return false;
+	}
+
+	/**
+	 * @return the number of messages waiting to be sent
+	 */
+	public int queueDepth() {
+		return m_queue.size();
+	}
+
+	private void runWorker() {
+		int batchSize = Math.max(1, m_properties.getBatchSize());
+		long idleTimeoutNanos = m_properties.getIdleTimeout().toNanos();
+		long idleSince = System.nanoTime();
+		// Null while the worker holds no SMTP connection
+		Transport transport = null;
+		try {
+			// Keeps draining the queue after shutdown until it is empty
+			while (m_running || !m_queue.isEmpty()) {
+				// Polls in short slices so that a shutdown is noticed quickly
+				PendingMail first = m_queue.poll(POLL_SLICE_MS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					if (transport != null && System.nanoTime() - idleSince >= idleTimeoutNanos) {
+						transport = close(transport);
+					}
+					continue;
+				}
+				List<PendingMail> batch = new ArrayList<>(batchSize);
+				batch.add(first);
+				m_queue.drainTo(batch, batchSize - 1);
+
+				Timer.Sample sample = Timer.start();
+				if (m_sender instanceof JavaMailSenderImpl senderImpl) {
+					transport = sendOverConnection(senderImpl, transport, batch);
+				} else {
+					sendBatch(batch);
+				}
+				sample.stop(m_batchTimer);
+				idleSince = System.nanoTime();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			close(transport);
+		}
+	}
+
+	/**
+	 * Sends the batch over the given connection, opening a new one if needed. Any
+	 * failure only affects the message being sent, the worker moves on to the
+	 * next one.
+	 *
+	 * @param transport the connection to use, or null if there is none
+	 * @return the connection to reuse for the next batch, or null if it was closed
+	 */
+	private Transport sendOverConnection(JavaMailSenderImpl sender, Transport transport, List<PendingMail> batch) {
+		for (PendingMail mail : batch) {
+			try {
+				transport = send(sender, transport, mail);
+				sent(mail);
+			} catch (MessagingException | RuntimeException e) {
+				// The connection may be left in an unknown state, start over with a fresh one
+				transport = close(transport);
+				retry(mail, e);
+			}
+		}
+		return transport;
+	}
+
+	/**
+	 * Sends one message. Whether a reused connection is still alive is only
+	 * found out by sending over it, which saves a NOOP round trip per message.
+	 *
+	 * @param transport the connection to use, or null if there is none
+	 * @return the connection the message was sent over
+	 */
+	private Transport send(JavaMailSenderImpl sender, Transport transport, PendingMail mail)
+			throws MessagingException {
+		MimeMessage mimeMessage = sender.createMimeMessage();
+		mail.message().copyTo(new MimeMailMessage(mimeMessage));
+		mimeMessage.saveChanges();
+		if (transport != null) {
+			try {
+				transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+				return transport;
+			} catch (SendFailedException e) {
+				// Rejected by the server, another connection would not help
+				throw e;
+			} catch (MessagingException | IllegalStateException e) {
+				log.debug("Reused SMTP connection failed, reconnecting: {}", e.getMessage());
+				close(transport);
+			}
+		}
+		Transport fresh = connect(sender);
+		try {
+			fresh.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+		} catch (MessagingException | RuntimeException e) {
+			close(fresh);
+			throw e;
+		}
+		return fresh;
+	}
+
+	private void sendBatch(List<PendingMail> batch) {
+		SimpleMailMessage[] messages = batch.stream().map(PendingMail::message).toArray(SimpleMailMessage[]::new);
+		try {
+			m_sender.send(messages);
+			batch.forEach(this::sent);
+		} catch (MailSendException e) {
+			Map<Object, Exception> failures = e.getFailedMessages();
+			// Only trust the per-message failures if they are keyed by our messages,
+			// otherwise retry the whole batch
+			boolean perMessage = batch.stream().anyMatch(mail -> failures.containsKey(mail.message()));
+			for (PendingMail mail : batch) {
+				Exception cause = perMessage ? failures.get(mail.message()) : e;
+				if (cause == null) {
+					sent(mail);
+				} else {
+					retry(mail, cause);
+				}
+			}
+		} catch (RuntimeException e) {
+			batch.forEach(mail -> retry(mail, e));
+		}
+	}
+
+	private Transport connect(JavaMailSenderImpl sender) throws MessagingException {
+		Transport transport = sender.getSession().getTransport(sender.getProtocol());
+		transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+		m_connections.increment();
+		return transport;
+	}
+
+	private static Transport close(Transport transport) {
+		if (transport != null) {
+			try {
+				transport.close();
+			} catch (MessagingException e) {
+				log.debug("Failed to close SMTP connection", e);
+			}
+		}
+		return null;
+	}
+
+	private void sent(PendingMail mail) {
+		m_sent.increment();
+		mail.delivery().complete(null);
+	}
+
+	private void retry(PendingMail mail, Exception cause) {
+		int attempts = mail.attempts() + 1;
+		String recipients = Arrays.toString(mail.message().getTo());
+		if (attempts >= m_properties.getMaxAttempts() || !m_running) {
+			m_failed.increment();
+			log.error("Giving up sending mail to {} after {} attempts", recipients, attempts, cause);
+			mail.delivery().completeExceptionally(cause);
+			return;
+		}
+		long initialMs = m_properties.getInitialBackoff().toMillis();
+		long delayMs = Math.min(m_properties.getMaxBackoff().toMillis(), initialMs << Math.min(attempts - 1, 20));
+		log.warn("Failed to send mail to {} (attempt {}), retrying in {} ms: {}", recipients, attempts, delayMs,
+				cause.getMessage());
+		m_retried.increment();
+		m_awaitingRetry.add(mail);
+		try {
+			m_retryScheduler.schedule(() -> {
+				m_awaitingRetry.remove(mail);
+				if (!m_queue.offer(new PendingMail(mail.message(), attempts, mail.delivery()))) {
+					m_rejected.increment();
+					log.error("Dropping mail to {}, dispatch queue is full", recipients);
+					mail.delivery().completeExceptionally(new MailSendException("Dispatch queue is full", cause));
+				}
+			}, delayMs, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// Shut down in the meantime, left to shutdown() to report
+			log.debug("Not retrying mail to {}, dispatcher is shutting down", recipients);
+		}
+	}
+
+	/**
+	 * A queued message along with the number of failed attempts so far and the
+	 * future to complete with its outcome.
+	 */
+	private record PendingMail(SimpleMailMessage message, int attempts, CompletableFuture<Void> delivery) {
+	}
+
+	/**
+	 * Creates named daemon threads so dispatch threads are easy to spot in thread
+	 * dumps.
+	 */
+	private static final class DispatchThreadFactory implements ThreadFactory {
+
+		private final String m_prefix;
+
+		private final AtomicInteger m_count = new AtomicInteger();
+
+		DispatchThreadFactory(String prefix) {
+			m_prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, m_prefix + m_count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
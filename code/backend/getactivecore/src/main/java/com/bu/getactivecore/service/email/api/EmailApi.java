@@ -1,5 +1,7 @@
 package com.bu.getactivecore.service.email.api;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.bu.getactivecore.shared.exception.ApiException;
 
 import lombok.NonNull;
@@ -7,11 +9,14 @@ import lombok.NonNull;
 public interface EmailApi {
 
 	/**
-	 * Sends a verification email to the user.
+	 * Sends a verification email to the user in the background.
 	 *
 	 * @param email             The email address of the user.
 	 * @param registrationToken The registration token to include in the email.
+	 * @return completes once the mail server accepted the email, or
+	 *         exceptionally if it could not be sent.
 	 */
-	void sendVerificationEmail(@NonNull String email, @NonNull String registrationToken) throws ApiException;
+	CompletableFuture<Void> sendVerificationEmail(@NonNull String email, @NonNull String registrationToken)
+			throws ApiException;
 
 }
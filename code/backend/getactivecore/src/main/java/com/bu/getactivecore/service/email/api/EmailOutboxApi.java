@@ -0,0 +1,29 @@
+package com.bu.getactivecore.service.email.api;
+
+import java.time.Duration;
+
+import lombok.NonNull;
+
+public interface EmailOutboxApi {
+
+	/**
+	 * Records a verification email to be sent once the current transaction
+	 * commits. Nothing is sent if the transaction rolls back.
+	 *
+	 * @param email             The email address of the user.
+	 * @param username          The username of the user.
+	 * @param registrationToken The registration token to include in the email.
+	 */
+	void enqueueVerificationEmail(@NonNull String email, @NonNull String username, @NonNull String registrationToken);
+
+	/**
+	 * Tells whether a verification email for the user was recorded within the
+	 * given window, whether or not it was sent already.
+	 *
+	 * @param username The username of the user.
+	 * @param window   How far back to look.
+	 * @return true if such an email was recorded.
+	 */
+	boolean hasRecentVerificationEmail(@NonNull String username, @NonNull Duration window);
+
+}
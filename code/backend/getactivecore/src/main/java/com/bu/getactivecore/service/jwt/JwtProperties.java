@@ -19,7 +19,8 @@ import lombok.Setter;
  * 
  * <pre>
  * jwt.token.secret=secure-base64-secret
- * jwt.token.expiration-ms=1800000
+ * jwt.token.expiration-ms=900000
+ * jwt.token.refresh-expiration-ms=1209600000
  * </pre>
  *
  * <p>
@@ -27,6 +28,7 @@ import lombok.Setter;
  * <ul>
  * <li>{@code JWT_TOKEN_SECRET}</li>
  * <li>{@code JWT_TOKEN_EXPIRATION_MS}</li>
+ * <li>{@code JWT_TOKEN_REFRESH_EXPIRATION_MS}</li>
  * </ul>
  *
  * <p>
@@ -56,4 +58,13 @@ public class JwtProperties {
 	 * </p>
 	 */
 	private long expirationMs;
+
+	/**
+	 * Refresh token expiration time in milliseconds.
+	 * <p>
+	 * Defines how long a session can be renewed without logging in again. Each
+	 * refresh issues a new refresh token with a fresh expiration.
+	 * </p>
+	 */
+	private long refreshExpirationMs = 14L * 24 * 60 * 60 * 1000;
 }
\ No newline at end of file
@@ -5,7 +5,6 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
@@ -14,10 +13,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.jwt.entity.VerifiedToken;
 import com.bu.getactivecore.shared.exception.ApiException;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -34,6 +35,17 @@ public class JwtService implements JwtApi {
 
 	private final JwtProperties jwtProp;
 
+	/**
+	 * Signing key derived from the configured secret, built once in
+	 * {@link #init()} instead of decoding the secret on every call.
+	 */
+	private SecretKey m_key;
+
+	/**
+	 * Thread-safe parser bound to {@link #m_key}, reused for every verification.
+	 */
+	private JwtParser m_parser;
+
 	/**
 	 * Constructor for JwtService.
 	 *
@@ -52,30 +64,8 @@ public class JwtService implements JwtApi {
 			SecretKey key = keyGen.generateKey();
 			jwtProp.setSecretKey(Base64.getEncoder().encodeToString(key.getEncoded()));
 		}
-	}
-
-	/**
-	 * Retrieves the secret key used for signing and verifying JWT tokens.
-	 *
-	 * @return the secret key as a {@link SecretKey}
-	 */
-	private SecretKey getKey() {
-		byte[] key = Decoders.BASE64.decode(jwtProp.getSecretKey());
-		return Keys.hmacShaKeyFor(key);
-	}
-
-	/**
-	 * Extracts a specific claim from the JWT token.
-	 *
-	 * @param token         the JWT token
-	 * @param claimResolver the function to extract the claim
-	 * @param <T>           the type of the claim
-	 * @return the extracted claim
-	 * @throws JwtException if token parsing fails or the claim is not found
-	 */
-	private <T> T extractClaim(String token, Function<Claims, T> claimResolver) throws JwtException {
-		final Claims claims = extractAllClaims(token);
-		return claimResolver.apply(claims);
+		m_key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtProp.getSecretKey()));
+		m_parser = Jwts.parser().verifyWith(m_key).build();
 	}
 
 	/**
@@ -83,49 +73,55 @@ public class JwtService implements JwtApi {
 	 *
 	 * @param token the JWT string
 	 * @return a {@link Claims} object containing all claims
-	 * @throws ApiException if token parsing fails
+	 * @throws JwtException if token parsing fails
 	 */
 	private Claims extractAllClaims(String token) throws JwtException {
-		return Jwts.parser() //
-				.verifyWith(getKey()) //
-				.build() //
-				.parseSignedClaims(token) //
-				.getPayload();
+		return m_parser.parseSignedClaims(token).getPayload();
 	}
 
-	/**
-	 * Checks if the provided JWT token is expired.
-	 *
-	 * @param token the JWT token to check
-	 * @return true if the token is expired, false otherwise
-	 */
-	private boolean isTokenExpired(String token) {
-		return getExpiration(token).before(new Date());
+	@Override
+	public String generateToken(String username, TokenClaimType claimType) {
+		Map<String, Object> claims = new HashMap<>();
+		if (claimType != null) {
+			claims.put(JwtApi.TOKEN_CLAIM_TYPE_KEY, claimType.name());
+		}
+		return buildToken(username, claims, null, jwtProp.getExpirationMs());
 	}
 
-	/**
-	 * Extracts the expiration date from the JWT token.
-	 *
-	 * @param token the JWT token
-	 * @return the expiration date as a {@link Date}
-	 */
-	private Date getExpiration(String token) {
-		return extractClaim(token, Claims::getExpiration);
+	@Override
+	public String generateRefreshToken(String username, String familyId, String tokenId) {
+		Map<String, Object> claims = new HashMap<>();
+		claims.put(JwtApi.TOKEN_CLAIM_TYPE_KEY, TokenClaimType.REFRESH.name());
+		claims.put(JwtApi.TOKEN_FAMILY_KEY, familyId);
+		return buildToken(username, claims, tokenId, jwtProp.getRefreshExpirationMs());
 	}
 
 	@Override
-	public String generateToken(String username, TokenClaimType claimType) {
+	public long getRefreshExpirationMs() {
+		return jwtProp.getRefreshExpirationMs();
+	}
+
+	/**
+	 * Builds and signs a token.
+	 *
+	 * @param username     the subject of the token
+	 * @param claims       additional claims to embed
+	 * @param tokenId      the {@code jti} of the token, can be null
+	 * @param expirationMs how long the token is valid for
+	 * @return the signed compact token
+	 */
+	private String buildToken(String username, Map<String, Object> claims, String tokenId, long expirationMs) {
 		if (username == null || username.isBlank()) {
 			throw new ApiException("Username must not be blank");
 		}
+		long now = System.currentTimeMillis();
+		return Jwts.builder().claims().add(claims).subject(username).id(tokenId).issuedAt(new Date(now))
+				.expiration(new Date(now + expirationMs)).and().signWith(m_key).compact();
+	}
 
-		Map<String, Object> claims = new HashMap<>();
-		if (claimType != null) {
-			claims.put(JwtApi.TOKEN_CLAIM_TYPE_KEY, claimType.name());
-		}
-		return Jwts.builder().claims().add(claims).subject(username).issuedAt(new Date(System.currentTimeMillis()))
-				.expiration(new Date(System.currentTimeMillis() + jwtProp.getExpirationMs())) // 30 minutes
-				.and().signWith(getKey()).compact();
+	@Override
+	public VerifiedToken verify(String token) throws JwtException {
+		return new VerifiedToken(token, extractAllClaims(token));
 	}
 
 	@Override
@@ -147,7 +143,12 @@ public class JwtService implements JwtApi {
 
 	@Override
 	public boolean validateToken(String token, UserDetails userDetails) throws JwtException {
-		final String username = extractClaim(token, Claims::getSubject);
+		return validateToken(verify(token), userDetails);
+	}
+
+	@Override
+	public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+		final String username = token.getUsername();
 		if (!username.equals(userDetails.getUsername())) {
 			log.error("Invalid JWT token: expected {}, got {}", userDetails.getUsername(), username);
 			return false;
@@ -158,13 +159,12 @@ public class JwtService implements JwtApi {
 	@Override
 	public String getUsername(String token) {
 		// Since username is part of the claims, we can extract it directly
-		return extractClaim(token, Claims::getSubject);
+		return verify(token).getUsername();
 	}
 
 	@Override
 	public String getClaim(String token, String claimName) throws JwtException {
-		Claims claims = extractAllClaims(token);
-		return claims.get(claimName, String.class);
+		return verify(token).getClaim(claimName);
 	}
 
 }
@@ -2,6 +2,7 @@ package com.bu.getactivecore.service.jwt.api;
 
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.bu.getactivecore.service.jwt.entity.VerifiedToken;
 import com.bu.getactivecore.shared.exception.ApiException;
 
 import io.jsonwebtoken.JwtException;
@@ -16,6 +17,11 @@ public interface JwtApi {
 	 */
 	String TOKEN_CLAIM_TYPE_KEY = "type";
 
+	/**
+	 * The key used to store the token family a refresh token belongs to.
+	 */
+	String TOKEN_FAMILY_KEY = "fam";
+
 	/**
 	 * Generates a JWT token for the given username with an optional claim type.
 	 *
@@ -37,6 +43,34 @@ public interface JwtApi {
 		return generateToken(username, null);
 	}
 
+	/**
+	 * Generates a refresh token for the given username. Refresh tokens carry the
+	 * {@link TokenClaimType#REFRESH} type, the family they belong to and a unique
+	 * token id, and live for the configured refresh expiration.
+	 *
+	 * @param username the username for which to generate the token
+	 * @param familyId the id of the token family used for rotation
+	 * @param tokenId  the unique id of this refresh token
+	 * @return the generated refresh token
+	 * @throws ApiException when username is null or empty
+	 */
+	String generateRefreshToken(String username, String familyId, String tokenId) throws ApiException;
+
+	/**
+	 * @return how long refresh tokens stay valid, in milliseconds
+	 */
+	long getRefreshExpirationMs();
+
+	/**
+	 * Verifies the signature and expiration of the token once and returns its
+	 * parsed claims so callers can read them without parsing the token again.
+	 *
+	 * @param token the JWT token to verify
+	 * @return the verified token
+	 * @throws JwtException if the token is malformed, tampered with or expired
+	 */
+	VerifiedToken verify(String token) throws JwtException;
+
 	/**
 	 * Retrieves the username (subject) embedded in the token.
 	 *
@@ -81,6 +115,16 @@ public interface JwtApi {
 	 */
 	boolean validateToken(String token, UserDetails userDetails) throws JwtException;
 
+	/**
+	 * Validates an already verified token against the provided user details
+	 * without parsing it again.
+	 *
+	 * @param token       the verified token
+	 * @param userDetails the user details to validate against
+	 * @return true if the token belongs to the given user, false otherwise
+	 */
+	boolean validateToken(VerifiedToken token, UserDetails userDetails);
+
 	/**
 	 * Enum representing different types of claims that can be embedded in a JWT
 	 * token.
@@ -90,5 +134,11 @@ public interface JwtApi {
 		 * Claim type for registration confirmation tokens.
 		 */
 		REGISTRATION_CONFIRMATION,
+
+		/**
+		 * Claim type for refresh tokens, which can only be exchanged for a new token
+		 * pair and are never accepted as access tokens.
+		 */
+		REFRESH,
 	}
 }
@@ -0,0 +1,93 @@
+package com.bu.getactivecore.service.jwt.entity;
+
+import java.util.Date;
+
+import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.jwt.api.JwtApi.TokenClaimType;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+/**
+ * Result of parsing a JWT whose signature and expiration have already been
+ * checked.
+ * <p>
+ * Holding on to this object lets callers read the subject and claims of a token
+ * without paying for another signature verification.
+ */
+public final class VerifiedToken {
+
+	/**
+	 * Name of the request attribute the {@code JwtFilter} stores the verified
+	 * token under.
+	 */
+	public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+	@Getter
+	private final String token;
+
+	private final Claims m_claims;
+
+	/**
+	 * Constructs a verified token.
+	 *
+	 * @param token  the raw compact JWT
+	 * @param claims the claims obtained after verifying the signature
+	 */
+	public VerifiedToken(String token, Claims claims) {
+		this.token = token;
+		m_claims = claims;
+	}
+
+	/**
+	 * @return the subject (username) the token was issued to
+	 */
+	public String getUsername() {
+		return m_claims.getSubject();
+	}
+
+	/**
+	 * @return the claim type embedded in the token, or null if the token is an
+	 *         access token without a type or the type is not recognized
+	 */
+	public TokenClaimType getClaimType() {
+		String type = getClaim(JwtApi.TOKEN_CLAIM_TYPE_KEY);
+		if (type == null) {
+			return null;
+		}
+		try {
+			return TokenClaimType.valueOf(type);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the unique id ({@code jti}) of the token, or null if it has none
+	 */
+	public String getId() {
+		return m_claims.getId();
+	}
+
+	/**
+	 * @param claimName the name of the claim to retrieve
+	 * @return the string value of the claim, or null if absent
+	 */
+	public String getClaim(String claimName) {
+		return m_claims.get(claimName, String.class);
+	}
+
+	/**
+	 * @return the time the token was issued at
+	 */
+	public Date getIssuedAt() {
+		return m_claims.getIssuedAt();
+	}
+
+	/**
+	 * @return the time the token expires at
+	 */
+	public Date getExpiration() {
+		return m_claims.getExpiration();
+	}
+}
@@ -1,22 +1,27 @@
 package com.bu.getactivecore.service.registration;
 
-import static com.bu.getactivecore.service.jwt.api.JwtApi.TOKEN_CLAIM_TYPE_KEY;
 import static com.bu.getactivecore.service.jwt.api.JwtApi.TokenClaimType;
-import static com.bu.getactivecore.shared.Constants.PASSWORD_ENCODER_STRENGTH;
 import static com.bu.getactivecore.shared.ErrorCode.EMAIL_USERNAME_TAKEN;
 import static com.bu.getactivecore.shared.ErrorCode.TOKEN_EXPIRED;
 import static com.bu.getactivecore.shared.ErrorCode.TOKEN_INVALID;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.bu.getactivecore.model.users.AccountState;
 import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.UserRepository;
-import com.bu.getactivecore.service.email.api.EmailApi;
+import com.bu.getactivecore.service.email.api.EmailOutboxApi;
 import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.jwt.entity.VerifiedToken;
 import com.bu.getactivecore.service.registration.api.RegistrationApi;
 import com.bu.getactivecore.service.registration.entity.ConfirmationRequestDto;
 import com.bu.getactivecore.service.registration.entity.ConfirmationResendRequestDto;
@@ -24,12 +29,16 @@ import com.bu.getactivecore.service.registration.entity.ConfirmationResponseDto;
 import com.bu.getactivecore.service.registration.entity.RegistrationRequestDto;
 import com.bu.getactivecore.service.registration.entity.RegistrationResponseDto;
 import com.bu.getactivecore.service.registration.entity.RegistrationStatus;
+import com.bu.getactivecore.service.security.UserPrincipalCache;
 import com.bu.getactivecore.service.users.entity.UserDto;
+import com.bu.getactivecore.service.users.entity.UserIdentityDto;
 import com.bu.getactivecore.shared.ApiErrorPayload;
 import com.bu.getactivecore.shared.exception.ApiException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -39,28 +48,62 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class RegistrationService implements RegistrationApi {
 
-	private static final Object VERIFICATION_LOCK = new Object();
+	private static final String EMAIL_CONSTRAINT = "uc_users_email";
 
-	private static final Object REGISTRATION_LOCK = new Object();
+	private static final String USERNAME_CONSTRAINT = "uc_users_username";
 
-	private final EmailApi m_emailApi;
+	private final EmailOutboxApi m_emailOutbox;
 
 	private final UserRepository m_userRepo;
 
 	private final JwtApi m_jwtApi;
 
-	private final BCryptPasswordEncoder m_passwordEncoder = new BCryptPasswordEncoder(PASSWORD_ENCODER_STRENGTH);
+	private final UserPrincipalCache m_principalCache;
+
+	private final PasswordEncoder m_passwordEncoder;
+
+	private final ResendThrottle m_resendThrottle;
+
+	private final Duration m_resendCoalesceWindow;
+
+	private final Counter m_resendSent;
+
+	private final Counter m_resendThrottled;
+
+	private final Counter m_resendCoalesced;
 
 	/**
 	 * Constructor for UsersService.
 	 *
-	 * @param emailApi used for ending verification email
-	 * @param userRepo used for user related operations
+	 * @param emailOutbox      used to send verification emails once the
+	 *                         registration commits
+	 * @param userRepo         used for user related operations
+	 * @param jwtApi           used to create and verify confirmation tokens
+	 * @param principalCache   invalidated whenever a user is created or its
+	 *                         account state changes
+	 * @param passwordEncoder  used to hash the password of new users
+	 * @param resendThrottle   limits how often a confirmation can be resent
+	 * @param resendProperties provides the window in which resends are coalesced
+	 * @param meterRegistry    used to count resend outcomes
 	 */
-	public RegistrationService(EmailApi emailApi, UserRepository userRepo, JwtApi jwtApi) {
-		m_emailApi = emailApi;
+	public RegistrationService(EmailOutboxApi emailOutbox, UserRepository userRepo, JwtApi jwtApi,
+			UserPrincipalCache principalCache, PasswordEncoder passwordEncoder, ResendThrottle resendThrottle,
+			ResendThrottleProperties resendProperties, MeterRegistry meterRegistry) {
+		m_emailOutbox = emailOutbox;
 		m_userRepo = userRepo;
 		m_jwtApi = jwtApi;
+		m_principalCache = principalCache;
+		m_passwordEncoder = passwordEncoder;
+		m_resendThrottle = resendThrottle;
+		m_resendCoalesceWindow = resendProperties.getCoalesceWindow();
+		m_resendSent = resendCounter(meterRegistry, "sent");
+		m_resendThrottled = resendCounter(meterRegistry, "throttled");
+		m_resendCoalesced = resendCounter(meterRegistry, "coalesced");
+	}
+
+	private static Counter resendCounter(MeterRegistry meterRegistry, String outcome) {
+		return Counter.builder("registration.resend").tag("outcome", outcome)
+				.description("Confirmation resend requests by outcome").register(meterRegistry);
 	}
 
 	@Override
@@ -69,78 +112,102 @@ public class RegistrationService implements RegistrationApi {
 		String email = requestDto.getEmail();
 		String username = requestDto.getUsername();
 
-		synchronized (REGISTRATION_LOCK) {
-			boolean emailExists = m_userRepo.findByEmail(email).isPresent();
-			boolean usernameExists = m_userRepo.findByUsername(username).isPresent();
-			String debugMessage = null;
-			if (emailExists && usernameExists) {
-				debugMessage = String.format("Email '%s' and username '%s' are already taken", email, username);
-			} else if (emailExists) {
-				debugMessage = String.format("Email '%s' is already taken", email);
-			} else if (usernameExists) {
-				debugMessage = String.format("Username '%s' is already taken", username);
-			}
-			if (debugMessage != null) {
-				ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(EMAIL_USERNAME_TAKEN)
-						.message("Email or username already taken").debugMessage(debugMessage).build();
-				throw new ApiException(error);
-			}
+		// Friendly pre-check, the unique constraints remain the source of truth when
+		// two registrations race past it
+		List<UserIdentityDto> taken = m_userRepo.findIdentitiesByEmailOrUsername(email, username);
+		if (!taken.isEmpty()) {
+			boolean emailExists = taken.stream().anyMatch(identity -> email.equals(identity.getEmail()));
+			boolean usernameExists = taken.stream().anyMatch(identity -> username.equals(identity.getUsername()));
+			throw emailOrUsernameTaken(email, username, emailExists, usernameExists);
 		}
 
 		String encodedPassword = m_passwordEncoder.encode(requestDto.getPassword());
 		Users user = UserDto.from(email, username, encodedPassword);
-		m_userRepo.save(user);
+		try {
+			m_userRepo.saveAndFlush(user);
+		} catch (DataIntegrityViolationException e) {
+			String constraint = violatedConstraint(e);
+			log.debug("Registration of '{}' lost a race on constraint '{}'", username, constraint);
+			throw emailOrUsernameTaken(email, username, constraint.contains(EMAIL_CONSTRAINT),
+					constraint.contains(USERNAME_CONSTRAINT));
+		}
+		m_principalCache.invalidate(username);
 
 		String registrationToken = m_jwtApi.generateToken(username, TokenClaimType.REGISTRATION_CONFIRMATION);
-		m_emailApi.sendVerificationEmail(email, registrationToken);
+		m_emailOutbox.enqueueVerificationEmail(email, username, registrationToken);
 		return RegistrationResponseDto.builder().token(registrationToken).build();
 	}
 
+	/**
+	 * Builds the error returned when the email or username is already registered.
+	 *
+	 * @param email          the requested email
+	 * @param username       the requested username
+	 * @param emailExists    whether the email is known to be taken
+	 * @param usernameExists whether the username is known to be taken
+	 * @return the exception to throw
+	 */
+	private static ApiException emailOrUsernameTaken(String email, String username, boolean emailExists,
+			boolean usernameExists) {
+		String debugMessage;
+		if (emailExists && usernameExists) {
+			debugMessage = String.format("Email '%s' and username '%s' are already taken", email, username);
+		} else if (emailExists) {
+			debugMessage = String.format("Email '%s' is already taken", email);
+		} else if (usernameExists) {
+			debugMessage = String.format("Username '%s' is already taken", username);
+		} else {
+			debugMessage = String.format("Email '%s' or username '%s' is already taken", email, username);
+		}
+		ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(EMAIL_USERNAME_TAKEN)
+				.message("Email or username already taken").debugMessage(debugMessage).build();
+		return new ApiException(error);
+	}
+
+	/**
+	 * @param e the exception raised when inserting a user
+	 * @return the lower-cased name of the violated constraint, or an empty string
+	 *         if the database did not report one
+	 */
+	private static String violatedConstraint(DataIntegrityViolationException e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+				return violation.getConstraintName().toLowerCase(Locale.ROOT);
+			}
+		}
+		return "";
+	}
+
 	@Override
 	@Transactional
 	public ConfirmationResponseDto confirmRegistration(ConfirmationRequestDto verificationDto) {
 		String username = validateConfirmationToken(verificationDto);
-		synchronized (VERIFICATION_LOCK) {
-			Users user = m_userRepo.findByUsername(username).orElseThrow(() -> {
-				ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(TOKEN_INVALID)
-						.message("Invalid registration token provided, unknown '" + username + "' username").build();
-				return new ApiException(error);
-			});
-
-			switch (user.getAccountState()) {
-			case VERIFIED ->
-				log.debug("User '{}' is already verified, current state: {}", username, user.getAccountState());
-			case UNVERIFIED -> {
-				user.setAccountState(AccountState.VERIFIED);
-				m_userRepo.save(user);
-				log.info("Successfully confirmed registration for user '{}'", username);
-			}
-			}
+		int updated = m_userRepo.transitionAccountState(username, AccountState.UNVERIFIED, AccountState.VERIFIED);
+		if (updated == 1) {
+			m_principalCache.invalidate(username);
+			log.info("Successfully confirmed registration for user '{}'", username);
+		} else if (m_userRepo.existsByUsername(username)) {
+			log.debug("User '{}' is already verified", username);
+		} else {
+			ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(TOKEN_INVALID)
+					.message("Invalid registration token provided, unknown '" + username + "' username").build();
+			throw new ApiException(error);
 		}
 		return ConfirmationResponseDto.builder().status(RegistrationStatus.SUCCESS).build();
 	}
 
 	/**
-	 * Validates the provided token and extracts the username from it.
+	 * Validates the provided token and extracts the username from it. The token is
+	 * parsed and its signature verified only once.
 	 *
 	 * @param confirmRegistrationDto containing the token to validate.
 	 * @return the username extracted from the token.
 	 * @throws ApiException if the token is invalid or expired.
 	 */
 	private String validateConfirmationToken(ConfirmationRequestDto confirmRegistrationDto) {
-		String username;
+		VerifiedToken token;
 		try {
-			m_jwtApi.validateToken(confirmRegistrationDto.getToken());
-			String claim = m_jwtApi.getClaim(confirmRegistrationDto.getToken(), TOKEN_CLAIM_TYPE_KEY);
-			if (!TokenClaimType.REGISTRATION_CONFIRMATION.name().equals(claim)) {
-				ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(TOKEN_INVALID)
-						.message("Invalid registration confirmation token provided")
-						.debugMessage("Only tokens with type '" + TokenClaimType.REGISTRATION_CONFIRMATION.name()
-								+ "' are allowed, but got '" + claim + "'")
-						.build();
-				throw new ApiException(error);
-			}
-			username = m_jwtApi.getUsername(confirmRegistrationDto.getToken());
+			token = m_jwtApi.verify(confirmRegistrationDto.getToken());
 		} catch (ExpiredJwtException e) {
 			ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(TOKEN_EXPIRED)
 					.message("Token has expired").debugMessage("Token expired at " + e.getClaims().getExpiration())
@@ -153,23 +220,47 @@ public class RegistrationService implements RegistrationApi {
 					.build();
 			throw new ApiException(error);
 		}
-		return username;
+
+		if (token.getClaimType() != TokenClaimType.REGISTRATION_CONFIRMATION) {
+			ApiErrorPayload error = ApiErrorPayload.builder().status(BAD_REQUEST).errorCode(TOKEN_INVALID)
+					.message("Invalid registration confirmation token provided")
+					.debugMessage("Only tokens with type '" + TokenClaimType.REGISTRATION_CONFIRMATION.name()
+							+ "' are allowed, but got '" + token.getClaim(JwtApi.TOKEN_CLAIM_TYPE_KEY) + "'")
+					.build();
+			throw new ApiException(error);
+		}
+		return token.getUsername();
 	}
 
 	@Override
+	@Transactional
 	public void resendConfirmation(ConfirmationResendRequestDto resendRequestDto) {
-		m_userRepo.findByEmailAndUsername(resendRequestDto.getEmail(), resendRequestDto.getUsername())
-				.ifPresentOrElse(user -> {
-					if (user.getAccountState() == AccountState.UNVERIFIED) {
-						String registrationToken = m_jwtApi.generateToken(user.getUsername(),
-								TokenClaimType.REGISTRATION_CONFIRMATION);
-						m_emailApi.sendVerificationEmail(user.getEmail(), registrationToken);
-						log.info("Resent confirmation email to user '{}'", user.getUsername());
-					} else {
-						log.warn("Not resending confirmation email to user '{}', current state: {}", user.getUsername(),
-								user.getAccountState());
-					}
-				}, () -> log.debug("Cannot resend confirmation email, no user found with email/username '{}'/'{}'",
-						resendRequestDto.getEmail(), resendRequestDto.getUsername()));
+		String email = resendRequestDto.getEmail();
+		String username = resendRequestDto.getUsername();
+		// Checked before touching the database so a client stuck in a retry loop
+		// costs neither a query nor a token signature
+		if (!m_resendThrottle.tryAcquire(email, username)) {
+			m_resendThrottled.increment();
+			log.debug("Throttled confirmation resend for email/username '{}'/'{}'", email, username);
+			return;
+		}
+
+		m_userRepo.findByEmailAndUsername(email, username).ifPresentOrElse(user -> {
+			if (user.getAccountState() != AccountState.UNVERIFIED) {
+				log.warn("Not resending confirmation email to user '{}', current state: {}", user.getUsername(),
+						user.getAccountState());
+			} else if (m_emailOutbox.hasRecentVerificationEmail(user.getUsername(), m_resendCoalesceWindow)) {
+				m_resendCoalesced.increment();
+				log.debug("Confirmation email for user '{}' was queued recently, not queueing another one",
+						user.getUsername());
+			} else {
+				String registrationToken = m_jwtApi.generateToken(user.getUsername(),
+						TokenClaimType.REGISTRATION_CONFIRMATION);
+				m_emailOutbox.enqueueVerificationEmail(user.getEmail(), user.getUsername(), registrationToken);
+				m_resendSent.increment();
+				log.info("Resent confirmation email to user '{}'", user.getUsername());
+			}
+		}, () -> log.debug("Cannot resend confirmation email, no user found with email/username '{}'/'{}'", email,
+				username));
 	}
 }
@@ -0,0 +1,141 @@
+package com.bu.getactivecore.service.registration;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per email/username token bucket limiting how often a confirmation email can
+ * be resent.
+ * <p>
+ * Buckets live in a {@link ConcurrentHashMap}, whose per-bin locking keeps
+ * unrelated keys from contending, and each bucket is updated atomically inside
+ * {@code compute}. Buckets that refilled completely carry no state worth
+ * keeping and are dropped periodically.
+ * <p>
+ * Once {@code maxEntries} pairs are tracked, pairs without a bucket are let
+ * through untracked until the next cleanup makes room. Rejecting them instead
+ * would let anyone who fills the map deny resends to everyone else. Resends let
+ * through this way are still coalesced by {@link RegistrationService}.
+ */
+@Slf4j
+@Component
+public class ResendThrottle {
+
+	private final ConcurrentHashMap<String, Bucket> m_buckets = new ConcurrentHashMap<>();
+
+	private final int m_capacity;
+
+	private final long m_refillNanos;
+
+	private final int m_maxEntries;
+
+	private final Counter m_untracked;
+
+	private final AtomicBoolean m_full = new AtomicBoolean();
+
+	/**
+	 * Source of the current time in nanoseconds, like {@link System#nanoTime()}.
+	 */
+	private final LongSupplier m_nanoTime;
+
+	/**
+	 * Constructs the throttle.
+	 *
+	 * @param properties    bucket capacity, refill rate and size bound
+	 * @param meterRegistry used to publish the number of tracked buckets
+	 */
+	@Autowired
+	public ResendThrottle(ResendThrottleProperties properties, MeterRegistry meterRegistry) {
+		this(properties, meterRegistry, System::nanoTime);
+	}
+
+	/**
+	 * Constructs the throttle with its own time source.
+	 *
+	 * @param properties    bucket capacity, refill rate and size bound
+	 * @param meterRegistry used to publish the number of tracked buckets
+	 * @param nanoTime      returns the current time in nanoseconds
+	 */
+	ResendThrottle(ResendThrottleProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+		m_nanoTime = nanoTime;
+		m_capacity = Math.max(1, properties.getCapacity());
+		m_refillNanos = Math.max(1, properties.getRefillInterval().toNanos());
+		m_maxEntries = Math.max(1, properties.getMaxEntries());
+		Gauge.builder("registration.resend.buckets", m_buckets, ConcurrentHashMap::size)
+				.description("Email/username pairs currently tracked by the resend throttle").register(meterRegistry);
+		m_untracked = Counter.builder("registration.resend.untracked")
+				.description("Resends let through untracked because the throttle was full").register(meterRegistry);
+	}
+
+	/**
+	 * Takes one resend from the bucket of the given email/username pair.
+	 *
+	 * @param email    the email of the resend request
+	 * @param username the username of the resend request
+	 * @return true if the resend may proceed, false if it is throttled
+	 */
+	public boolean tryAcquire(String email, String username) {
+		String key = email.toLowerCase(Locale.ROOT) + '|' + username.toLowerCase(Locale.ROOT);
+		if (m_buckets.size() >= m_maxEntries && !m_buckets.containsKey(key)) {
+			if (m_full.compareAndSet(false, true)) {
+				log.warn("Resend throttle is tracking {} pairs, letting new ones through untracked", m_buckets.size());
+			}
+			m_untracked.increment();
+			return true;
+		}
+		long now = m_nanoTime.getAsLong();
+		boolean[] acquired = new boolean[1];
+		m_buckets.compute(key, (k, bucket) -> {
+			Bucket current = bucket == null ? new Bucket(m_capacity, now)
+					: bucket.refill(now, m_capacity, m_refillNanos);
+			if (current.tokens > 0) {
+				acquired[0] = true;
+				return new Bucket(current.tokens - 1, current.refilledAt);
+			}
+			return current;
+		});
+		return acquired[0];
+	}
+
+	/**
+	 * Periodically drops buckets that refilled completely.
+	 */
+	@Scheduled(fixedDelayString = "${registration.resend.cleanup-interval-ms:60000}")
+	public void evictRefilled() {
+		long now = m_nanoTime.getAsLong();
+		m_buckets.entrySet()
+				.removeIf(entry -> entry.getValue().refill(now, m_capacity, m_refillNanos).tokens >= m_capacity);
+		m_full.set(m_buckets.size() >= m_maxEntries);
+	}
+
+	/**
+	 * Immutable bucket state.
+	 *
+	 * @param tokens     resends left
+	 * @param refilledAt time of the last refill, in nanoseconds
+	 */
+	private record Bucket(int tokens, long refilledAt) {
+
+		Bucket refill(long now, int capacity, long refillNanos) {
+			long earned = (now - refilledAt) / refillNanos;
+			if (earned <= 0) {
+				return this;
+			}
+			int tokens = (int) Math.min(capacity, this.tokens + earned);
+			// Full buckets restart the clock, otherwise keep the unspent fraction
+			long refilledAt = tokens >= capacity ? now : this.refilledAt + earned * refillNanos;
+			return new Bucket(tokens, refilledAt);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.bu.getactivecore.service.registration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for throttling confirmation resends, bound from the
+ * {@code registration.resend} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * registration.resend.capacity=3
+ * registration.resend.refill-interval=5m
+ * registration.resend.coalesce-window=2m
+ * registration.resend.max-entries=100000
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "registration.resend")
+public class ResendThrottleProperties {
+
+	/**
+	 * Number of resends an email/username pair may burst before being throttled.
+	 */
+	private int capacity = 3;
+
+	/**
+	 * Time it takes to earn back one resend.
+	 */
+	private Duration refillInterval = Duration.ofMinutes(5);
+
+	/**
+	 * Resends requested within this window of an earlier email are folded into
+	 * that email, whether or not it was sent already.
+	 */
+	private Duration coalesceWindow = Duration.ofMinutes(2);
+
+	/**
+	 * Largest number of email/username pairs tracked at once. Further pairs are
+	 * not throttled until tracked pairs are cleaned up.
+	 */
+	private int maxEntries = 100_000;
+}
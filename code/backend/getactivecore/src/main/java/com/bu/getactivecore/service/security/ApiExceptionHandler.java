@@ -1,5 +1,6 @@
 package com.bu.getactivecore.service.security;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -71,6 +72,11 @@ public class ApiExceptionHandler {
 
 	@ExceptionHandler(ApiException.class)
 	public ResponseEntity<ApiErrorResponse> handleApiException(ApiException ex) {
-		return ResponseEntity.status(ex.getError().getStatus()).body(new ApiErrorResponse(ex.getError()));
+		ApiErrorPayload errorPayload = ex.getError();
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(errorPayload.getStatus());
+		if (errorPayload.getRetryAfterSeconds() != null) {
+			response.header(HttpHeaders.RETRY_AFTER, String.valueOf(errorPayload.getRetryAfterSeconds()));
+		}
+		return response.body(new ApiErrorResponse(errorPayload));
 	}
 }
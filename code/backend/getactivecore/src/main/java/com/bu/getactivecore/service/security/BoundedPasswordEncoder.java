@@ -0,0 +1,166 @@
+package com.bu.getactivecore.service.security;
+
+import static com.bu.getactivecore.shared.ErrorCode.SERVICE_BUSY;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link PasswordEncoder} that runs the hashing of a delegate encoder on a
+ * dedicated, fixed-size thread pool with a bounded queue.
+ * <p>
+ * Hashing is deliberately slow, so running it on request threads lets a burst
+ * of logins or registrations occupy every CPU and starve cheap endpoints.
+ * Funnelling it through this pool caps how much CPU hashing can take at any
+ * time. When the queue is full, or a hash is not done within the configured
+ * wait, an {@link ApiException} with status 503 and a {@code Retry-After} value
+ * is thrown instead of piling up more work.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+	private final PasswordEncoder m_delegate;
+
+	private final ThreadPoolExecutor m_executor;
+
+	private final long m_maxWaitMs;
+
+	private final long m_retryAfterSeconds;
+
+	private final Timer m_encodeTimer;
+
+	private final Timer m_matchesTimer;
+
+	private final Counter m_rejected;
+
+	/**
+	 * Constructs the encoder and registers its metrics.
+	 *
+	 * @param delegate      the encoder doing the actual hashing
+	 * @param properties    pool sizing and back-off settings
+	 * @param meterRegistry used to publish queue depth, latency and rejections
+	 */
+	public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties,
+			MeterRegistry meterRegistry) {
+		m_delegate = delegate;
+		m_maxWaitMs = properties.getMaxWait().toMillis();
+		m_retryAfterSeconds = Math.max(1, properties.getRetryAfter().toSeconds());
+
+		int poolSize = properties.getEffectivePoolSize();
+		m_executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), new HashingThreadFactory(),
+				new ThreadPoolExecutor.AbortPolicy());
+
+		m_encodeTimer = Timer.builder("password.hashing.latency").tag("operation", "encode")
+				.description("Time spent hashing passwords, excluding queueing").register(meterRegistry);
+		m_matchesTimer = Timer.builder("password.hashing.latency").tag("operation", "matches")
+				.description("Time spent verifying passwords, excluding queueing").register(meterRegistry);
+		m_rejected = Counter.builder("password.hashing.rejected")
+				.description("Hashing requests rejected because the pool was saturated").register(meterRegistry);
+		Gauge.builder("password.hashing.queue.depth", m_executor, e -> e.getQueue().size())
+				.description("Hashing requests waiting for a free thread").register(meterRegistry);
+		Gauge.builder("password.hashing.active", m_executor, ThreadPoolExecutor::getActiveCount)
+				.description("Hashing threads currently busy").register(meterRegistry);
+		log.info("Password hashing pool started with {} threads and a queue of {}", poolSize,
+				properties.getQueueCapacity());
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(() -> m_encodeTimer.recordCallable(() -> m_delegate.encode(rawPassword)));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> m_matchesTimer.recordCallable(() -> m_delegate.matches(rawPassword, encodedPassword)));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		// Only inspects the hash prefix, cheap enough to run on the caller thread
+		return m_delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/**
+	 * Runs the task on the hashing pool and waits for its result.
+	 *
+	 * @param task the hashing work
+	 * @param <T>  the result type
+	 * @return the result of the task
+	 * @throws ApiException with status 503 when the pool is saturated
+	 */
+	private <T> T run(Callable<T> task) throws ApiException {
+		Future<T> future;
+		try {
+			future = m_executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			m_rejected.increment();
+			throw busy("Password hashing queue is full");
+		}
+
+		try {
+			return future.get(m_maxWaitMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			m_rejected.increment();
+			throw busy("Password hashing did not complete within " + m_maxWaitMs + " ms");
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw busy("Interrupted while waiting for password hashing");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+	}
+
+	private ApiException busy(String debugMessage) {
+		ApiErrorPayload error = ApiErrorPayload.builder().status(SERVICE_UNAVAILABLE).errorCode(SERVICE_BUSY)
+				.message(SERVICE_BUSY.getDetails()).debugMessage(debugMessage).retryAfterSeconds(m_retryAfterSeconds)
+				.build();
+		return new ApiException(error);
+	}
+
+	@Override
+	public void destroy() {
+		m_executor.shutdownNow();
+	}
+
+	/**
+	 * Creates named daemon threads so the pool is easy to spot in thread dumps.
+	 */
+	private static final class HashingThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger m_count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "password-hashing-" + m_count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
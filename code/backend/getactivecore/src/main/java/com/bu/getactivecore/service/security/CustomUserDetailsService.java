@@ -1,47 +1,81 @@
 package com.bu.getactivecore.service.security;
 
-import java.util.Optional;
-
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.bu.getactivecore.model.users.UserPrincipal;
 import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.UserRepository;
-import com.bu.getactivecore.service.users.entity.UserDto;
+import com.bu.getactivecore.service.users.entity.UserCredentialsDto;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service responsible for retrieving user information during authentication to
  * convert {@link Users} entity into a {@link UserPrincipal} to be used by
  * Spring Security.
+ * <p>
+ * Principals are served from the {@link UserPrincipalCache} so that
+ * authenticated requests do not hit the database each time.
+ * <p>
+ * After a successful login Spring Security hands back a rehashed password when
+ * the stored hash was created with a different BCrypt strength; it is stored
+ * here so hashes follow the strength calibrated for the host.
  */
 @Slf4j
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
 	private final UserRepository m_userRepo;
 
+	private final UserPrincipalCache m_principalCache;
+
+	private final Counter m_rehashed;
+
 	/**
 	 * Constructs the service with the provided {@link UserRepository}.
 	 *
-	 * @param userRepo used to fetch user data
+	 * @param userRepo       used to fetch user data
+	 * @param principalCache used to avoid fetching user data on every request
+	 * @param meterRegistry  used to count passwords rehashed on login
 	 */
-	public CustomUserDetailsService(UserRepository userRepo) {
+	public CustomUserDetailsService(UserRepository userRepo, UserPrincipalCache principalCache,
+			MeterRegistry meterRegistry) {
 		m_userRepo = userRepo;
+		m_principalCache = principalCache;
+		m_rehashed = Counter.builder("password.hashing.rehashed")
+				.description("Stored password hashes upgraded to the calibrated strength on login")
+				.register(meterRegistry);
 	}
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-
-		Optional<Users> user = m_userRepo.findByUsername(username);
-		if (user.isEmpty()) {
+		UserPrincipal principal = m_principalCache.get(username,
+				name -> m_userRepo.findCredentialsByUsername(name).map(UserPrincipal::new).orElse(null));
+		if (principal == null) {
 			log.warn("User not found with username: {}", username);
 			throw new UsernameNotFoundException("User not found with username: " + username);
 		}
-		return new UserPrincipal(UserDto.of(user.get()));
+		return principal;
+	}
+
+	@Override
+	@Transactional
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		m_userRepo.updatePassword(user.getUsername(), newPassword);
+		m_principalCache.invalidate(user.getUsername());
+		m_rehashed.increment();
+		log.debug("Rehashed password of user: {}", user.getUsername());
+		if (user instanceof UserPrincipal principal) {
+			return new UserPrincipal(new UserCredentialsDto(principal.getUserId(), principal.getUsername(),
+					newPassword, principal.getAccountState()));
+		}
+		return loadUserByUsername(user.getUsername());
 	}
 }
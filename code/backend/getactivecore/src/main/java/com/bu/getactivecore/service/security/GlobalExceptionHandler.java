@@ -49,7 +49,11 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 	 * @return A {@link ResponseEntity} containing the error response.
 	 */
 	private ResponseEntity<Object> buildResponseEntity(ApiErrorPayload apiErrorPayload) {
-		return new ResponseEntity<>(new ApiErrorResponse(apiErrorPayload), apiErrorPayload.getStatus());
+		HttpHeaders headers = new HttpHeaders();
+		if (apiErrorPayload.getRetryAfterSeconds() != null) {
+			headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(apiErrorPayload.getRetryAfterSeconds()));
+		}
+		return new ResponseEntity<>(new ApiErrorResponse(apiErrorPayload), headers, apiErrorPayload.getStatus());
 	}
 
 	/**
@@ -0,0 +1,71 @@
+package com.bu.getactivecore.service.security;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the login rate limiter, bound from the
+ * {@code security.login-rate-limit} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * security.login-rate-limit.window=15m
+ * security.login-rate-limit.max-failures-per-username=5
+ * security.login-rate-limit.max-failures-per-ip=20
+ * security.login-rate-limit.base-lockout=30s
+ * security.login-rate-limit.max-lockout=15m
+ * security.login-rate-limit.shards=16
+ * security.login-rate-limit.max-entries-per-shard=10000
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.login-rate-limit")
+public class LoginRateLimitProperties {
+
+	/**
+	 * Length of the sliding window failed logins are counted in.
+	 */
+	private Duration window = Duration.ofMinutes(15);
+
+	/**
+	 * Failed logins allowed for one username within the window.
+	 */
+	private int maxFailuresPerUsername = 5;
+
+	/**
+	 * Failed logins allowed from one client IP within the window. Higher than the
+	 * per-username limit since several users may share an address.
+	 */
+	private int maxFailuresPerIp = 20;
+
+	/**
+	 * Lockout applied the first time a limit is exceeded, doubled on every
+	 * further failure while over the limit.
+	 */
+	private Duration baseLockout = Duration.ofSeconds(30);
+
+	/**
+	 * Upper bound of the lockout.
+	 */
+	private Duration maxLockout = Duration.ofMinutes(15);
+
+	/**
+	 * Number of independently locked shards the counters are spread over.
+	 */
+	private int shards = 16;
+
+	/**
+	 * Largest number of counters kept per shard, least recently used counters are
+	 * dropped beyond it.
+	 */
+	private int maxEntriesPerShard = 10_000;
+}
@@ -0,0 +1,282 @@
+package com.bu.getactivecore.service.security;
+
+import static com.bu.getactivecore.shared.ErrorCode.TOO_MANY_REQUESTS;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.cache.BoundedCache;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limits failed logins per client IP and per username.
+ * <p>
+ * Failures are counted in a sliding window, approximated from the counts of the
+ * current and the previous fixed window. Once a key reaches its limit it is
+ * locked out, and every further failure while over the limit doubles the
+ * lockout up to a maximum. A successful login clears the username counter.
+ * <p>
+ * {@link #checkAllowed(String, String)} is meant to run before the password is
+ * verified, so locked out attempts never cost a password hash. It reserves the
+ * attempt, which {@link #recordFailure(String, String)} or
+ * {@link #recordSuccess(String, String)} settles once the password was
+ * verified. A key with attempts in flight only admits as many more as it has
+ * failures left, so a parallel burst cannot get past the check before its
+ * failures are counted. Counters are
+ * spread over several {@link BoundedCache} shards, each bounded in size and
+ * expiring idle counters, so memory stays bounded no matter how many IPs or
+ * usernames are tried.
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+	private static final String IP_PREFIX = "ip:";
+
+	private static final String USERNAME_PREFIX = "user:";
+
+	/**
+	 * How long to wait when attempts in flight may use up the remaining failures,
+	 * they are settled within a password hash.
+	 */
+	private static final long IN_FLIGHT_WAIT_NANOS = Duration.ofSeconds(1).toNanos();
+
+	private final BoundedCache<String, FailureWindow>[] m_shards;
+
+	private final long m_windowNanos;
+
+	private final int m_maxFailuresPerUsername;
+
+	private final int m_maxFailuresPerIp;
+
+	private final long m_baseLockoutNanos;
+
+	private final long m_maxLockoutNanos;
+
+	private final Counter m_rejected;
+
+	private final Counter m_lockouts;
+
+	/**
+	 * Constructs the limiter.
+	 *
+	 * @param properties    limits, lockout durations and sharding
+	 * @param meterRegistry used to publish rejections and lockouts
+	 */
+	@SuppressWarnings("unchecked")
+	public LoginRateLimiter(LoginRateLimitProperties properties, MeterRegistry meterRegistry) {
+		m_windowNanos = properties.getWindow().toNanos();
+		m_maxFailuresPerUsername = Math.max(1, properties.getMaxFailuresPerUsername());
+		m_maxFailuresPerIp = Math.max(1, properties.getMaxFailuresPerIp());
+		m_baseLockoutNanos = properties.getBaseLockout().toNanos();
+		m_maxLockoutNanos = properties.getMaxLockout().toNanos();
+
+		// Counters must outlive a full window plus the longest lockout
+		Duration ttl = properties.getWindow().multipliedBy(2).plus(properties.getMaxLockout());
+		m_shards = new BoundedCache[Math.max(1, properties.getShards())];
+		for (int i = 0; i < m_shards.length; i++) {
+			m_shards[i] = new BoundedCache<>(Math.max(1, properties.getMaxEntriesPerShard()), ttl);
+		}
+
+		m_rejected = Counter.builder("security.login.rejected")
+				.description("Login attempts rejected before verifying the password").register(meterRegistry);
+		m_lockouts = Counter.builder("security.login.lockouts")
+				.description("Failed logins that started or extended a lockout").register(meterRegistry);
+		Gauge.builder("security.login.tracked", m_shards,
+				shards -> Arrays.stream(shards).mapToInt(BoundedCache::size).sum())
+				.description("Client IPs and usernames with recent login attempts being tracked")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Rejects the attempt if the client IP or the username is locked out, or if
+	 * the attempts in flight for either may reach its limit. Otherwise reserves
+	 * the attempt, which must then be settled with
+	 * {@link #recordFailure(String, String)} or
+	 * {@link #recordSuccess(String, String)}.
+	 *
+	 * @param clientIp the address the attempt comes from
+	 * @param username the username the attempt is for
+	 * @throws ApiException with status 429 and a {@code Retry-After} value if the
+	 *                      attempt is not allowed
+	 */
+	public void checkAllowed(String clientIp, String username) throws ApiException {
+		long now = System.nanoTime();
+		FailureWindow ip = window(ipKey(clientIp), now);
+		FailureWindow user = window(usernameKey(username), now);
+		long waitNanos = Math.max(ip.remainingLockout(now), user.remainingLockout(now));
+		if (waitNanos == 0) {
+			waitNanos = ip.tryReserve(now, m_maxFailuresPerIp);
+			if (waitNanos == 0) {
+				waitNanos = user.tryReserve(now, m_maxFailuresPerUsername);
+				if (waitNanos > 0) {
+					ip.release();
+				}
+			}
+		}
+		if (waitNanos > 0) {
+			m_rejected.increment();
+			long retryAfterSeconds = Math.max(1, Duration.ofNanos(waitNanos).toSeconds());
+			ApiErrorPayload error = ApiErrorPayload.builder().status(HttpStatus.TOO_MANY_REQUESTS)
+					.errorCode(TOO_MANY_REQUESTS).message("Too many failed login attempts, please retry later")
+					.debugMessage("Login locked for " + retryAfterSeconds + " more seconds")
+					.retryAfterSeconds(retryAfterSeconds).build();
+			throw new ApiException(error);
+		}
+	}
+
+	/**
+	 * Counts a failed login for both the client IP and the username, settling the
+	 * attempt reserved by {@link #checkAllowed(String, String)}.
+	 *
+	 * @param clientIp the address the attempt came from
+	 * @param username the username the attempt was for
+	 */
+	public void recordFailure(String clientIp, String username) {
+		long now = System.nanoTime();
+		recordFailure(ipKey(clientIp), m_maxFailuresPerIp, now);
+		recordFailure(usernameKey(username), m_maxFailuresPerUsername, now);
+	}
+
+	/**
+	 * Clears the failures of the username after a successful login, refunding the
+	 * attempt reserved by {@link #checkAllowed(String, String)}. The client IP
+	 * keeps its failures, one valid account must not unlock guessing others.
+	 *
+	 * @param clientIp the address the attempt came from
+	 * @param username the username that logged in
+	 */
+	public void recordSuccess(String clientIp, String username) {
+		String ipKey = ipKey(clientIp);
+		FailureWindow ip = shard(ipKey).getIfPresent(ipKey);
+		if (ip != null) {
+			ip.release();
+		}
+		String usernameKey = usernameKey(username);
+		shard(usernameKey).invalidate(usernameKey);
+	}
+
+	private void recordFailure(String key, int limit, long now) {
+		// Also restarts the expiry of counters that keep failing
+		if (window(key, now).recordFailure(now, limit)) {
+			m_lockouts.increment();
+			log.debug("Login locked out for '{}'", key);
+		}
+	}
+
+	private FailureWindow window(String key, long now) {
+		return shard(key).computeIfAbsent(key, k -> new FailureWindow(now));
+	}
+
+	private BoundedCache<String, FailureWindow> shard(String key) {
+		return m_shards[Math.floorMod(key.hashCode(), m_shards.length)];
+	}
+
+	private static String ipKey(String clientIp) {
+		return IP_PREFIX + clientIp;
+	}
+
+	private static String usernameKey(String username) {
+		return USERNAME_PREFIX + username.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Failure counts of a single key.
+	 */
+	private final class FailureWindow {
+
+		private long m_windowStart;
+
+		private int m_current;
+
+		private int m_previous;
+
+		private int m_strikes;
+
+		/**
+		 * Attempts reserved but not settled yet.
+		 */
+		private int m_inFlight;
+
+		private long m_lockedUntil;
+
+		FailureWindow(long now) {
+			m_windowStart = now;
+		}
+
+		/**
+		 * @return true if the failure started or extended a lockout
+		 */
+		synchronized boolean recordFailure(long now, int limit) {
+			// Not reserved if the counter expired or was cleared in the meantime
+			m_inFlight = Math.max(0, m_inFlight - 1);
+			roll(now);
+			m_current++;
+			if (failures(now) < limit) {
+				return false;
+			}
+			int exponent = Math.min(m_strikes++, 30);
+			long lockout = m_baseLockoutNanos <= m_maxLockoutNanos >> exponent ? m_baseLockoutNanos << exponent
+					: m_maxLockoutNanos;
+			m_lockedUntil = now + lockout;
+			return true;
+		}
+
+		/**
+		 * Reserves an attempt, unless it is locked out or the attempts already in
+		 * flight may use up the failures left.
+		 *
+		 * @return 0 if reserved, otherwise how long to wait
+		 */
+		synchronized long tryReserve(long now, int limit) {
+			long lockout = remainingLockout(now);
+			if (lockout > 0) {
+				return lockout;
+			}
+			roll(now);
+			if (m_inFlight > 0 && failures(now) + m_inFlight >= limit) {
+				return IN_FLIGHT_WAIT_NANOS;
+			}
+			m_inFlight++;
+			return 0;
+		}
+
+		synchronized void release() {
+			m_inFlight = Math.max(0, m_inFlight - 1);
+		}
+
+		synchronized long remainingLockout(long now) {
+			return m_lockedUntil == 0 ? 0 : Math.max(0, m_lockedUntil - now);
+		}
+
+		private double failures(long now) {
+			double elapsed = (double) (now - m_windowStart) / m_windowNanos;
+			return m_previous * (1 - elapsed) + m_current;
+		}
+
+		private void roll(long now) {
+			long elapsed = now - m_windowStart;
+			if (elapsed >= 2 * m_windowNanos) {
+				// Quiet for a whole window, start over
+				m_windowStart = now;
+				m_previous = 0;
+				m_current = 0;
+				m_strikes = 0;
+			} else if (elapsed >= m_windowNanos) {
+				m_windowStart += m_windowNanos;
+				m_previous = m_current;
+				m_current = 0;
+			}
+		}
+	}
+}
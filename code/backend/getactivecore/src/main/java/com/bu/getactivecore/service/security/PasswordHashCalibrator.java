@@ -0,0 +1,151 @@
+package com.bu.getactivecore.service.security;
+
+import static com.bu.getactivecore.shared.Constants.MIN_PASSWORD_ENCODER_STRENGTH;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the BCrypt strength for this host at startup.
+ * <p>
+ * Each BCrypt strength step doubles the work, so the time of a hash at the
+ * minimum strength is measured and doubled until the next step would exceed
+ * the configured target latency. The chosen strength is then measured once more
+ * and both values are published as {@code password.hashing.strength} and
+ * {@code password.hashing.calibrated.latency}.
+ */
+@Slf4j
+@Component
+public class PasswordHashCalibrator {
+
+	/**
+	 * Matches the version and strength prefix of a BCrypt hash, e.g.
+	 * {@code $2a$12$}.
+	 */
+	private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+	private static final int CALIBRATION_SAMPLES = 3;
+
+	private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+	private final PasswordHashingProperties m_properties;
+
+	private final MeterRegistry m_meterRegistry;
+
+	private int m_maxStrength;
+
+	/**
+	 * The strength new hashes are created with.
+	 */
+	@Getter
+	private int strength;
+
+	/**
+	 * Time a single hash took at {@link #strength} during calibration.
+	 */
+	@Getter
+	private Duration calibratedLatency;
+
+	/**
+	 * Constructs the calibrator.
+	 *
+	 * @param properties    target latency and strength bounds
+	 * @param meterRegistry used to publish the calibration results
+	 */
+	public PasswordHashCalibrator(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+		m_properties = properties;
+		m_meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Runs the calibration and registers the resulting gauges.
+	 */
+	@PostConstruct
+	public void init() {
+		int minStrength = Math.max(MIN_PASSWORD_ENCODER_STRENGTH, m_properties.getMinStrength());
+		int maxStrength = Math.max(minStrength, m_properties.getMaxStrength());
+		m_maxStrength = maxStrength;
+
+		if (m_properties.getStrength() > 0) {
+			strength = Math.min(Math.max(m_properties.getStrength(), minStrength), maxStrength);
+		} else {
+			long targetNanos = m_properties.getTargetLatency().toNanos();
+			long estimateNanos = measure(minStrength, CALIBRATION_SAMPLES);
+			strength = minStrength;
+			while (strength < maxStrength && estimateNanos * 2 <= targetNanos) {
+				estimateNanos *= 2;
+				strength++;
+			}
+		}
+		calibratedLatency = Duration.ofNanos(measure(strength, 1));
+		log.info("Password hashing strength set to {} ({} ms per hash, target {} ms)", strength,
+				calibratedLatency.toMillis(), m_properties.getTargetLatency().toMillis());
+
+		Gauge.builder("password.hashing.strength", this, PasswordHashCalibrator::getStrength)
+				.description("BCrypt strength new password hashes are created with").register(m_meterRegistry);
+		Gauge.builder("password.hashing.calibrated.latency", this, c -> c.getCalibratedLatency().toNanos() / 1e9)
+				.baseUnit("seconds").description("Time a single password hash took during startup calibration")
+				.register(m_meterRegistry);
+	}
+
+	/**
+	 * Creates an encoder hashing with the calibrated strength. Its
+	 * {@link BCryptPasswordEncoder#upgradeEncoding(String)} reports stored hashes
+	 * that should be replaced on the next successful login.
+	 *
+	 * @return the encoder
+	 */
+	public BCryptPasswordEncoder createEncoder() {
+		int strength = this.strength;
+		int maxStrength = m_maxStrength;
+		return new BCryptPasswordEncoder(strength) {
+			@Override
+			public boolean upgradeEncoding(String encodedPassword) {
+				int storedStrength = strengthOf(encodedPassword);
+				// Only move hashes up to this node's strength, or down when they exceed the
+				// configured ceiling. Rehashing downwards to whatever each node calibrated to
+				// would make users flip between strengths when nodes differ.
+				return storedStrength < strength || storedStrength > maxStrength;
+			}
+		};
+	}
+
+	/**
+	 * @param encodedPassword a BCrypt hash
+	 * @return the strength the hash was created with, or -1 if it is not a
+	 *         BCrypt hash
+	 */
+	static int strengthOf(String encodedPassword) {
+		if (encodedPassword == null) {
+			return -1;
+		}
+		Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+		return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+	}
+
+	/**
+	 * @param strength the strength to measure
+	 * @param samples  number of hashes to time
+	 * @return the fastest hash timing at the given strength, in nanos
+	 */
+	private static long measure(int strength, int samples) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < samples; i++) {
+			long start = System.nanoTime();
+			encoder.encode(SAMPLE_PASSWORD);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+}
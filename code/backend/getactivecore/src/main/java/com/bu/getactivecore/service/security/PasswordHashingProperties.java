@@ -0,0 +1,88 @@
+package com.bu.getactivecore.service.security;
+
+import static com.bu.getactivecore.shared.Constants.MIN_PASSWORD_ENCODER_STRENGTH;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the dedicated password hashing pool, bound from
+ * the {@code security.password-hashing} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * security.password-hashing.pool-size=0
+ * security.password-hashing.queue-capacity=32
+ * security.password-hashing.max-wait=5s
+ * security.password-hashing.retry-after=2s
+ * security.password-hashing.target-latency=250ms
+ * security.password-hashing.min-strength=10
+ * security.password-hashing.max-strength=16
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.password-hashing")
+public class PasswordHashingProperties {
+
+	/**
+	 * Number of threads hashing passwords. Zero or less uses the number of
+	 * available processors.
+	 */
+	private int poolSize = 0;
+
+	/**
+	 * Number of hashing requests allowed to wait for a free thread. Requests
+	 * beyond that are rejected right away with 503.
+	 */
+	private int queueCapacity = 32;
+
+	/**
+	 * Longest time a request waits for its hash before giving up with 503.
+	 */
+	private Duration maxWait = Duration.ofSeconds(5);
+
+	/**
+	 * Value of the {@code Retry-After} header sent when hashing is saturated.
+	 */
+	private Duration retryAfter = Duration.ofSeconds(2);
+
+	/**
+	 * Fixed BCrypt strength to use. Zero or less lets the service pick the
+	 * strength at startup by benchmarking the host against
+	 * {@link #targetLatency}.
+	 */
+	private int strength = 0;
+
+	/**
+	 * How long a single password hash should take on this host.
+	 */
+	private Duration targetLatency = Duration.ofMillis(250);
+
+	/**
+	 * Lowest strength calibration may pick. Never below
+	 * {@link com.bu.getactivecore.shared.Constants#MIN_PASSWORD_ENCODER_STRENGTH}.
+	 */
+	private int minStrength = MIN_PASSWORD_ENCODER_STRENGTH;
+
+	/**
+	 * Highest strength calibration may pick. Stored hashes above it are rehashed
+	 * on the next login.
+	 */
+	private int maxStrength = 16;
+
+	/**
+	 * @return the effective number of hashing threads
+	 */
+	public int getEffectivePoolSize() {
+		return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+	}
+}
@@ -0,0 +1,39 @@
+package com.bu.getactivecore.service.security;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the in-process cache of authenticated
+ * principals, bound from the {@code security.principal-cache} prefix.
+ *
+ * <p>
+ * Example in {@code application.properties}:
+ *
+ * <pre>
+ * security.principal-cache.max-size=10000
+ * security.principal-cache.ttl=5m
+ * </pre>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.principal-cache")
+public class PrincipalCacheProperties {
+
+	/**
+	 * Maximum number of principals kept in memory.
+	 */
+	private int maxSize = 10_000;
+
+	/**
+	 * How long a cached principal is trusted before it is reloaded from the
+	 * database. Bounds staleness for changes made outside this instance.
+	 */
+	private Duration ttl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,69 @@
+package com.bu.getactivecore.service.security;
+
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bu.getactivecore.model.users.UserPrincipal;
+import com.bu.getactivecore.shared.cache.BoundedCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Size-bounded, expiring cache of {@link UserPrincipal}s keyed by username.
+ * <p>
+ * Lets authenticated requests skip the user lookup. Any code that changes data
+ * carried by the principal must call {@link #invalidate(String)} so the next
+ * request reloads it.
+ */
+@Slf4j
+@Component
+public class UserPrincipalCache {
+
+	private final BoundedCache<String, UserPrincipal> m_cache;
+
+	/**
+	 * Constructs the cache and registers its hit, miss and eviction counters.
+	 *
+	 * @param properties    size and TTL of the cache
+	 * @param meterRegistry used to publish cache statistics
+	 */
+	public UserPrincipalCache(PrincipalCacheProperties properties, MeterRegistry meterRegistry) {
+		m_cache = new BoundedCache<>(properties.getMaxSize(), properties.getTtl());
+		m_cache.bindTo(meterRegistry, "principals");
+	}
+
+	/**
+	 * Returns the cached principal, loading it on a miss.
+	 *
+	 * @param username the username to look up
+	 * @param loader   used to load the principal when it is not cached
+	 * @return the principal
+	 */
+	public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+		return m_cache.get(username, loader);
+	}
+
+	/**
+	 * Drops the cached principal for the given user. When called inside a
+	 * transaction the entry is dropped again after commit, so a request that read
+	 * the old row before the commit cannot leave a stale principal behind.
+	 *
+	 * @param username the user whose principal changed
+	 */
+	public void invalidate(String username) {
+		log.debug("Invalidating cached principal for user '{}'", username);
+		m_cache.invalidate(username);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					m_cache.invalidate(username);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.bu.getactivecore.service.token;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bu.getactivecore.service.token.api.TokenApi;
+import com.bu.getactivecore.service.token.entity.TokenPairDto;
+import com.bu.getactivecore.service.token.entity.TokenRefreshRequestDto;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entry point for session token related requests.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/v1")
+public class TokenController {
+
+	private final TokenApi m_tokenApi;
+
+	/**
+	 * Constructs the TokenController.
+	 *
+	 * @param tokenApi used to renew session tokens
+	 */
+	public TokenController(TokenApi tokenApi) {
+		m_tokenApi = tokenApi;
+	}
+
+	@PostMapping(path = "/token/refresh", consumes = "application/json")
+	public TokenPairDto refreshToken(@Valid @RequestBody TokenRefreshRequestDto requestDto) throws ApiException {
+		log.debug("Got request at /token/refresh");
+		return m_tokenApi.refresh(requestDto);
+	}
+}
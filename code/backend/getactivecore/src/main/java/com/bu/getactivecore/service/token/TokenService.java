@@ -0,0 +1,139 @@
+package com.bu.getactivecore.service.token;
+
+import static com.bu.getactivecore.shared.ErrorCode.TOKEN_EXPIRED;
+import static com.bu.getactivecore.shared.ErrorCode.TOKEN_INVALID;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bu.getactivecore.model.token.RefreshTokenFamily;
+import com.bu.getactivecore.repository.RefreshTokenFamilyRepository;
+import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.jwt.api.JwtApi.TokenClaimType;
+import com.bu.getactivecore.service.jwt.entity.VerifiedToken;
+import com.bu.getactivecore.service.token.api.TokenApi;
+import com.bu.getactivecore.service.token.entity.TokenPairDto;
+import com.bu.getactivecore.service.token.entity.TokenRefreshRequestDto;
+import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.ErrorCode;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Issues access tokens together with rotating refresh tokens.
+ * <p>
+ * Every login starts a token family. Each refresh consumes the presented
+ * refresh token and replaces it with a new one through a conditional update, so
+ * renewing a session costs a signature check and a single-row write instead of
+ * a password hash. Presenting a refresh token that was already rotated out is
+ * treated as theft and revokes the family, logging out both the attacker and
+ * the legitimate client.
+ */
+@Slf4j
+@Service
+public class TokenService implements TokenApi {
+
+	private final JwtApi m_jwtApi;
+
+	private final RefreshTokenFamilyRepository m_familyRepo;
+
+	/**
+	 * Constructs the TokenService.
+	 *
+	 * @param jwtApi     used to sign and verify tokens
+	 * @param familyRepo used to store the current token of each family
+	 */
+	public TokenService(JwtApi jwtApi, RefreshTokenFamilyRepository familyRepo) {
+		m_jwtApi = jwtApi;
+		m_familyRepo = familyRepo;
+	}
+
+	@Override
+	@Transactional
+	public TokenPairDto issueTokens(String username) {
+		String familyId = UUID.randomUUID().toString();
+		String tokenId = UUID.randomUUID().toString();
+		m_familyRepo.save(RefreshTokenFamily.builder().familyId(familyId).username(username).currentTokenId(tokenId)
+				.expiresAt(nextExpiration()).build());
+		return new TokenPairDto(m_jwtApi.generateToken(username),
+				m_jwtApi.generateRefreshToken(username, familyId, tokenId));
+	}
+
+	@Override
+	@Transactional(noRollbackFor = ApiException.class)
+	public TokenPairDto refresh(TokenRefreshRequestDto requestDto) throws ApiException {
+		VerifiedToken token = verifyRefreshToken(requestDto.getRefreshToken());
+		String familyId = token.getClaim(JwtApi.TOKEN_FAMILY_KEY);
+		String nextTokenId = UUID.randomUUID().toString();
+
+		int rotated = m_familyRepo.rotate(familyId, token.getId(), nextTokenId, LocalDateTime.now(),
+				nextExpiration());
+		if (rotated != 1) {
+			// Either the family is gone, or an already rotated token was replayed. In both
+			// cases nobody should be able to continue this session.
+			m_familyRepo.revoke(familyId);
+			log.warn("Refresh token reuse or revoked family detected for user '{}', family '{}' revoked",
+					token.getUsername(), familyId);
+			throw unauthorized(TOKEN_INVALID, "Refresh token is no longer valid",
+					"Token '" + token.getId() + "' is not the current token of family '" + familyId + "'");
+		}
+		return new TokenPairDto(m_jwtApi.generateToken(token.getUsername()),
+				m_jwtApi.generateRefreshToken(token.getUsername(), familyId, nextTokenId));
+	}
+
+	/**
+	 * Periodically drops token families that expired, keeping the store compact.
+	 */
+	@Scheduled(fixedDelayString = "${jwt.token.family-cleanup-interval-ms:3600000}")
+	@Transactional
+	public void deleteExpiredFamilies() {
+		int deleted = m_familyRepo.deleteExpired(LocalDateTime.now());
+		if (deleted > 0) {
+			log.debug("Deleted {} expired refresh token families", deleted);
+		}
+	}
+
+	/**
+	 * Verifies the signature and type of a refresh token.
+	 *
+	 * @param refreshToken the presented token
+	 * @return the verified token
+	 * @throws ApiException if the token is not a valid refresh token
+	 */
+	private VerifiedToken verifyRefreshToken(String refreshToken) throws ApiException {
+		VerifiedToken token;
+		try {
+			token = m_jwtApi.verify(refreshToken);
+		} catch (ExpiredJwtException e) {
+			throw unauthorized(TOKEN_EXPIRED, "Refresh token has expired",
+					"Token expired at " + e.getClaims().getExpiration());
+		} catch (JwtException e) {
+			throw unauthorized(TOKEN_INVALID, "Invalid refresh token provided", e.getMessage());
+		}
+		if (token.getClaimType() != TokenClaimType.REFRESH || token.getId() == null
+				|| token.getClaim(JwtApi.TOKEN_FAMILY_KEY) == null) {
+			throw unauthorized(TOKEN_INVALID, "Invalid refresh token provided",
+					"Only tokens with type '" + TokenClaimType.REFRESH.name() + "' can be refreshed");
+		}
+		return token;
+	}
+
+	private LocalDateTime nextExpiration() {
+		return LocalDateTime.now().plus(Duration.ofMillis(m_jwtApi.getRefreshExpirationMs()));
+	}
+
+	private static ApiException unauthorized(ErrorCode errorCode, String message, String debugMessage) {
+		ApiErrorPayload error = ApiErrorPayload.builder().status(UNAUTHORIZED).errorCode(errorCode).message(message)
+				.debugMessage(debugMessage).build();
+		return new ApiException(error);
+	}
+}
@@ -0,0 +1,31 @@
+package com.bu.getactivecore.service.token.api;
+
+import com.bu.getactivecore.service.token.entity.TokenPairDto;
+import com.bu.getactivecore.service.token.entity.TokenRefreshRequestDto;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+/**
+ * Interface for issuing and renewing session tokens.
+ */
+public interface TokenApi {
+
+	/**
+	 * Starts a new session for an already authenticated user by issuing an access
+	 * token and the first refresh token of a new token family.
+	 *
+	 * @param username the authenticated user
+	 * @return the issued token pair
+	 */
+	TokenPairDto issueTokens(String username);
+
+	/**
+	 * Exchanges a refresh token for a new token pair. The presented refresh token
+	 * is consumed; presenting it again revokes the whole token family.
+	 *
+	 * @param requestDto containing the refresh token
+	 * @return the new token pair
+	 * @throws ApiException if the refresh token is invalid, expired, revoked or was
+	 *                      already used
+	 */
+	TokenPairDto refresh(TokenRefreshRequestDto requestDto) throws ApiException;
+}
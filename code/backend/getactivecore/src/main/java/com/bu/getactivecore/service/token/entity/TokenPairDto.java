@@ -0,0 +1,20 @@
+package com.bu.getactivecore.service.token.entity;
+
+import lombok.Value;
+
+/**
+ * A short-lived access token together with the refresh token that can renew it.
+ */
+@Value
+public class TokenPairDto {
+
+	/**
+	 * The JWT access token to include in the Authorization header.
+	 */
+	String token;
+
+	/**
+	 * The single-use refresh token to exchange for the next token pair.
+	 */
+	String refreshToken;
+}
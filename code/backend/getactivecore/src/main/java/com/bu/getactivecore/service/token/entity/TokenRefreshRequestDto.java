@@ -0,0 +1,17 @@
+package com.bu.getactivecore.service.token.entity;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Value;
+
+/**
+ * Request DTO for exchanging a refresh token for a new token pair.
+ */
+@Value
+public class TokenRefreshRequestDto {
+
+	/**
+	 * The refresh token received from the last login or refresh.
+	 */
+	@NotBlank(message = "Refresh token cannot be blank")
+	String refreshToken;
+}
@@ -15,6 +15,7 @@ import com.bu.getactivecore.service.users.entity.LoginRequestDto;
 import com.bu.getactivecore.service.users.entity.LoginResponseDto;
 import com.bu.getactivecore.shared.exception.ApiException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,16 +39,17 @@ public class UsersController {
 	}
 
     @PostMapping(path = "/login", consumes = "application/json")
-    public LoginResponseDto loginUser(@Valid @RequestBody LoginRequestDto loginUserDto) throws ApiException {
+    public LoginResponseDto loginUser(@Valid @RequestBody LoginRequestDto loginUserDto, HttpServletRequest request)
+            throws ApiException {
         log.debug("Got request at /login");
-        return m_userInfoApi.loginUser(loginUserDto);
+        return m_userInfoApi.loginUser(loginUserDto, request.getRemoteAddr());
     }
 
     @PutMapping(path = "/avatar", consumes = "application/json")
     public UpdateAvatarResponseDto updateAvatar(@AuthenticationPrincipal UserPrincipal user,
             @Valid @RequestBody UpdateAvatarRequestDto requestDto) throws ApiException {
         log.debug("Got request at /avatar");
-        String username = user.getUserDto().getUsername();
+        String username = user.getUsername();
         return m_userInfoApi.updateAvatar(username, requestDto);
     }
 }
\ No newline at end of file
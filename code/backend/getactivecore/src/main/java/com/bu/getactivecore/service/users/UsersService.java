@@ -16,7 +16,10 @@ import org.springframework.transaction.annotation.Transactional;
 import com.bu.getactivecore.model.users.UserPrincipal;
 import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.UserRepository;
-import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.security.LoginRateLimiter;
+import com.bu.getactivecore.service.security.UserPrincipalCache;
+import com.bu.getactivecore.service.token.api.TokenApi;
+import com.bu.getactivecore.service.token.entity.TokenPairDto;
 import com.bu.getactivecore.service.users.api.UserInfoApi;
 import com.bu.getactivecore.service.users.entity.*;
 import com.bu.getactivecore.shared.ApiErrorPayload;
@@ -38,32 +41,56 @@ public class UsersService implements UserInfoApi {
 
 	private final AuthenticationManager m_authManager;
 
-	private final JwtApi m_jwtApi;
+	private final TokenApi m_tokenApi;
 
 	private final AccountStateChecker m_accountStateChecker;
 
     private final UserRepository m_userRepo;
 
+	private final UserPrincipalCache m_principalCache;
+
+	private final LoginRateLimiter m_loginRateLimiter;
+
     private static final int MAX_AVATAR_SIZE = 3 * 1024 * 1024; // 3MB in bytes
 
 	/**
 	 * Constructor for UsersService.
 	 *
-	 * @param authManager used for login operations
+	 * @param authManager      used for login operations
+	 * @param tokenApi         used to issue the access and refresh tokens
+	 * @param principalCache   invalidated when user data carried by the principal
+	 *                         changes
+	 * @param loginRateLimiter rejects logins from locked out IPs or usernames
+	 *                         before any password is verified
 	 */
-	public UsersService(AuthenticationManager authManager, JwtApi jwtApi, AccountStateChecker accountStateChecker, UserRepository userRepo) {
+	public UsersService(AuthenticationManager authManager, TokenApi tokenApi, AccountStateChecker accountStateChecker, UserRepository userRepo,
+			UserPrincipalCache principalCache, LoginRateLimiter loginRateLimiter) {
 		m_authManager = authManager;
-		m_jwtApi = jwtApi;
+		m_tokenApi = tokenApi;
 		m_accountStateChecker = accountStateChecker;
 		m_userRepo = userRepo;
+		m_principalCache = principalCache;
+		m_loginRateLimiter = loginRateLimiter;
 	}
 
 	@Override
-	public LoginResponseDto loginUser(LoginRequestDto requestDto) {
+	public LoginResponseDto loginUser(LoginRequestDto requestDto, String clientIp) {
+		// Reject locked out clients before paying for a password hash, and reserve the
+		// attempt so that parallel attempts are counted while hashing
+		m_loginRateLimiter.checkAllowed(clientIp, requestDto.getUsername());
+
 		// Given unauthenticated credentials, use the authentication manager to
 		// authenticate the user
-		Authentication authentication = m_authManager.authenticate(
-				new UsernamePasswordAuthenticationToken(requestDto.getUsername(), requestDto.getPassword()));
+		Authentication authentication;
+		try {
+			authentication = m_authManager.authenticate(
+					new UsernamePasswordAuthenticationToken(requestDto.getUsername(), requestDto.getPassword()));
+		} catch (RuntimeException e) {
+			// Anything but a successful authentication counts, so no reservation is left behind
+			m_loginRateLimiter.recordFailure(clientIp, requestDto.getUsername());
+			throw e;
+		}
+		m_loginRateLimiter.recordSuccess(clientIp, requestDto.getUsername());
         
         // If authentication is successful, the user is logged in
         if (!authentication.isAuthenticated()) {
@@ -75,9 +102,27 @@ public class UsersService implements UserInfoApi {
         // Only verified users can access resources
         m_accountStateChecker.assertVerified(authentication);
 
-        String token = m_jwtApi.generateToken(requestDto.getUsername());
-        UserDto userDto = ((UserPrincipal) authentication.getPrincipal()).getUserDto();
-        return new LoginResponseDto(token, userDto.getUsername(), userDto.getEmail(), userDto.getAvatar(), userDto.getAvatarUpdatedAt());
+        TokenPairDto tokens = m_tokenApi.issueTokens(requestDto.getUsername());
+        UserDto userDto = loadProfile(((UserPrincipal) authentication.getPrincipal()).getUsername());
+        return new LoginResponseDto(tokens.getToken(), tokens.getRefreshToken(), userDto.getUsername(), userDto.getEmail(), userDto.getAvatar(), userDto.getAvatarUpdatedAt());
+    }
+
+    /**
+     * Loads the full profile of a user. The security principal only carries
+     * credentials, so profile data such as the email and avatar is read here on
+     * demand.
+     *
+     * @param username the user whose profile to load
+     * @return the profile of the user
+     * @throws ApiException if the user no longer exists
+     */
+    private UserDto loadProfile(String username) throws ApiException {
+        return m_userRepo.findByUsername(username).map(UserDto::of).orElseThrow(() -> {
+            ApiErrorPayload error = ApiErrorPayload.builder().status(NOT_FOUND).errorCode(WRONG_CREDENTIALS)
+                    .message("User not found")
+                    .build();
+            return new ApiException(error);
+        });
     }
 
     @Override
@@ -105,6 +150,7 @@ public class UsersService implements UserInfoApi {
         user.setAvatar(requestDto.getAvatarData());
         user.setAvatarUpdatedAt(LocalDateTime.now());
         m_userRepo.save(user);
+        m_principalCache.invalidate(username);
 
         return new UpdateAvatarResponseDto(
             user.getAvatar(),
@@ -13,10 +13,13 @@ public interface UserInfoApi {
 	/**
 	 * Authenticates a user with the given login credentials.
 	 *
-	 * @param userDto Data Transfer Object containing login credentials.
+	 * @param userDto  Data Transfer Object containing login credentials.
+	 * @param clientIp Address of the client, used to rate limit failed attempts.
 	 * @return {@link LoginResponseDto} containing authentication token on success.
+	 * @throws ApiException with status 429 if the client IP or username is locked
+	 *                      out after too many failed attempts.
 	 */
-	LoginResponseDto loginUser(LoginRequestDto userDto);
+	LoginResponseDto loginUser(LoginRequestDto userDto, String clientIp) throws ApiException;
 
     /**
      * Updates the avatar of the authenticated user.
@@ -15,6 +15,12 @@ public class LoginResponseDto {
      * access protected resources.
      */
     String token;
+
+    /**
+     * The single-use refresh token which can be exchanged at {@code /v1/token/refresh} for a new token pair once the
+     * access token expires, without logging in again.
+     */
+    String refreshToken;
     String username;
     String email;
     String avatar;
@@ -0,0 +1,36 @@
+package com.bu.getactivecore.service.users.entity;
+
+import com.bu.getactivecore.model.users.AccountState;
+
+import lombok.Value;
+
+/**
+ * Minimal view of a user needed for authentication.
+ * <p>
+ * Loaded through a projection query so that large profile columns such as the
+ * avatar are never read for security checks. For internal use only, not to be
+ * exposed in public APIs.
+ */
+@Value
+public class UserCredentialsDto {
+
+	/**
+	 * UUID of the user.
+	 */
+	String userId;
+
+	/**
+	 * The username of the user.
+	 */
+	String username;
+
+	/**
+	 * The encoded password of the user.
+	 */
+	String password;
+
+	/**
+	 * The state of this user's account.
+	 */
+	AccountState accountState;
+}
@@ -0,0 +1,21 @@
+package com.bu.getactivecore.service.users.entity;
+
+import lombok.Value;
+
+/**
+ * The unique identifiers of a user, used to tell which of them is already taken
+ * when registering. For internal use only, not to be exposed in public APIs.
+ */
+@Value
+public class UserIdentityDto {
+
+	/**
+	 * The email of the user.
+	 */
+	String email;
+
+	/**
+	 * The username of the user.
+	 */
+	String username;
+}
@@ -55,4 +55,10 @@ public final class ApiErrorPayload {
 	 * Detailed debug message, typically exception details.
 	 */
 	private String debugMessage;
+
+	/**
+	 * Number of seconds after which the client may retry the request, if the
+	 * error is transient. Also sent as the {@code Retry-After} header.
+	 */
+	private Long retryAfterSeconds;
 }
\ No newline at end of file
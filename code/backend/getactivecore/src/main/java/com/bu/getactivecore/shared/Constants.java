@@ -6,8 +6,8 @@ package com.bu.getactivecore.shared;
 public class Constants {
 
 	/**
-	 * The BCrypt password encoder strength, which is used during encoding and
-	 * decoding of password.
+	 * The lowest BCrypt strength passwords are ever hashed with, regardless of how
+	 * slow the host is or what the configuration asks for.
 	 */
-	public static final int PASSWORD_ENCODER_STRENGTH = 12;
+	public static final int MIN_PASSWORD_ENCODER_STRENGTH = 10;
 }
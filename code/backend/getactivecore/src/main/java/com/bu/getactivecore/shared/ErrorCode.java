@@ -5,6 +5,7 @@ package com.bu.getactivecore.shared;
  */
 public enum ErrorCode {
 
+	ACTIVITY_MODIFIED("ACTIVITY_MODIFIED", "The activity was modified by someone else, reload it and retry"),
 	DATA_STRUCTURE_INVALID("DATA_STRUCTURE_INVALID", "The requested data structure is invalid"),
 	EMAIL_INVALID("EMAIL_INVALID", "The provided email address is invalid"),
 	EMAIL_SEND_FAILED("EMAIL_SEND_FAILED", "Failed to send verification email"),
@@ -13,6 +14,8 @@ public enum ErrorCode {
 	INTERNAL_SERVER_ERROR("INTERNAL_SERVER_ERROR", "An unexpected error occurred"),
 	PARTICIPANTS_PRESENT("PARTICIPANTS_PRESENT", "The activity has participants and cannot be deleted"),
 	RESOURCE_ACCESS_DENIED("RESOURCE_ACCESS_DENIED", "Access to the requested resource is denied"),
+	SERVICE_BUSY("SERVICE_BUSY", "The service is temporarily overloaded, please retry later"),
+	TOO_MANY_REQUESTS("TOO_MANY_REQUESTS", "Too many attempts, please retry later"),
 	TOKEN_EXPIRED("TOKEN_EXPIRED", "The provided token has expired"),
 	TOKEN_INVALID("TOKEN_INVALID", "The provided token is invalid"),
 	UNKNOWN_ACCOUNT_STATE("UNKNOWN_ACCOUNT_STATE", "This account state is not handled by the application"),
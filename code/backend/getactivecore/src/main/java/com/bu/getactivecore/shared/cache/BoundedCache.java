@@ -0,0 +1,263 @@
+package com.bu.getactivecore.shared.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Small in-process cache with a maximum number of entries and a time-to-live.
+ * <p>
+ * Entries are evicted in least-recently-used order once {@code maxSize} is
+ * reached and are treated as absent once their TTL has elapsed. Values loaded
+ * concurrently with an invalidation are not stored, so an explicit
+ * {@link #invalidate(Object)} can never be undone by a slow loader.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedCache<K, V> {
+
+	private final int m_maxSize;
+
+	private final long m_ttlNanos;
+
+	private final LinkedHashMap<K, Entry<V>> m_entries;
+
+	/**
+	 * Bumped on every invalidation, used to discard values loaded before it.
+	 */
+	private final AtomicLong m_generation = new AtomicLong();
+
+	private final LongAdder m_hits = new LongAdder();
+
+	private final LongAdder m_misses = new LongAdder();
+
+	private final LongAdder m_evictions = new LongAdder();
+
+	/**
+	 * Constructs a cache.
+	 *
+	 * @param maxSize maximum number of entries kept
+	 * @param ttl     how long an entry stays valid after being stored
+	 */
+	public BoundedCache(int maxSize, Duration ttl) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive, got " + maxSize);
+		}
+		m_maxSize = maxSize;
+		m_ttlNanos = ttl.toNanos();
+		m_entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				if (size() > m_maxSize) {
+					m_evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached value for the key, loading and storing it on a miss.
+	 * Null values returned by the loader are not cached.
+	 *
+	 * @param key    the key to look up
+	 * @param loader used to compute the value when it is not cached
+	 * @return the cached or freshly loaded value, possibly null
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		return get(key, loader, value -> null);
+	}
+
+	/**
+	 * Same as {@link #get(Object, Function)}, letting the TTL depend on the
+	 * loaded value, for example to keep negative results for a shorter time.
+	 *
+	 * @param key    the key to look up
+	 * @param loader used to compute the value when it is not cached
+	 * @param ttl    how long a loaded value stays valid, null for the default
+	 * @return the cached or freshly loaded value, possibly null
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader, Function<? super V, Duration> ttl) {
+		V cached = getIfPresent(key);
+		if (cached != null) {
+			return cached;
+		}
+		long generation = m_generation.get();
+		V loaded = loader.apply(key);
+		if (loaded != null) {
+			Duration valueTtl = ttl.apply(loaded);
+			putIfGeneration(key, loaded, valueTtl == null ? m_ttlNanos : valueTtl.toNanos(), generation);
+		}
+		return loaded;
+	}
+
+	/**
+	 * Returns the cached value for the key, atomically storing the one created by
+	 * the factory if there is none or it expired. Unlike
+	 * {@link #get(Object, Function)}, concurrent callers always get the same
+	 * value, which suits mutable per-key state such as counters. The TTL of the
+	 * entry restarts on every call so that state still in use does not expire.
+	 * The factory runs under the cache lock and must be cheap.
+	 *
+	 * @param key     the key to look up
+	 * @param factory used to create the value when it is not cached, must not
+	 *                return null
+	 * @return the cached or newly created value
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+		synchronized (m_entries) {
+			long now = System.nanoTime();
+			Entry<V> entry = m_entries.get(key);
+			V value;
+			if (entry != null && entry.expiresAt - now > 0) {
+				m_hits.increment();
+				value = entry.value;
+			} else {
+				if (entry != null) {
+					m_evictions.increment();
+				}
+				m_misses.increment();
+				value = Objects.requireNonNull(factory.apply(key), "Cache factory returned null");
+			}
+			m_entries.put(key, new Entry<>(value, now + m_ttlNanos));
+			return value;
+		}
+	}
+
+	/**
+	 * Returns the cached value without loading it, counting a hit or a miss.
+	 *
+	 * @param key the key to look up
+	 * @return the cached value, or null if absent or expired
+	 */
+	public V getIfPresent(K key) {
+		synchronized (m_entries) {
+			Entry<V> entry = m_entries.get(key);
+			if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+				m_hits.increment();
+				return entry.value;
+			}
+			if (entry != null) {
+				m_entries.remove(key);
+				m_evictions.increment();
+			}
+		}
+		m_misses.increment();
+		return null;
+	}
+
+	/**
+	 * Stores a value using the default TTL.
+	 *
+	 * @param key   the key
+	 * @param value the value
+	 */
+	public void put(K key, V value) {
+		put(key, value, Duration.ofNanos(m_ttlNanos));
+	}
+
+	/**
+	 * Stores a value with a custom TTL.
+	 *
+	 * @param key   the key
+	 * @param value the value
+	 * @param ttl   how long the value stays valid
+	 */
+	public void put(K key, V value, Duration ttl) {
+		synchronized (m_entries) {
+			m_entries.put(key, new Entry<>(value, System.nanoTime() + ttl.toNanos()));
+		}
+	}
+
+	private void putIfGeneration(K key, V value, long ttlNanos, long generation) {
+		synchronized (m_entries) {
+			if (m_generation.get() == generation) {
+				m_entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry for the key, if any.
+	 *
+	 * @param key the key to remove
+	 */
+	public void invalidate(K key) {
+		synchronized (m_entries) {
+			m_generation.incrementAndGet();
+			m_entries.remove(key);
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void invalidateAll() {
+		synchronized (m_entries) {
+			m_generation.incrementAndGet();
+			m_entries.clear();
+		}
+	}
+
+	/**
+	 * @return the number of entries currently held, including expired entries
+	 *         that have not been evicted yet
+	 */
+	public int size() {
+		synchronized (m_entries) {
+			return m_entries.size();
+		}
+	}
+
+	/**
+	 * @return the number of lookups that found a valid entry
+	 */
+	public long hitCount() {
+		return m_hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that found no valid entry
+	 */
+	public long missCount() {
+		return m_misses.sum();
+	}
+
+	/**
+	 * @return the number of entries removed because of size or expiration
+	 */
+	public long evictionCount() {
+		return m_evictions.sum();
+	}
+
+	/**
+	 * Registers the cache statistics with the given registry using the
+	 * {@code cache.*} meter names, tagged with {@code cache=<name>}.
+	 *
+	 * @param registry the registry to register with
+	 * @param name     the cache name used as tag value
+	 */
+	public void bindTo(MeterRegistry registry, String name) {
+		FunctionCounter.builder("cache.gets", this, BoundedCache::hitCount).tag("cache", name).tag("result", "hit")
+				.description("Number of cache lookups that found a valid entry").register(registry);
+		FunctionCounter.builder("cache.gets", this, BoundedCache::missCount).tag("cache", name).tag("result", "miss")
+				.description("Number of cache lookups that found no valid entry").register(registry);
+		FunctionCounter.builder("cache.evictions", this, BoundedCache::evictionCount).tag("cache", name)
+				.description("Number of entries evicted because of size or expiration").register(registry);
+		Gauge.builder("cache.size", this, BoundedCache::size).tag("cache", name)
+				.description("Number of entries held by the cache").register(registry);
+	}
+
+	private record Entry<V>(V value, long expiresAt) {
+	}
+}
@@ -0,0 +1,46 @@
+package com.bu.getactivecore.shared.entity;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+
+/**
+ * A generic data transfer object representing one page of a cursor (keyset)
+ * paginated response.
+ * <p>
+ * Unlike {@link PaginatedResponse} no total count is computed. Clients follow
+ * the opaque {@code nextCursor} and {@code previousCursor} values instead of
+ * page numbers, so every page costs the same no matter how deep it is.
+ * </p>
+ *
+ * @param <T> the type of data contained in the page content
+ */
+@Value
+@Builder
+@NoArgsConstructor(force = true)
+@AllArgsConstructor
+public class CursorPage<T> {
+
+	/**
+	 * The content items of the current page.
+	 */
+	List<T> content;
+
+	/**
+	 * The maximum number of items per page.
+	 */
+	int size;
+
+	/**
+	 * Cursor of the following page (null if this is the last page).
+	 */
+	String nextCursor;
+
+	/**
+	 * Cursor of the preceding page (null if this is the first page).
+	 */
+	String previousCursor;
+}
@@ -7,7 +7,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import com.bu.getactivecore.model.users.UserPrincipal;
-import com.bu.getactivecore.service.users.entity.UserDto;
 import com.bu.getactivecore.shared.ApiErrorPayload;
 import com.bu.getactivecore.shared.ErrorCode;
 import com.bu.getactivecore.shared.exception.AccountVerificationException;
@@ -33,8 +32,8 @@ public class AccountStateChecker {
 	 */
 	public boolean assertVerified(Authentication authentication)
 			throws AccountVerificationException, ApiInternalException {
-		UserDto userDto = ((UserPrincipal) authentication.getPrincipal()).getUserDto();
-		switch (userDto.getAccountState()) {
+		UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+		switch (principal.getAccountState()) {
 		case UNVERIFIED -> {
 			ApiErrorPayload error = ApiErrorPayload.builder().errorCode(ErrorCode.VERIFIED_ACCOUNT_REQUIRED)
 					.message("User account is not verified")
@@ -45,8 +44,8 @@ public class AccountStateChecker {
 			return true;
 		}
 		default -> {
-			log.error("Unexpected account state {} of user {}", userDto.getAccountState(), userDto);
-			throw new ApiInternalException("Account is in unexpected state " + userDto.getAccountState());
+			log.error("Unexpected account state {} of user {}", principal.getAccountState(), principal.getUsername());
+			throw new ApiInternalException("Account is in unexpected state " + principal.getAccountState());
 		}
 		}
 	}
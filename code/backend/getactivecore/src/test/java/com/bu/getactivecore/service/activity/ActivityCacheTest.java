@@ -0,0 +1,73 @@
+package com.bu.getactivecore.service.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ActivityCacheTest {
+
+	private final Map<String, Activity> database = new HashMap<>();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private MeterRegistry meterRegistry;
+
+	private ActivityCache cache;
+
+	@BeforeEach
+	void setUp() {
+		database.put("1", Activity.builder().id("1").name("Yoga").build());
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new ActivityCache(new ActivityCacheProperties(), meterRegistry);
+	}
+
+	private Optional<ActivityDto> get(String id) {
+		return cache.get(id, key -> {
+			loads.incrementAndGet();
+			return Optional.ofNullable(database.get(key));
+		});
+	}
+
+	@Test
+	void given_repeated_lookups_then_database_is_read_once() {
+		assertEquals("Yoga", get("1").orElseThrow().getName());
+		assertEquals("Yoga", get("1").orElseThrow().getName());
+		assertEquals(1, loads.get());
+		assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", "activities").gauge().value());
+	}
+
+	@Test
+	void given_unknown_id_then_absence_is_cached() {
+		assertTrue(get("missing").isEmpty());
+		assertTrue(get("missing").isEmpty());
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void given_changes_then_they_are_written_through() {
+		assertTrue(get("2").isEmpty());
+		cache.onActivityChanged(ActivityChangedEvent.created(ActivityDto.builder().id("2").name("Hike").build()));
+		assertEquals("Hike", get("2").orElseThrow().getName());
+
+		cache.onActivityChanged(ActivityChangedEvent.updated(ActivityDto.builder().id("2").name("Trail").build()));
+		assertEquals("Trail", get("2").orElseThrow().getName());
+
+		cache.onActivityChanged(ActivityChangedEvent.deleted("1"));
+		assertTrue(get("1").isEmpty());
+		assertEquals(1, loads.get(), "Only the first unknown lookup reaches the database");
+	}
+}
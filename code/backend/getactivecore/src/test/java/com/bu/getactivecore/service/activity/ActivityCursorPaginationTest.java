@@ -0,0 +1,153 @@
+package com.bu.getactivecore.service.activity;
+
+import static java.time.LocalDateTime.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.bu.getactivecore.config.JavaGmailMailConfig;
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.api.ActivityApi;
+import com.bu.getactivecore.service.activity.entity.ActivityCursor;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.email.EmailVerificationService;
+import com.bu.getactivecore.shared.entity.CursorPage;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+@SpringBootTest
+class ActivityCursorPaginationTest {
+
+	private static final int ACTIVITY_COUNT = 23;
+
+	private static final int PAGE_SIZE = 5;
+
+	@MockitoBean
+	private CommandLineRunner demoPreloadData;
+
+	@MockitoBean
+	private EmailVerificationService emailVerificationService;
+
+	@MockitoBean
+	private JavaGmailMailConfig javaGmailMailConfig;
+
+	@Autowired
+	private ActivityApi activityApi;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	private List<Activity> activities;
+
+	@BeforeEach
+	void setup() {
+		LocalDateTime start = now().plusDays(1).withNano(0);
+		activities = new ArrayList<>();
+		for (int i = 0; i < ACTIVITY_COUNT; i++) {
+			// Few distinct start times and counts so the id has to break ties
+			activities.add(activityRepository.save(Activity.builder().name("Activity " + i).location("moon")
+					.startDateTime(start.plusHours(i % 4)).endDateTime(start.plusHours(5)).participantCount(i % 3)
+					.build()));
+		}
+	}
+
+	@AfterEach
+	void cleanup() {
+		activityRepository.deleteAll();
+	}
+
+	private List<String> scrollForward(ActivityCursor first) {
+		List<String> ids = new ArrayList<>();
+		CursorPage<ActivityDto> page = activityApi.getActivities(first, PAGE_SIZE);
+		assertNull(page.getPreviousCursor(), "The first page has no previous page");
+		while (true) {
+			assertTrue(page.getContent().size() <= PAGE_SIZE);
+			page.getContent().forEach(activity -> ids.add(activity.getId()));
+			if (page.getNextCursor() == null) {
+				return ids;
+			}
+			page = activityApi.getActivities(ActivityCursor.decode(page.getNextCursor()), PAGE_SIZE);
+		}
+	}
+
+	private List<String> expectedIds(Comparator<Activity> order) {
+		return activities.stream().sorted(order.thenComparing(Activity::getId)).map(Activity::getId).toList();
+	}
+
+	@Test
+	void given_id_sort_then_pages_cover_all_activities_in_order() {
+		assertEquals(expectedIds((a, b) -> 0), scrollForward(ActivityCursor.first("id", true)));
+	}
+
+	@Test
+	void given_start_time_sort_then_pages_cover_all_activities_in_order() {
+		assertEquals(expectedIds(Comparator.comparing(Activity::getStartDateTime)),
+				scrollForward(ActivityCursor.first("startDateTime", true)));
+
+		List<String> descending = new ArrayList<>(expectedIds(Comparator.comparing(Activity::getStartDateTime)));
+		Collections.reverse(descending);
+		assertEquals(descending, scrollForward(ActivityCursor.first("startDateTime", false)));
+	}
+
+	@Test
+	void given_popularity_sort_then_pages_cover_all_activities_most_popular_first() {
+		List<String> expected = new ArrayList<>(expectedIds(Comparator.comparing(Activity::getParticipantCount)));
+		Collections.reverse(expected);
+		assertEquals(expected, scrollForward(ActivityCursor.first("popularity", true)));
+	}
+
+	@Test
+	void given_previous_cursor_then_preceding_page_is_returned() {
+		CursorPage<ActivityDto> first = activityApi.getActivities(ActivityCursor.first("startDateTime", true),
+				PAGE_SIZE);
+		CursorPage<ActivityDto> second = activityApi.getActivities(ActivityCursor.decode(first.getNextCursor()),
+				PAGE_SIZE);
+		CursorPage<ActivityDto> back = activityApi.getActivities(ActivityCursor.decode(second.getPreviousCursor()),
+				PAGE_SIZE);
+
+		assertEquals(first.getContent().stream().map(ActivityDto::getId).toList(),
+				back.getContent().stream().map(ActivityDto::getId).toList());
+		assertNull(back.getPreviousCursor(), "Going back to the first page should not offer a previous page");
+		assertEquals(second.getContent().stream().map(ActivityDto::getId).toList(),
+				activityApi.getActivities(ActivityCursor.decode(back.getNextCursor()), PAGE_SIZE).getContent()
+						.stream().map(ActivityDto::getId).toList());
+	}
+
+	@Test
+	void given_name_filter_then_only_matching_activities_are_scrolled() {
+		CursorPage<ActivityDto> page = activityApi.getActivityByName("Activity 1", ActivityCursor.first("id", true),
+				PAGE_SIZE);
+		List<String> names = new ArrayList<>();
+		while (true) {
+			page.getContent().forEach(activity -> names.add(activity.getName()));
+			if (page.getNextCursor() == null) {
+				break;
+			}
+			page = activityApi.getActivityByName("Activity 1", ActivityCursor.decode(page.getNextCursor()), PAGE_SIZE);
+		}
+		// Activity 1 and Activity 10 to 19
+		assertEquals(11, names.size());
+		assertTrue(names.stream().allMatch(name -> name.startsWith("Activity 1")));
+	}
+
+	@Test
+	void given_malformed_cursor_or_sort_then_request_is_rejected() {
+		assertThrows(ApiException.class, () -> ActivityCursor.decode("not a cursor"));
+		assertThrows(ApiException.class, () -> ActivityCursor.first("name", true));
+	}
+}
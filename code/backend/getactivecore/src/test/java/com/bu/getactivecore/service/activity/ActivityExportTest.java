@@ -0,0 +1,104 @@
+package com.bu.getactivecore.service.activity;
+
+import static java.time.LocalDateTime.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.bu.getactivecore.config.JavaGmailMailConfig;
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.email.EmailVerificationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActivityExportTest {
+
+	/**
+	 * More than two fetches, so that the persistence context is cleared between
+	 * batches while the export goes on.
+	 */
+	private static final int ACTIVITY_COUNT = ActivityRepository.STREAM_FETCH_SIZE * 2 + 1;
+
+	@MockitoBean
+	private CommandLineRunner demoPreloadData;
+
+	@MockitoBean
+	private EmailVerificationService emailVerificationService;
+
+	@MockitoBean
+	private JavaGmailMailConfig javaGmailMailConfig;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private List<String> activityIds;
+
+	@BeforeEach
+	void setup() {
+		LocalDateTime start = now().plusDays(1).withNano(0);
+		List<Activity> activities = new ArrayList<>();
+		for (int i = 0; i < ACTIVITY_COUNT; i++) {
+			activities.add(Activity.builder().name("Activity " + i).location("moon").startDateTime(start)
+					.endDateTime(start.plusHours(1)).build());
+		}
+		activityIds = activityRepository.saveAll(activities).stream().map(Activity::getId).sorted().toList();
+	}
+
+	@AfterEach
+	void cleanup() {
+		activityRepository.deleteAll();
+	}
+
+	@WithMockUser
+	@Test
+	void given_export_then_every_activity_is_streamed_on_its_own_line() throws Exception {
+		MvcResult started = mockMvc.perform(get("/v1/activities/export").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// The response is written in an async dispatch, which has to be let through
+		MvcResult result = mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn();
+
+		String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertTrue(body.endsWith("\n"));
+		List<String> ids = new ArrayList<>();
+		for (String line : body.lines().toList()) {
+			JsonNode activity = objectMapper.readTree(line);
+			assertFalse(activity.has("data"), "Lines are not wrapped in an API response");
+			ids.add(activity.get("id").asText());
+		}
+		assertEquals(activityIds, ids);
+	}
+}
@@ -0,0 +1,81 @@
+package com.bu.getactivecore.service.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.activity.entity.ActivitySuggestionDto;
+
+class ActivityNameSuggesterTest {
+
+	private ActivityRepository activityRepository;
+
+	private ActivityNameSuggester suggester;
+
+	@BeforeEach
+	void setUp() {
+		activityRepository = mock(ActivityRepository.class);
+		when(activityRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of( //
+				activity("1", "Rock Climbing", 4), //
+				activity("2", "Running", 9), //
+				activity("3", "Rowing", 1), //
+				activity("4", "Yoga", 20))));
+		suggester = new ActivityNameSuggester(activityRepository);
+		suggester.rebuild();
+	}
+
+	private static Activity activity(String id, String name, int participants) {
+		return Activity.builder().id(id).name(name).participantCount(participants).build();
+	}
+
+	private List<String> names(String prefix, int limit) {
+		return suggester.suggest(prefix, limit).stream().map(ActivitySuggestionDto::getName).toList();
+	}
+
+	@Test
+	void given_prefix_then_matching_names_are_ordered_by_popularity() {
+		assertEquals(List.of("Running", "Rock Climbing", "Rowing"), names("r", 10));
+		assertEquals(List.of("Rock Climbing", "Rowing"), names("RO", 10));
+		assertEquals(List.of("Yoga"), names("yog", 10));
+		assertTrue(names("x", 10).isEmpty());
+	}
+
+	@Test
+	void given_limit_then_only_top_k_are_returned() {
+		assertEquals(List.of("Running", "Rock Climbing"), names("r", 2));
+	}
+
+	@Test
+	void given_create_rename_and_delete_then_suggestions_follow() {
+		suggester.onActivityChanged(ActivityChangedEvent
+				.created(ActivityDto.builder().id("5").name("Rugby").participantCount(0).build()));
+		assertEquals(List.of("Running", "Rugby"), names("ru", 10));
+
+		suggester.onActivityChanged(ActivityChangedEvent
+				.updated(ActivityDto.builder().id("2").name("Jogging").participantCount(9).build()));
+		assertEquals(List.of("Rugby"), names("ru", 10));
+		assertEquals(List.of("Jogging"), names("jo", 10));
+
+		suggester.onActivityChanged(ActivityChangedEvent.deleted("1"));
+		assertEquals(List.of("Rowing"), names("ro", 10));
+		assertEquals(4, suggester.size());
+	}
+
+	@Test
+	void given_blank_prefix_then_nothing_is_suggested() {
+		assertTrue(names(" ", 10).isEmpty());
+	}
+}
@@ -1,8 +1,14 @@
 package com.bu.getactivecore.service.activity;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -18,7 +24,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
@@ -27,8 +36,13 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.model.users.AccountState;
+import com.bu.getactivecore.model.users.UserPrincipal;
 import com.bu.getactivecore.service.activity.api.ActivityApi;
 import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.users.entity.UserCredentialsDto;
+import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.exception.ApiException;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -57,7 +71,8 @@ class ActivityRestControllerTest {
 		Page<ActivityDto> page = new PageImpl<>(mockedActivities, pageable, mockedActivities.size());
 
 		given(m_activityApi.getAllActivities(pageable)).willReturn(page);
-		m_mvc.perform(get("/v1/activities").accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON))
+		m_mvc.perform(get("/v1/activities").param("withTotal", "true").accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("data.content[0].name").value("Running"))
 				.andExpect(jsonPath("data.content[1].name").value("Yoga"))
@@ -72,7 +87,8 @@ class ActivityRestControllerTest {
 		Sort sort = Sort.by("id").ascending();
 		Pageable pageable = PageRequest.of(0, 10, sort);
 		given(m_activityApi.getAllActivities(pageable)).willReturn(mockedActivities);
-		m_mvc.perform(get("/v1/activities").accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON))
+		m_mvc.perform(get("/v1/activities").param("withTotal", "true").accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("data.content").isEmpty());
 	}
@@ -90,8 +106,8 @@ class ActivityRestControllerTest {
 		Page<ActivityDto> page = new PageImpl<>(mockedActivities, pageable, mockedActivities.size());
 
 		given(m_activityApi.getActivityByName("Rock Climbing", pageable)).willReturn(page);
-		m_mvc.perform(get("/v1/activity/{name}", "Rock Climbing").accept(MediaType.APPLICATION_JSON)
-				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+		m_mvc.perform(get("/v1/activity/{name}", "Rock Climbing").param("withTotal", "true")
+				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
 				.andExpect(jsonPath("data.content[0].name").value("Rock Climbing"));
 	}
@@ -103,8 +119,90 @@ class ActivityRestControllerTest {
 		Sort sort = Sort.by("id").ascending();
 		Pageable pageable = PageRequest.of(0, 10, sort);
 		given(m_activityApi.getActivityByName("Rock Climbing", pageable)).willReturn(mockedActivities);
-		m_mvc.perform(get("/v1/activity/{name}", "Rock Climbing").accept(MediaType.APPLICATION_JSON)
-				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+		m_mvc.perform(get("/v1/activity/{name}", "Rock Climbing").param("withTotal", "true")
+				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
-}
\ No newline at end of file
+
+	@WithMockUser
+	@Test
+	void givenNoTotalRequested_then_sliceWithApproximateTotalReturned() throws Exception {
+		List<ActivityDto> mockedActivities = List.of(ActivityDto.builder().name("Running").build());
+
+		Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+		given(m_activityApi.getAllActivitiesSlice(pageable))
+				.willReturn(new SliceImpl<>(mockedActivities, pageable, true));
+		given(m_activityApi.getApproximateActivityCount()).willReturn(42L);
+		m_mvc.perform(get("/v1/activities").accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(header().string("X-Approximate-Total-Count", "42"))
+				.andExpect(jsonPath("data.content[0].name").value("Running"))
+				.andExpect(jsonPath("data.last").value(false))
+				.andExpect(jsonPath("data.totalElements").doesNotExist());
+	}
+
+	@WithMockUser
+	@Test
+	void givenCurrentTag_then_304ReturnedWithoutQuerying() throws Exception {
+		given(m_activityApi.getActivitiesTag()).willReturn("\"abc-7\"");
+		m_mvc.perform(get("/v1/activities").header(HttpHeaders.IF_NONE_MATCH, "\"abc-6\", \"abc-7\""))
+				.andExpect(status().isNotModified()).andExpect(header().string(HttpHeaders.ETAG, "\"abc-7\""))
+				.andExpect(content().string(""));
+		verify(m_activityApi, never()).getAllActivitiesSlice(any());
+		verify(m_activityApi, never()).getApproximateActivityCount();
+	}
+
+	@WithMockUser
+	@Test
+	void givenOutdatedTag_then_activitiesReturnedWithCurrentTag() throws Exception {
+		Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+		given(m_activityApi.getActivitiesTag()).willReturn("\"abc-8\"");
+		given(m_activityApi.getAllActivitiesSlice(pageable))
+				.willReturn(new SliceImpl<>(List.of(ActivityDto.builder().name("Running").build()), pageable, false));
+		m_mvc.perform(get("/v1/activities").header(HttpHeaders.IF_NONE_MATCH, "\"abc-7\""))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"abc-8\""))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+				.andExpect(jsonPath("data.content[0].name").value("Running"));
+	}
+
+	@WithMockUser
+	@Test
+	void givenCurrentActivityTag_then_commentsNotQueried() throws Exception {
+		given(m_activityApi.getActivityTag("a1")).willReturn("\"abc-3\"");
+		m_mvc.perform(get("/v1/activity/{id}/comments", "a1").header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-3\""))
+				.andExpect(status().isNotModified());
+		verify(m_activityApi, never()).getAllActivityCommentsSlice(any(), any());
+	}
+
+	@WithMockUser
+	@Test
+	void givenWildcardTag_then_activitiesReturned() throws Exception {
+		Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+		given(m_activityApi.getActivitiesTag()).willReturn("\"abc-8\"");
+		given(m_activityApi.getAllActivitiesSlice(pageable)).willReturn(new SliceImpl<>(List.of(), pageable, false));
+		m_mvc.perform(get("/v1/activities").header(HttpHeaders.IF_NONE_MATCH, "*")).andExpect(status().isOk());
+	}
+
+	@Test
+	void givenCurrentActivityTagOfMember_then_304ReturnedWithoutQueryingRoster() throws Exception {
+		given(m_activityApi.getActivityTag("a1")).willReturn("\"abc-3\"");
+		m_mvc.perform(get("/v1/activities/{activityId}/participants", "a1").with(user(principal("u1")))
+				.header(HttpHeaders.IF_NONE_MATCH, "\"abc-3\"")).andExpect(status().isNotModified());
+		verify(m_activityApi).assertRosterAccess("u1", "a1");
+		verify(m_activityApi, never()).getActivityRoster(any(), any(), any());
+	}
+
+	@Test
+	void givenCurrentActivityTagOfNonMember_then_403Returned() throws Exception {
+		given(m_activityApi.getActivityTag("a1")).willReturn("\"abc-3\"");
+		willThrow(new ApiException(ApiErrorPayload.builder().status(HttpStatus.FORBIDDEN)
+				.message("User does not have access to this activity").build())).given(m_activityApi)
+				.assertRosterAccess("u2", "a1");
+		m_mvc.perform(get("/v1/activities/{activityId}/participants", "a1").with(user(principal("u2")))
+				.header(HttpHeaders.IF_NONE_MATCH, "\"abc-3\"")).andExpect(status().isForbidden());
+		verify(m_activityApi, never()).getActivityRoster(any(), any(), any());
+	}
+
+	private static UserPrincipal principal(String userId) {
+		return new UserPrincipal(new UserCredentialsDto(userId, userId, "password", AccountState.VERIFIED));
+	}
+}
@@ -0,0 +1,137 @@
+package com.bu.getactivecore.service.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ActivitySearchIndexTest {
+
+	private ActivityRepository activityRepository;
+
+	private ActivitySearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		activityRepository = mock(ActivityRepository.class);
+		index = new ActivitySearchIndex(activityRepository, new SimpleMeterRegistry());
+		index.index(activity("1", "Rock Climbing", "Bouldering for beginners", "Campus Red Swan"));
+		index.index(activity("2", "Yoga", "Morning stretch, bring a mat", "Gym"));
+		index.index(activity("3", "Running", "Easy run around the climbing wall", "Indoor track"));
+	}
+
+	private static ActivityDto activity(String id, String name, String description, String location) {
+		return ActivityDto.builder().id(id).name(name).description(description).location(location).build();
+	}
+
+	private List<String> search(String query) {
+		return index.search(query, PageRequest.of(0, 10)).getContent();
+	}
+
+	@Test
+	void given_term_in_name_then_activity_ranks_above_description_match() {
+		assertEquals(List.of("1", "3"), search("climbing"));
+	}
+
+	@Test
+	void given_all_fields_then_description_and_location_are_searchable() {
+		assertEquals(List.of("2"), search("mat"));
+		assertEquals(List.of("3"), search("INDOOR"));
+	}
+
+	@Test
+	void given_several_terms_then_all_must_match() {
+		assertEquals(List.of("3"), search("climbing track"));
+		assertTrue(search("yoga track").isEmpty());
+	}
+
+	@Test
+	void given_incomplete_last_term_then_it_matches_as_prefix() {
+		assertEquals(List.of("1", "3"), search("clim"));
+		assertEquals(List.of("2"), search("morning str"));
+		assertTrue(search("str morning").isEmpty(), "Only the last term is a prefix");
+	}
+
+	@Test
+	void given_update_and_delete_events_then_index_follows() {
+		index.onActivityChanged(ActivityChangedEvent.updated(activity("2", "Pilates", "Core workout", "Gym")));
+		assertTrue(search("yoga").isEmpty());
+		assertEquals(List.of("2"), search("pilates"));
+
+		index.onActivityChanged(ActivityChangedEvent.deleted("1"));
+		assertEquals(List.of("3"), search("climbing"));
+		assertEquals(2, index.documentCount());
+	}
+
+	@Test
+	void given_page_then_hits_are_paginated_with_total() {
+		for (int i = 0; i < 25; i++) {
+			index.index(activity("run" + i, "Run " + i, null, "Track"));
+		}
+		Page<String> page = index.search("track", PageRequest.of(2, 10));
+		assertEquals(26, page.getTotalElements());
+		assertEquals(6, page.getContent().size());
+	}
+
+	@Test
+	void given_prefix_with_many_expansions_then_most_common_terms_are_kept() {
+		// Enough rare terms sorting before the common one to fill the expansions
+		for (int i = 0; i < 100; i++) {
+			index.index(activity("rare" + i, "Aa" + i, null, null));
+		}
+		index.index(activity("common1", "Abz", null, null));
+		index.index(activity("common2", "Abz", null, null));
+
+		List<String> hits = index.search("a", PageRequest.of(0, 200)).getContent();
+		assertTrue(hits.containsAll(List.of("common1", "common2")));
+		// The common term takes one of the 64 expansions
+		assertEquals(63, hits.stream().filter(id -> id.startsWith("rare")).count());
+	}
+
+	@Test
+	void given_changes_during_rebuild_then_rebuilt_index_replays_them() {
+		Activity climbing = Activity.builder().id("1").name("Rock Climbing").build();
+		Activity chess = Activity.builder().id("4").name("Chess").build();
+		// The first batch is read before activity 4 is renamed, the second after activity 1 is deleted
+		when(activityRepository.findAllBy(any(ScrollPosition.class), any(Limit.class), any(Sort.class)))
+				.thenAnswer(invocation -> Window.from(List.of(climbing),
+						i -> ScrollPosition.forward(Map.of("id", "1")), true))
+				.thenAnswer(invocation -> {
+					index.onActivityChanged(ActivityChangedEvent.deleted("1"));
+					index.onActivityChanged(ActivityChangedEvent.updated(activity("4", "Go", null, null)));
+					return Window.from(List.of(chess), i -> ScrollPosition.forward(Map.of("id", "4")), false);
+				});
+
+		index.rebuild();
+
+		assertTrue(search("climbing").isEmpty(), "Deleted during the rebuild");
+		assertTrue(search("chess").isEmpty(), "Renamed during the rebuild");
+		assertEquals(List.of("4"), search("go"));
+		assertEquals(1, index.documentCount(), "Activities not read by the rebuild are gone");
+	}
+
+	@Test
+	void given_blank_query_then_nothing_is_returned() {
+		assertTrue(search("  ,, ").isEmpty());
+	}
+}
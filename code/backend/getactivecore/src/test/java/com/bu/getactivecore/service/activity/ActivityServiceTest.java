@@ -2,29 +2,42 @@ package com.bu.getactivecore.service.activity;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import com.bu.getactivecore.model.activity.Activity;
 import com.bu.getactivecore.model.activity.ActivityComment;
@@ -36,12 +49,19 @@ import com.bu.getactivecore.repository.ActivityCommentRepository;
 import com.bu.getactivecore.repository.ActivityRepository;
 import com.bu.getactivecore.repository.UserActivityRepository;
 import com.bu.getactivecore.repository.UserRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
 import com.bu.getactivecore.service.activity.entity.ActivityCommentCreateRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityContentChangedEvent;
 import com.bu.getactivecore.service.activity.entity.ActivityCreateRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityDeleteRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.activity.entity.ActivityPatchRequestDto;
 import com.bu.getactivecore.service.activity.entity.ActivityUpdateRequestDto;
+import com.bu.getactivecore.shared.ErrorCode;
 import com.bu.getactivecore.shared.exception.ApiException;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class ActivityServiceTest {
 
@@ -59,6 +79,27 @@ class ActivityServiceTest {
 	@Mock
 	private ActivityCommentRepository activityCommentRepository;
 
+	@Mock
+	private ActivitySearchIndex searchIndex;
+
+	@Mock
+	private ActivityNameSuggester nameSuggester;
+
+	@Mock
+	private UpcomingActivityIndex upcomingIndex;
+
+	@Spy
+	private ActivityCache activityCache = new ActivityCache(new ActivityCacheProperties(), new SimpleMeterRegistry());
+
+	@Mock
+	private ActivityVersions activityVersions;
+
+	@Mock
+	private ActivityExporter activityExporter;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
 	@InjectMocks
 	private ActivityService activityService;
 
@@ -103,13 +144,13 @@ class ActivityServiceTest {
 	void deleteActivityWithForceSetToFalseAndHasParticipantsInActivity() {
 		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
 
-		when(userActivityRepository.findByActivityIdAndRole(activityId, RoleType.PARTICIPANT))
-				.thenReturn(List.of(new UserActivity()));
+		when(userActivityRepository.existsByActivityIdAndRole(activityId, RoleType.PARTICIPANT)).thenReturn(true);
 
 		assertThrows(ApiException.class,
 				() -> activityService.deleteActivity(activityId, ActivityDeleteRequestDto.builder().build()));
 
 		verify(userActivityRepository, never()).deleteByActivityId(activityId);
+		verify(activityCommentRepository, never()).deleteByActivityId(activityId);
 
 		verify(activityRepository, never()).deleteById(activityId);
 	}
@@ -118,11 +159,11 @@ class ActivityServiceTest {
 	void deleteActivitySuccessfully() {
 		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
 
-		when(userActivityRepository.findByActivityIdAndRole(activityId, RoleType.PARTICIPANT))
-				.thenReturn(new ArrayList<>());
+		when(userActivityRepository.existsByActivityIdAndRole(activityId, RoleType.PARTICIPANT)).thenReturn(false);
 
 		activityService.deleteActivity(activityId, ActivityDeleteRequestDto.builder().build());
 
+		verify(activityCommentRepository).deleteByActivityId(activityId);
 		verify(userActivityRepository).deleteByActivityId(activityId);
 
 		verify(activityRepository).deleteById(activityId);
@@ -174,6 +215,43 @@ class ActivityServiceTest {
 		verify(activityCommentRepository).findAllByActivityId(pageable, activityId);
 	}
 
+	@Test
+	void testGetActivitiesSliceDoesNotCount() {
+		PageRequest pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+		Slice<Activity> slice = new SliceImpl<>(List.of(Activity.builder().build()), pageable, true);
+		when(activityRepository.findSliceBy(pageable)).thenReturn(slice);
+
+		Slice<ActivityDto> result = activityService.getAllActivitiesSlice(pageable);
+
+		assertTrue(result.hasNext());
+		verify(activityRepository).findSliceBy(pageable);
+		verify(activityRepository, never()).findAll(any(Pageable.class));
+		verify(activityRepository, never()).count();
+	}
+
+	@Test
+	void testGetAllActivityCommentsSlice() {
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
+
+		PageRequest pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
+		Slice<ActivityComment> slice = new SliceImpl<>(List.of(ActivityComment.builder().build()), pageable, false);
+		when(activityCommentRepository.findSliceByActivityId(pageable, activityId)).thenReturn(slice);
+
+		activityService.getAllActivityCommentsSlice(pageable, activityId);
+
+		verify(activityCommentRepository).findSliceByActivityId(pageable, activityId);
+		verify(activityCommentRepository, never()).findAllByActivityId(any(), any());
+	}
+
+	@Test
+	void testApproximateActivityCountIsRefreshed() {
+		when(activityRepository.count()).thenReturn(7L);
+
+		activityService.refreshApproximateActivityCount();
+
+		assertEquals(7L, activityService.getApproximateActivityCount());
+	}
+
 	@Test
 	void createActivitySuccessfully() {
 		when(activityRepository.findByName("Rock Climbing")).thenReturn(Optional.empty());
@@ -196,6 +274,63 @@ class ActivityServiceTest {
 		verify(activityRepository).save(ActivityCreateRequestDto.from(dtoRequest));
 
 		verify(userActivityRepository).save(userActivityRole);
+		verify(eventPublisher).publishEvent(ActivityChangedEvent.created(ActivityDto.of(createdActivity)));
+	}
+
+	@Test
+	void searchActivitiesKeepsIndexRanking() {
+		PageRequest pageable = PageRequest.of(0, 10);
+		when(searchIndex.search("climb", pageable)).thenReturn(new PageImpl<>(List.of("b", "gone", "a"), pageable, 3));
+		when(activityRepository.findAllById(List.of("b", "gone", "a")))
+				.thenReturn(List.of(Activity.builder().id("a").build(), Activity.builder().id("b").build()));
+
+		Page<ActivityDto> result = activityService.searchActivities("climb", pageable);
+
+		assertEquals(List.of("b", "a"), result.getContent().stream().map(ActivityDto::getId).toList());
+		assertEquals(3, result.getTotalElements());
+	}
+
+	@Test
+	void searchActivitiesCapsPageSize() {
+		PageRequest capped = PageRequest.of(1, 20);
+		when(searchIndex.search("climb", capped)).thenReturn(Page.empty(capped));
+
+		Page<ActivityDto> result = activityService.searchActivities("climb", PageRequest.of(1, 10000));
+
+		assertEquals(20, result.getSize());
+	}
+
+	@Test
+	void startingSoonBeyondHorizonIsRejected() {
+		when(upcomingIndex.horizon()).thenReturn(Duration.ofDays(30));
+
+		ApiException tooFar = assertThrows(ApiException.class,
+				() -> activityService.getActivitiesStartingSoon(Long.MAX_VALUE, 10));
+		assertEquals(HttpStatus.BAD_REQUEST, tooFar.getError().getStatus());
+		ApiException negative = assertThrows(ApiException.class,
+				() -> activityService.getActivitiesStartingSoon(-5, 10));
+		assertEquals(HttpStatus.BAD_REQUEST, negative.getError().getStatus());
+		verify(upcomingIndex, never()).findStartingBetween(any(), any(), anyInt());
+	}
+
+	@Test
+	void windowOutsideUpcomingIndexFallsBackToDatabase() {
+		LocalDateTime from = LocalDateTime.now().plusYears(1);
+		LocalDateTime to = from.plusHours(3);
+		when(upcomingIndex.findOverlapping(from, to, 50)).thenReturn(Optional.empty());
+		when(activityRepository.findOverlapping(from, to, PageRequest.of(0, 50)))
+				.thenReturn(List.of(Activity.builder().id("a").build()));
+
+		List<ActivityDto> result = activityService.getActivitiesInWindow(from, to, 50);
+
+		assertEquals(List.of("a"), result.stream().map(ActivityDto::getId).toList());
+	}
+
+	@Test
+	void windowEndingBeforeItStartsIsRejected() {
+		LocalDateTime from = LocalDateTime.now();
+		assertThrows(ApiException.class, () -> activityService.getActivitiesInWindow(from, from.minusHours(1), 10));
+		verify(activityRepository, never()).findOverlapping(any(), any(), any());
 	}
 
 	@Test
@@ -308,19 +443,21 @@ class ActivityServiceTest {
 
 	@Test
 	void updateActivitySuccessfully() {
-		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
+		Activity activity = Activity.builder().id(activityId).name("Climbing").participantCount(3).build();
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
 
 		ActivityUpdateRequestDto dtoRequest = ActivityUpdateRequestDto.builder().name("Rock Climbing").description("")
 				.location("location").startDateTime(LocalDateTime.now().plusHours(1))
 				.endDateTime(LocalDateTime.now().plusHours(2)).build();
 
-		Activity updateActivity = ActivityUpdateRequestDto.from(activityId, dtoRequest);
+		when(activityRepository.saveAndFlush(activity)).thenReturn(activity);
 
-		when(activityRepository.save(updateActivity)).thenReturn(updateActivity);
+		ActivityDto updated = activityService.updateActivity(activityId, dtoRequest);
 
-		activityService.updateActivity(activityId, dtoRequest);
-
-		verify(activityRepository).save(updateActivity);
+		// The loaded entity is updated in place instead of merging a detached copy
+		verify(activityRepository).saveAndFlush(activity);
+		assertEquals("Rock Climbing", updated.getName());
+		assertEquals(3, updated.getParticipantCount());
 	}
 
 	@Test
@@ -338,55 +475,240 @@ class ActivityServiceTest {
 		verify(activityRepository, never()).save(updateActivity);
 	}
 
+	@Test
+	void patchActivityChangesOnlySuppliedFields() {
+		LocalDateTime start = LocalDateTime.now().plusHours(1);
+		Activity activity = Activity.builder().id(activityId).name("Climbing").description("Bouldering")
+				.location("Gym").startDateTime(start).endDateTime(start.plusHours(2)).version(4).build();
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
+		when(activityRepository.saveAndFlush(activity)).thenReturn(activity);
+
+		ActivityDto patched = activityService.patchActivity(activityId,
+				ActivityPatchRequestDto.builder().location("Crag").endDateTime(start.plusHours(3)).version(4L).build());
+
+		assertEquals("Climbing", patched.getName());
+		assertEquals("Bouldering", patched.getDescription());
+		assertEquals("Crag", patched.getLocation());
+		assertEquals(start, patched.getStartDateTime());
+		assertEquals(start.plusHours(3), patched.getEndDateTime());
+	}
+
+	@Test
+	void patchActivityToExistingName() {
+		Activity activity = Activity.builder().id(activityId).name("Climbing").version(4).build();
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
+		when(activityRepository.findByName("Yoga")).thenReturn(Optional.of(Activity.builder().id("other").build()));
+
+		ApiException exception = assertThrows(ApiException.class, () -> activityService.patchActivity(activityId,
+				ActivityPatchRequestDto.builder().name("Yoga").version(4L).build()));
+
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getError().getStatus());
+		assertEquals("Activity name exists", exception.getError().getMessage());
+		verify(activityRepository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void updateActivityKeepingItsName() {
+		Activity activity = Activity.builder().id(activityId).name("Climbing").build();
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
+		when(activityRepository.findByName("Climbing")).thenReturn(Optional.of(activity));
+		when(activityRepository.saveAndFlush(activity)).thenReturn(activity);
+
+		ActivityUpdateRequestDto dtoRequest = ActivityUpdateRequestDto.builder().name("Climbing").description("")
+				.location("location").startDateTime(LocalDateTime.now().plusHours(1))
+				.endDateTime(LocalDateTime.now().plusHours(2)).build();
+
+		assertEquals("location", activityService.updateActivity(activityId, dtoRequest).getLocation());
+	}
+
+	@Test
+	void patchActivityWithStaleVersion() {
+		Activity activity = Activity.builder().id(activityId).name("Climbing").version(5).build();
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
+
+		ApiException exception = assertThrows(ApiException.class, () -> activityService.patchActivity(activityId,
+				ActivityPatchRequestDto.builder().name("Rock Climbing").version(4L).build()));
+
+		assertEquals(HttpStatus.CONFLICT, exception.getError().getStatus());
+		assertEquals(ErrorCode.ACTIVITY_MODIFIED, exception.getError().getErrorCode());
+		verify(activityRepository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void patchActivityWithConcurrentUpdate() {
+		Activity activity = Activity.builder().id(activityId).name("Climbing").version(4).build();
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
+		when(activityRepository.saveAndFlush(activity))
+				.thenThrow(new ObjectOptimisticLockingFailureException(Activity.class, activityId));
+
+		ApiException exception = assertThrows(ApiException.class, () -> activityService.patchActivity(activityId,
+				ActivityPatchRequestDto.builder().name("Rock Climbing").version(4L).build()));
+
+		assertEquals(HttpStatus.CONFLICT, exception.getError().getStatus());
+	}
+
 	@Test
 	void joinActivitySuccessfully() {
 		Activity activity = Activity.builder().id(activityId).build();
-		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
-				.thenReturn(Optional.empty());
 		when(activityRepository.findById(activityId)).thenReturn(Optional.of(activity));
-		when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
+		when(activityRepository.getReferenceById(activityId)).thenReturn(activity);
+		when(userRepository.existsById(user.getUserId())).thenReturn(true);
+		when(userRepository.getReferenceById(user.getUserId())).thenReturn(user);
+		when(activityRepository.reserveSeat(activityId)).thenReturn(1);
 
 		activityService.joinActivity(user.getUserId(), activityId);
 
-		verify(userActivityRepository).findByUserIdAndActivityId(user.getUserId(), activityId);
 		verify(activityRepository).findById(activityId);
-		verify(userActivityRepository)
-				.save(UserActivity.builder().user(user).activity(activity).role(RoleType.PARTICIPANT).build());
+		InOrder inOrder = inOrder(activityRepository, userActivityRepository);
+		inOrder.verify(activityRepository).reserveSeat(activityId);
+		inOrder.verify(userActivityRepository)
+				.saveAndFlush(UserActivity.builder().user(user).activity(activity).role(RoleType.PARTICIPANT).build());
+		verify(userRepository, never()).findById(any());
+		verify(eventPublisher).publishEvent(ActivityContentChangedEvent.participants(activityId));
 	}
 
 	@Test
 	void joinActivityAlreadyJoined() {
-		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
-				.thenReturn(Optional.of(new UserActivity()));
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
+		when(userRepository.existsById(user.getUserId())).thenReturn(true);
+		when(activityRepository.reserveSeat(activityId)).thenReturn(1);
+		ConstraintViolationException duplicate = new ConstraintViolationException("duplicate", null,
+				"PUBLIC.UC_USER_ACTIVITIES_USER_ACTIVITY_INDEX_1");
+		when(userActivityRepository.saveAndFlush(any()))
+				.thenThrow(new DataIntegrityViolationException("duplicate", duplicate));
+
+		ApiException exception = assertThrows(ApiException.class,
+				() -> activityService.joinActivity(user.getUserId(), activityId));
+		assertEquals("User already joined activity", exception.getError().getMessage());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void joinActivityUnknownUser() {
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
+		when(userRepository.existsById(user.getUserId())).thenReturn(false);
+
+		ApiException exception = assertThrows(ApiException.class,
+				() -> activityService.joinActivity(user.getUserId(), activityId));
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getError().getStatus());
+		assertEquals("User not found", exception.getError().getMessage());
+		verify(activityRepository, never()).reserveSeat(any());
+		verify(userActivityRepository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void joinActivityWhenFullIsWaitlisted() {
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()));
+		when(userRepository.existsById(user.getUserId())).thenReturn(true);
+		when(activityRepository.reserveSeat(activityId)).thenReturn(0);
+		when(activityRepository.incrementWaitlistTail(activityId)).thenReturn(1);
+		when(activityRepository.findWaitlistTail(activityId)).thenReturn(7L);
+
+		assertEquals(RoleType.WAITLISTED, activityService.joinActivity(user.getUserId(), activityId));
+
+		ArgumentCaptor<UserActivity> saved = ArgumentCaptor.forClass(UserActivity.class);
+		verify(activityRepository).incrementWaitlistTail(activityId);
+		verify(userActivityRepository).saveAndFlush(saved.capture());
+		assertEquals(RoleType.WAITLISTED, saved.getValue().getRole());
+		assertEquals(7L, saved.getValue().getWaitlistSequence());
+	}
 
+	@Test
+	void joinActivityDeletedSinceCached() {
+		when(activityRepository.findById(activityId)).thenReturn(Optional.of(new Activity()), Optional.empty());
+		when(userRepository.existsById(user.getUserId())).thenReturn(true);
+		when(activityRepository.reserveSeat(activityId)).thenReturn(0);
+		when(activityRepository.incrementWaitlistTail(activityId)).thenReturn(0);
+
+		ApiException exception = assertThrows(ApiException.class,
+				() -> activityService.joinActivity(user.getUserId(), activityId));
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getError().getStatus());
+		assertEquals("Activity does not exist", exception.getError().getMessage());
+		verify(activityRepository, never()).findWaitlistTail(any());
+		verify(userActivityRepository, never()).saveAndFlush(any());
+
+		// The stale entry was dropped, the next join reads the deletion from the database
 		assertThrows(ApiException.class, () -> activityService.joinActivity(user.getUserId(), activityId));
-		verify(userActivityRepository).findByUserIdAndActivityId(user.getUserId(), activityId);
-		verify(activityRepository, never()).findById(activityId);
-		verify(userActivityRepository, never()).save(any());
+		verify(activityRepository, times(2)).findById(activityId);
 	}
 
 	@Test
 	void joinActivityActivityNotFound() {
-		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
-				.thenReturn(Optional.empty());
 		when(activityRepository.findById(activityId)).thenReturn(Optional.empty());
 
 		assertThrows(ApiException.class, () -> activityService.joinActivity(user.getUserId(), activityId));
-		verify(userActivityRepository).findByUserIdAndActivityId(user.getUserId(), activityId);
 		verify(activityRepository).findById(activityId);
-		verify(userActivityRepository, never()).save(any());
+		verify(userActivityRepository, never()).saveAndFlush(any());
+		verify(activityRepository, never()).reserveSeat(any());
 	}
 
 	@Test
 	void leaveActivitySuccessfully() {
-		UserActivity userActivity = UserActivity.builder().user(user).build();
+		UserActivity userActivity = UserActivity.builder().id("ua1").user(user).role(RoleType.PARTICIPANT).build();
 		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
 				.thenReturn(Optional.of(userActivity));
+		when(userActivityRepository.deleteByIdIfPresent("ua1")).thenReturn(1);
 
 		activityService.leaveActivity(user.getUserId(), activityId);
 
 		verify(userActivityRepository).findByUserIdAndActivityId(user.getUserId(), activityId);
-		verify(userActivityRepository).delete(userActivity);
+		verify(userActivityRepository).deleteByIdIfPresent("ua1");
+		verify(activityRepository).decrementParticipantCount(activityId);
+	}
+
+	@Test
+	void leaveActivityPromotesHeadOfWaitlist() {
+		UserActivity leaving = UserActivity.builder().id("ua1").user(user).role(RoleType.PARTICIPANT).build();
+		UserActivity waiting = UserActivity.builder().id("ua2").user(user).role(RoleType.WAITLISTED)
+				.waitlistSequence(3L).build();
+		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
+				.thenReturn(Optional.of(leaving));
+		when(userActivityRepository.deleteByIdIfPresent("ua1")).thenReturn(1);
+		when(userActivityRepository.findFirstByActivityIdAndRoleOrderByWaitlistSequenceAsc(activityId,
+				RoleType.WAITLISTED)).thenReturn(Optional.of(waiting));
+		when(activityRepository.reserveSeat(activityId)).thenReturn(1);
+
+		activityService.leaveActivity(user.getUserId(), activityId);
+
+		verify(activityRepository).decrementParticipantCount(activityId);
+		verify(activityRepository).advanceWaitlistHead(activityId, 3L);
+		verify(userActivityRepository).save(waiting);
+		assertEquals(RoleType.PARTICIPANT, waiting.getRole());
+		assertEquals(null, waiting.getWaitlistSequence());
+	}
+
+	@Test
+	void getWaitlistPositionWhenNotWaitlisted() {
+		when(userActivityRepository.findWaitlistPosition(user.getUserId(), activityId)).thenReturn(Optional.empty());
+
+		ApiException exception = assertThrows(ApiException.class,
+				() -> activityService.getWaitlistPosition(user.getUserId(), activityId));
+		assertEquals(HttpStatus.NOT_FOUND, exception.getError().getStatus());
+	}
+
+	@Test
+	void leaveActivityConcurrentlyLeftDoesNotDecrementTwice() {
+		UserActivity userActivity = UserActivity.builder().id("ua1").user(user).role(RoleType.PARTICIPANT).build();
+		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
+				.thenReturn(Optional.of(userActivity));
+		when(userActivityRepository.deleteByIdIfPresent("ua1")).thenReturn(0);
+
+		activityService.leaveActivity(user.getUserId(), activityId);
+
+		verify(activityRepository, never()).decrementParticipantCount(any());
+	}
+
+	@Test
+	void leaveActivityAsAdminDoesNotDecrement() {
+		UserActivity userActivity = UserActivity.builder().id("ua1").user(user).role(RoleType.ADMIN).build();
+		when(userActivityRepository.findByUserIdAndActivityId(user.getUserId(), activityId))
+				.thenReturn(Optional.of(userActivity));
+		when(userActivityRepository.deleteByIdIfPresent("ua1")).thenReturn(1);
+
+		activityService.leaveActivity(user.getUserId(), activityId);
+
+		verify(userActivityRepository).deleteByIdIfPresent("ua1");
+		verify(activityRepository, never()).decrementParticipantCount(any());
 	}
 
 	@Test
@@ -397,7 +719,8 @@ class ActivityServiceTest {
 		activityService.leaveActivity(user.getUserId(), activityId);
 
 		verify(userActivityRepository).findByUserIdAndActivityId(user.getUserId(), activityId);
-		verify(userActivityRepository, never()).delete(any());
+		verify(userActivityRepository, never()).deleteByIdIfPresent(any());
+		verify(activityRepository, never()).decrementParticipantCount(any());
 	}
 
 	@Test
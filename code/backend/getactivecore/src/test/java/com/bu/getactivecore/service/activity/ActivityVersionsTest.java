@@ -0,0 +1,92 @@
+package com.bu.getactivecore.service.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityContentChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+
+class ActivityVersionsTest {
+
+	private ActivityVersions versions;
+
+	@BeforeEach
+	void setUp() {
+		versions = new ActivityVersions();
+	}
+
+	@Test
+	void given_no_change_then_tags_are_stable_and_quoted() {
+		String tag = versions.activityTag("1");
+		assertEquals(tag, versions.activityTag("1"));
+		assertTrue(tag.startsWith("\"") && tag.endsWith("\""));
+		assertEquals(versions.listTag(), versions.listTag());
+	}
+
+	@Test
+	void given_comment_then_only_the_activity_tag_changes() {
+		String list = versions.listTag();
+		String activity = versions.activityTag("1");
+		String other = versions.activityTag("2");
+
+		versions.onContentChanged(ActivityContentChangedEvent.comments("1"));
+
+		assertNotEquals(activity, versions.activityTag("1"));
+		assertEquals(other, versions.activityTag("2"));
+		assertEquals(list, versions.listTag(), "Comments do not show up in the activity list");
+	}
+
+	@Test
+	void given_join_or_update_then_activity_and_list_tags_change() {
+		String list = versions.listTag();
+		String activity = versions.activityTag("1");
+
+		versions.onContentChanged(ActivityContentChangedEvent.participants("1"));
+		assertNotEquals(activity, versions.activityTag("1"));
+		assertNotEquals(list, versions.listTag());
+
+		list = versions.listTag();
+		activity = versions.activityTag("1");
+		versions.onActivityChanged(ActivityChangedEvent.updated(ActivityDto.builder().id("1").build()));
+		assertNotEquals(activity, versions.activityTag("1"));
+		assertNotEquals(list, versions.listTag());
+	}
+
+	@Test
+	void given_deleted_activity_then_its_tag_never_returns_to_an_earlier_one() {
+		String unchanged = versions.activityTag("1");
+
+		versions.onActivityChanged(ActivityChangedEvent.deleted("1"));
+
+		assertNotEquals(unchanged, versions.activityTag("1"));
+	}
+
+	@Test
+	void given_evicted_activities_then_their_tags_never_return_to_an_earlier_one() {
+		versions = new ActivityVersions(2);
+		String unchanged = versions.activityTag("1");
+		versions.onActivityChanged(ActivityChangedEvent.deleted("1"));
+		String deleted = versions.activityTag("1");
+
+		versions.onContentChanged(ActivityContentChangedEvent.comments("2"));
+		versions.onContentChanged(ActivityContentChangedEvent.comments("3"));
+
+		String evicted = versions.activityTag("1");
+		assertNotEquals(unchanged, evicted);
+		assertEquals(deleted, evicted, "Nothing changed, the tag may stay the same");
+		String floor = versions.activityTag("4");
+		versions.onContentChanged(ActivityContentChangedEvent.comments("4"));
+		assertNotEquals(floor, versions.activityTag("4"));
+	}
+
+	@Test
+	void given_restart_then_earlier_tags_do_not_match() {
+		assertNotEquals(versions.activityTag("1"), new ActivityVersions().activityTag("1"));
+		assertNotEquals(versions.listTag(), new ActivityVersions().listTag());
+	}
+}
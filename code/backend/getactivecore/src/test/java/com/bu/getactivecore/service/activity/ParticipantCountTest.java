@@ -0,0 +1,329 @@
+package com.bu.getactivecore.service.activity;
+
+import static java.time.LocalDateTime.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.bu.getactivecore.config.JavaGmailMailConfig;
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.model.activity.ActivityComment;
+import com.bu.getactivecore.model.activity.RoleType;
+import com.bu.getactivecore.model.activity.UserActivity;
+import com.bu.getactivecore.model.users.AccountState;
+import com.bu.getactivecore.model.users.Users;
+import com.bu.getactivecore.repository.ActivityCommentRepository;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.repository.UserActivityRepository;
+import com.bu.getactivecore.repository.UserRepository;
+import com.bu.getactivecore.service.activity.api.ActivityApi;
+import com.bu.getactivecore.service.activity.entity.ActivityCreateRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityDeleteRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+import com.bu.getactivecore.service.activity.entity.ActivityPatchRequestDto;
+import com.bu.getactivecore.service.activity.entity.ActivityUpdateRequestDto;
+import com.bu.getactivecore.service.email.EmailVerificationService;
+import com.bu.getactivecore.service.users.entity.ParticipantDto;
+import com.bu.getactivecore.shared.ErrorCode;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+@SpringBootTest
+class ParticipantCountTest {
+
+	@MockitoBean
+	private CommandLineRunner demoPreloadData;
+
+	@MockitoBean
+	private EmailVerificationService emailVerificationService;
+
+	@MockitoBean
+	private JavaGmailMailConfig javaGmailMailConfig;
+
+	@Autowired
+	private ActivityApi activityApi;
+
+	@Autowired
+	private ParticipantCountReconciler reconciler;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserActivityRepository userActivityRepo;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	@Autowired
+	private ActivityCommentRepository commentRepository;
+
+	private Users admin;
+
+	private Users user1;
+
+	private Users user2;
+
+	@BeforeEach
+	void setup() {
+		admin = saveUser("admin");
+		user1 = saveUser("user1");
+		user2 = saveUser("user2");
+	}
+
+	@AfterEach
+	void cleanup() {
+		commentRepository.deleteAll();
+		userActivityRepo.deleteAll();
+		userRepository.deleteAll();
+		activityRepository.deleteAll();
+	}
+
+	private Users saveUser(String username) {
+		return userRepository.save(Users.builder().email(username + "@bu.edu").username(username).password("password")
+				.accountState(AccountState.VERIFIED).build());
+	}
+
+	private String createActivity(String name) {
+		return createActivity(name, null);
+	}
+
+	private String createActivity(String name, Integer maxParticipants) {
+		activityApi.createActivity(admin.getUserId(),
+				ActivityCreateRequestDto.builder().name(name).description("Desc").location("moon")
+						.startDateTime(now().plusHours(1)).endDateTime(now().plusHours(5))
+						.maxParticipants(maxParticipants).build());
+		return activityRepository.findByName(name).orElseThrow().getId();
+	}
+
+	/**
+	 * Lets all users join at once and collects the error code of each failed
+	 * join.
+	 */
+	private List<ErrorCode> joinConcurrently(List<Users> users, String activityId) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<ErrorCode> failures = Collections.synchronizedList(new ArrayList<>());
+		try {
+			List<Future<Void>> joins = new ArrayList<>();
+			for (Users user : users) {
+				joins.add(executor.submit(() -> {
+					start.await();
+					try {
+						activityApi.joinActivity(user.getUserId(), activityId);
+					} catch (ApiException e) {
+						failures.add(e.getError().getErrorCode());
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<Void> join : joins) {
+				join.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return failures;
+	}
+
+	private int participantCount(String activityId) {
+		return activityRepository.findById(activityId).orElseThrow().getParticipantCount();
+	}
+
+	private ActivityUpdateRequestDto updateRequest(String activityId, Integer maxParticipants) {
+		Activity activity = activityRepository.findById(activityId).orElseThrow();
+		return ActivityUpdateRequestDto.builder().name(activity.getName()).description(activity.getDescription())
+				.location(activity.getLocation()).startDateTime(activity.getStartDateTime())
+				.endDateTime(activity.getEndDateTime()).maxParticipants(maxParticipants).build();
+	}
+
+	@Test
+	void given_users_join_and_leave_then_participant_count_follows() {
+		String activityId = createActivity("Climbing");
+		assertEquals(0, participantCount(activityId), "The admin is not counted as participant");
+
+		activityApi.joinActivity(user1.getUserId(), activityId);
+		activityApi.joinActivity(user2.getUserId(), activityId);
+		assertEquals(2, participantCount(activityId));
+
+		activityApi.leaveActivity(user1.getUserId(), activityId);
+		activityApi.leaveActivity(user1.getUserId(), activityId);
+		assertEquals(1, participantCount(activityId), "Leaving twice should only decrement once");
+	}
+
+	@Test
+	void given_participants_then_popularity_sort_returns_most_joined_first() {
+		String quiet = createActivity("Quiet");
+		String busy = createActivity("Busy");
+		String medium = createActivity("Medium");
+
+		activityApi.joinActivity(user1.getUserId(), busy);
+		activityApi.joinActivity(user2.getUserId(), busy);
+		activityApi.joinActivity(user1.getUserId(), medium);
+
+		Pageable pageable = PageRequest.of(0, 10);
+		List<String> ids = activityApi.getAllActivitiesSortedByPopularity(pageable).map(ActivityDto::getId)
+				.getContent();
+		assertEquals(List.of(busy, medium, quiet), ids);
+	}
+
+	@Test
+	void given_rush_on_limited_activity_then_seats_are_never_oversold() throws Exception {
+		String activityId = createActivity("Launch", 5);
+		List<Users> users = IntStream.range(0, 20).mapToObj(i -> saveUser("rush" + i)).toList();
+
+		List<ErrorCode> failures = joinConcurrently(users, activityId);
+
+		assertTrue(failures.isEmpty());
+		assertEquals(5, participantCount(activityId));
+		assertEquals(5, userActivityRepo.findByActivityIdAndRole(activityId, RoleType.PARTICIPANT).size());
+		List<Long> sequences = userActivityRepo.findByActivityIdAndRole(activityId, RoleType.WAITLISTED).stream()
+				.map(UserActivity::getWaitlistSequence).sorted().toList();
+		assertEquals(LongStream.rangeClosed(1, 15).boxed().toList(), sequences, "Everyone else queues in order");
+	}
+
+	@Test
+	void given_participant_leaves_then_head_of_waitlist_is_promoted() {
+		Users user3 = saveUser("user3");
+		String activityId = createActivity("Small", 1);
+
+		assertEquals(RoleType.PARTICIPANT, activityApi.joinActivity(user1.getUserId(), activityId));
+		assertEquals(RoleType.WAITLISTED, activityApi.joinActivity(user2.getUserId(), activityId));
+		assertEquals(RoleType.WAITLISTED, activityApi.joinActivity(user3.getUserId(), activityId));
+		assertEquals(2, activityApi.getWaitlistPosition(user3.getUserId(), activityId).getPosition());
+
+		activityApi.leaveActivity(user1.getUserId(), activityId);
+
+		assertEquals(RoleType.PARTICIPANT,
+				userActivityRepo.findByUserIdAndActivityId(user2.getUserId(), activityId).orElseThrow().getRole());
+		assertEquals(1, activityApi.getWaitlistPosition(user3.getUserId(), activityId).getPosition());
+		assertEquals(1, participantCount(activityId));
+	}
+
+	@Test
+	void given_waitlisted_user_then_user_is_not_listed_as_member() {
+		String activityId = createActivity("Members only", 1);
+		activityApi.joinActivity(user1.getUserId(), activityId);
+		assertEquals(RoleType.WAITLISTED, activityApi.joinActivity(user2.getUserId(), activityId));
+
+		List<String> roster = activityApi.getActivityRoster(admin.getUserId(), activityId, PageRequest.of(0, 10))
+				.map(ParticipantDto::getUsername).getContent();
+		assertEquals(List.of("admin", "user1"), roster.stream().sorted().toList());
+		assertTrue(activityApi.getJoinedActivities(user2.getUserId()).isEmpty());
+		ApiException e = assertThrows(ApiException.class,
+				() -> activityApi.getActivityRoster(user2.getUserId(), activityId, PageRequest.of(0, 10)));
+		assertEquals(HttpStatus.FORBIDDEN, e.getError().getStatus());
+	}
+
+	@Test
+	void given_limit_raised_then_waitlist_is_promoted_up_to_new_limit() {
+		Users user3 = saveUser("user3");
+		Users user4 = saveUser("user4");
+		String activityId = createActivity("Growing", 1);
+		activityApi.joinActivity(user1.getUserId(), activityId);
+		activityApi.joinActivity(user2.getUserId(), activityId);
+		activityApi.joinActivity(user3.getUserId(), activityId);
+		activityApi.joinActivity(user4.getUserId(), activityId);
+
+		long version = activityRepository.findById(activityId).orElseThrow().getVersion();
+		activityApi.patchActivity(activityId,
+				ActivityPatchRequestDto.builder().maxParticipants(3).version(version).build());
+
+		assertEquals(3, participantCount(activityId));
+		assertEquals(RoleType.PARTICIPANT,
+				userActivityRepo.findByUserIdAndActivityId(user3.getUserId(), activityId).orElseThrow().getRole());
+		assertEquals(1, activityApi.getWaitlistPosition(user4.getUserId(), activityId).getPosition());
+
+		activityApi.updateActivity(activityId, updateRequest(activityId, 10));
+
+		assertEquals(4, participantCount(activityId));
+		assertTrue(userActivityRepo.findByActivityIdAndRole(activityId, RoleType.WAITLISTED).isEmpty());
+	}
+
+	@Test
+	void given_update_without_limit_then_limit_and_waitlist_are_kept() {
+		String activityId = createActivity("Edited", 1);
+		activityApi.joinActivity(user1.getUserId(), activityId);
+		assertEquals(RoleType.WAITLISTED, activityApi.joinActivity(user2.getUserId(), activityId));
+
+		// As sent by the edit form, which does not know about the limit
+		activityApi.updateActivity(activityId, updateRequest(activityId, null));
+
+		assertEquals(1, activityRepository.findById(activityId).orElseThrow().getMaxParticipants());
+		assertEquals(1, participantCount(activityId));
+		assertEquals(1, activityApi.getWaitlistPosition(user2.getUserId(), activityId).getPosition());
+	}
+
+	@Test
+	void given_same_user_joins_concurrently_then_only_one_join_succeeds() throws Exception {
+		String activityId = createActivity("Double click");
+
+		List<ErrorCode> failures = joinConcurrently(List.of(user1, user1, user1, user1), activityId);
+
+		assertEquals(3, failures.size(), "Repeated joins are reported as already joined, not as server errors");
+		assertEquals(1, participantCount(activityId));
+	}
+
+	@Test
+	void given_drifted_participant_count_then_reconciler_repairs_it() {
+		String activityId = createActivity("Drifted");
+		Activity activity = activityRepository.findById(activityId).orElseThrow();
+
+		// Rows written behind the service's back leave the counter untouched
+		userActivityRepo.save(UserActivity.builder().user(user1).activity(activity).role(RoleType.PARTICIPANT).build());
+		userActivityRepo.save(UserActivity.builder().user(user2).activity(activity).role(RoleType.PARTICIPANT).build());
+		assertEquals(0, participantCount(activityId));
+
+		assertEquals(1, reconciler.reconcile());
+		assertEquals(2, participantCount(activityId));
+		assertEquals(0, reconciler.reconcile(), "Nothing should be left to repair");
+	}
+
+	@Test
+	void given_crowded_activity_then_force_delete_removes_memberships_and_comments() {
+		String activityId = createActivity("Crowded");
+		String otherId = createActivity("Other");
+		Activity activity = activityRepository.findById(activityId).orElseThrow();
+		List<Users> users = userRepository.saveAll(IntStream.range(0, 300)
+				.mapToObj(i -> Users.builder().email("crowd" + i + "@bu.edu").username("crowd" + i)
+						.password("password").accountState(AccountState.VERIFIED).build())
+				.toList());
+		userActivityRepo.saveAll(users.stream()
+				.map(user -> UserActivity.builder().user(user).activity(activity).role(RoleType.PARTICIPANT).build())
+				.toList());
+		commentRepository.saveAll(IntStream.range(0, 1000)
+				.mapToObj(i -> ActivityComment.builder().activityId(i % 10 == 0 ? otherId : activityId)
+						.userId(users.get(i % users.size()).getUserId()).comment("comment " + i).timestamp(now())
+						.build())
+				.toList());
+
+		activityApi.deleteActivity(activityId, ActivityDeleteRequestDto.builder().force(true).build());
+
+		assertTrue(activityRepository.findById(activityId).isEmpty());
+		assertTrue(userActivityRepo.findByActivityIdAndRole(activityId, RoleType.PARTICIPANT).isEmpty());
+		assertEquals(100, commentRepository.count(), "Only the comments of the other activity are left");
+		assertEquals(1, userActivityRepo.findByActivityIdAndRole(otherId, RoleType.ADMIN).size());
+	}
+}
@@ -0,0 +1,68 @@
+package com.bu.getactivecore.service.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+
+class ReplayingSnapshotTest {
+
+	/**
+	 * The view is the list of IDs of the changes applied to it.
+	 */
+	private static ReplayingSnapshot<List<String>> snapshot() {
+		return new ReplayingSnapshot<>(List.of(), (ids, change) -> {
+			List<String> updated = new ArrayList<>(ids);
+			updated.add(change.getActivityId());
+			return updated;
+		});
+	}
+
+	@Test
+	void given_changes_during_rebuild_then_they_are_replayed_on_the_rebuilt_view() {
+		ReplayingSnapshot<List<String>> snapshot = snapshot();
+		snapshot.apply(ActivityChangedEvent.deleted("before"));
+
+		List<String> rebuilt = snapshot.rebuild(() -> {
+			snapshot.apply(ActivityChangedEvent.deleted("during"));
+			return List.of("loaded");
+		});
+
+		assertEquals(List.of("loaded", "during"), rebuilt);
+		assertEquals(List.of("loaded", "during"), snapshot.get());
+		snapshot.apply(ActivityChangedEvent.deleted("after"));
+		assertEquals(List.of("loaded", "during", "after"), snapshot.get());
+	}
+
+	@Test
+	void given_rebuild_running_then_another_one_is_skipped() {
+		ReplayingSnapshot<List<String>> snapshot = snapshot();
+
+		snapshot.rebuild(() -> {
+			assertNull(snapshot.rebuild(() -> List.of("nested")));
+			return List.of("outer");
+		});
+
+		assertEquals(List.of("outer"), snapshot.get());
+	}
+
+	@Test
+	void given_failed_rebuild_then_view_is_kept_and_next_rebuild_runs() {
+		ReplayingSnapshot<List<String>> snapshot = snapshot();
+		snapshot.apply(ActivityChangedEvent.deleted("kept"));
+
+		assertThrows(IllegalStateException.class, () -> snapshot.rebuild(() -> {
+			throw new IllegalStateException("database down");
+		}));
+		snapshot.apply(ActivityChangedEvent.deleted("next"));
+
+		assertEquals(List.of("kept", "next"), snapshot.get());
+		assertEquals(List.of("loaded"), snapshot.rebuild(() -> List.of("loaded")));
+	}
+}
@@ -0,0 +1,130 @@
+package com.bu.getactivecore.service.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.bu.getactivecore.model.activity.Activity;
+import com.bu.getactivecore.repository.ActivityRepository;
+import com.bu.getactivecore.service.activity.entity.ActivityChangedEvent;
+import com.bu.getactivecore.service.activity.entity.ActivityDto;
+
+class UpcomingActivityIndexTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 7, 12, 0);
+
+	private UpcomingActivityIndex index;
+
+	@BeforeEach
+	void setUp() {
+		ActivityRepository activityRepository = mock(ActivityRepository.class);
+		when(activityRepository.findOverlapping(any(), any(), any(Pageable.class))).thenReturn(List.of( //
+				activity("lunch", 0, 2), //
+				activity("dinner", 6, 20), //
+				activity("concert", 7, 23), //
+				activity("hike", 20, 32), //
+				activity("late", 21, 22)));
+		index = new UpcomingActivityIndex(activityRepository, 30);
+		index.rebuild(NOW);
+	}
+
+	/**
+	 * @return an activity starting and ending the given hours after {@link #NOW}
+	 */
+	private static Activity activity(String id, int startHours, int endHours) {
+		return Activity.builder().id(id).name(id).startDateTime(NOW.plusHours(startHours))
+				.endDateTime(NOW.plusHours(endHours)).build();
+	}
+
+	private List<String> overlapping(int fromHours, int toHours) {
+		return index.findOverlapping(NOW.plusHours(fromHours), NOW.plusHours(toHours), 100).orElseThrow().stream()
+				.map(ActivityDto::getId).toList();
+	}
+
+	@Test
+	void given_window_then_overlapping_activities_are_returned_by_start_time() {
+		assertEquals(List.of("dinner", "concert"), overlapping(6, 9));
+		assertEquals(List.of("lunch", "dinner"), overlapping(0, 7));
+		assertEquals(List.of("concert", "hike", "late"), overlapping(20, 22));
+		assertTrue(overlapping(2, 5).isEmpty());
+	}
+
+	@Test
+	void given_window_touching_an_activity_then_it_is_not_overlapping() {
+		assertEquals(List.of("dinner"), overlapping(2, 7));
+		assertEquals(List.of("hike"), overlapping(23, 24));
+	}
+
+	@Test
+	void given_limit_then_earliest_starting_are_returned() {
+		List<ActivityDto> result = index.findOverlapping(NOW, NOW.plusDays(2), 2).orElseThrow();
+		assertEquals(List.of("lunch", "dinner"), result.stream().map(ActivityDto::getId).toList());
+	}
+
+	@Test
+	void given_period_then_activities_starting_within_it_are_returned() {
+		List<ActivityDto> result = index.findStartingBetween(NOW.plusHours(5), NOW.plusHours(21), 10).orElseThrow();
+		assertEquals(List.of("dinner", "concert", "hike"), result.stream().map(ActivityDto::getId).toList());
+	}
+
+	@Test
+	void given_window_beyond_horizon_or_in_the_past_then_it_is_not_covered() {
+		assertTrue(index.findOverlapping(NOW.plusDays(29), NOW.plusDays(31), 10).isEmpty());
+		assertTrue(index.findOverlapping(NOW.minusHours(1), NOW.plusHours(1), 10).isEmpty());
+		assertTrue(index.findStartingBetween(NOW.plusDays(40), NOW.plusDays(41), 10).isEmpty());
+	}
+
+	@Test
+	void given_create_update_and_delete_then_index_follows() {
+		index.onActivityChanged(ActivityChangedEvent.created(ActivityDto.of(activity("yoga", 7, 8))));
+		assertEquals(List.of("dinner", "concert", "yoga"), overlapping(6, 9));
+
+		index.onActivityChanged(ActivityChangedEvent.updated(ActivityDto.of(activity("dinner", 3, 4))));
+		assertEquals(List.of("concert", "yoga"), overlapping(6, 9));
+		assertEquals(List.of("dinner"), overlapping(2, 5));
+
+		index.onActivityChanged(ActivityChangedEvent.deleted("concert"));
+		assertEquals(List.of("yoga"), overlapping(6, 9));
+
+		// Moved beyond the horizon, no longer held
+		index.onActivityChanged(ActivityChangedEvent.updated(ActivityDto.of(activity("yoga", 24 * 40, 24 * 40 + 1))));
+		assertTrue(overlapping(6, 9).isEmpty());
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	void given_many_activities_then_overlap_matches_a_linear_scan() {
+		ActivityRepository activityRepository = mock(ActivityRepository.class);
+		List<Activity> activities = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			int start = (i * 37) % 300;
+			activities.add(activity("a" + i, start, start + 1 + (i * 13) % 40));
+		}
+		when(activityRepository.findOverlapping(any(), any(), any(Pageable.class))).thenReturn(activities);
+		index = new UpcomingActivityIndex(activityRepository, 30);
+		index.rebuild(NOW);
+
+		for (int from = 0; from < 340; from += 7) {
+			LocalDateTime windowFrom = NOW.plusHours(from);
+			LocalDateTime windowTo = windowFrom.plusHours(5);
+			List<String> expected = activities.stream()
+					.filter(a -> a.getStartDateTime().isBefore(windowTo) && a.getEndDateTime().isAfter(windowFrom))
+					.sorted((a, b) -> a.getStartDateTime().equals(b.getStartDateTime())
+							? a.getId().compareTo(b.getId())
+							: a.getStartDateTime().compareTo(b.getStartDateTime()))
+					.map(Activity::getId).toList();
+			assertEquals(expected, index.findOverlapping(windowFrom, windowTo, 1000).orElseThrow().stream()
+					.map(ActivityDto::getId).toList());
+		}
+	}
+}
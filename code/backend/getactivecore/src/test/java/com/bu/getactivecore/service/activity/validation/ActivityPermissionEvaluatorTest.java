@@ -23,7 +23,6 @@ import com.bu.getactivecore.model.activity.UserActivity;
 import com.bu.getactivecore.model.users.UserPrincipal;
 import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.UserActivityRepository;
-import com.bu.getactivecore.service.users.entity.UserDto;
 import com.bu.getactivecore.shared.ErrorCode;
 import com.bu.getactivecore.shared.exception.ResourceAccessDeniedException;
 
@@ -45,8 +44,7 @@ class ActivityPermissionEvaluatorTest {
 	@BeforeEach
 	void setup() {
 		when(authentication.getPrincipal()).thenReturn(userPrincipal);
-		UserDto userDto = UserDto.builder().userId(USER_ID).build();
-		when(userPrincipal.getUserDto()).thenReturn(userDto);
+		when(userPrincipal.getUserId()).thenReturn(USER_ID);
 	}
 
 	@Test
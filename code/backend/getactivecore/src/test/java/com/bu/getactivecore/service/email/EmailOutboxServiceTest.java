@@ -0,0 +1,180 @@
+package com.bu.getactivecore.service.email;
+
+import static com.bu.getactivecore.shared.ErrorCode.EMAIL_INVALID;
+import static com.bu.getactivecore.shared.ErrorCode.SERVICE_BUSY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.bu.getactivecore.config.JavaGmailMailConfig;
+import com.bu.getactivecore.model.email.EmailOutbox;
+import com.bu.getactivecore.repository.EmailOutboxRepository;
+import com.bu.getactivecore.service.email.api.EmailApi;
+import com.bu.getactivecore.shared.ApiErrorPayload;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The poller is kept idle and the outbox table is not shared with the pollers
+ * of other cached test contexts, so that each test drives the relay itself.
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:outboxtest;DATABASE_TO_UPPER=false",
+		"mail.outbox.poll-interval-ms=3600000", "mail.outbox.max-attempts=2" })
+class EmailOutboxServiceTest {
+
+	private static final String EMAIL = "1234@bu.edu";
+
+	private static final String USERNAME = "test";
+
+	private static final String TOKEN = "token";
+
+	@MockitoBean
+	private CommandLineRunner demoPreloadData;
+
+	@MockitoBean
+	private EmailApi emailApi;
+
+	@MockitoBean
+	private JavaGmailMailConfig javaGmailMailConfig;
+
+	@Autowired
+	private EmailOutboxService outboxService;
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setup() {
+		outboxService.enqueueVerificationEmail(EMAIL, USERNAME, TOKEN);
+	}
+
+	@AfterEach
+	void cleanup() {
+		outboxRepository.deleteAll();
+	}
+
+	private EmailOutbox row() {
+		List<EmailOutbox> rows = outboxRepository.findAll();
+		assertEquals(1, rows.size());
+		return rows.get(0);
+	}
+
+	/**
+	 * Lets the backoff or lease of the row expire.
+	 */
+	private void makeDue() {
+		EmailOutbox row = row();
+		row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		outboxRepository.save(row);
+	}
+
+	@Test
+	void given_email_with_dispatcher_then_row_is_delivered_only_once_sent() {
+		CompletableFuture<Void> delivery = new CompletableFuture<>();
+		when(emailApi.sendVerificationEmail(EMAIL, TOKEN)).thenReturn(delivery);
+
+		outboxService.relayPending();
+		assertNull(row().getDeliveredAt(), "Handing the email to the dispatcher does not deliver it");
+		assertNotNull(row().getNextAttemptAt());
+
+		outboxService.relayPending();
+		verify(emailApi, times(1)).sendVerificationEmail(EMAIL, TOKEN);
+
+		delivery.complete(null);
+		assertNotNull(row().getDeliveredAt());
+		assertEquals(0, row().getAttempts());
+	}
+
+	@Test
+	void given_outcome_lost_then_row_is_relayed_again_after_lease() {
+		when(emailApi.sendVerificationEmail(EMAIL, TOKEN)).thenReturn(new CompletableFuture<>());
+
+		outboxService.relayPending();
+		makeDue();
+		outboxService.relayPending();
+
+		verify(emailApi, times(2)).sendVerificationEmail(EMAIL, TOKEN);
+	}
+
+	@Test
+	void given_failed_send_then_row_is_backed_off_retried_and_abandoned() {
+		double abandoned = meterRegistry.get("mail.outbox.abandoned").counter().count();
+		when(emailApi.sendVerificationEmail(EMAIL, TOKEN))
+				.thenReturn(CompletableFuture.failedFuture(new MailSendException("Connection refused")));
+
+		outboxService.relayPending();
+		EmailOutbox failed = row();
+		assertEquals(1, failed.getAttempts());
+		assertEquals("Connection refused", failed.getLastError());
+		assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+		outboxService.relayPending();
+		verify(emailApi, times(1)).sendVerificationEmail(EMAIL, TOKEN);
+
+		makeDue();
+		outboxService.relayPending();
+		verify(emailApi, times(2)).sendVerificationEmail(EMAIL, TOKEN);
+		assertEquals(2, row().getAttempts());
+		assertEquals(abandoned + 1, meterRegistry.get("mail.outbox.abandoned").counter().count());
+
+		makeDue();
+		outboxService.relayPending();
+		verify(emailApi, times(2)).sendVerificationEmail(EMAIL, TOKEN);
+		assertNull(row().getDeliveredAt());
+	}
+
+	@Test
+	void given_invalid_recipient_then_row_is_abandoned_without_retry() {
+		double abandoned = meterRegistry.get("mail.outbox.abandoned").counter().count();
+		when(emailApi.sendVerificationEmail(EMAIL, TOKEN))
+				.thenThrow(new ApiException(ApiErrorPayload.builder().status(HttpStatus.BAD_REQUEST)
+						.errorCode(EMAIL_INVALID).message("Invalid email address").build()));
+
+		outboxService.relayPending();
+		assertEquals("Invalid email address", row().getLastError());
+		assertEquals(abandoned + 1, meterRegistry.get("mail.outbox.abandoned").counter().count());
+
+		makeDue();
+		outboxService.relayPending();
+		verify(emailApi, times(1)).sendVerificationEmail(EMAIL, TOKEN);
+	}
+
+	@Test
+	void given_saturated_dispatcher_then_row_is_retried_on_next_poll_without_counting_attempt() {
+		when(emailApi.sendVerificationEmail(EMAIL, TOKEN))
+				.thenThrow(new ApiException(ApiErrorPayload.builder().status(HttpStatus.SERVICE_UNAVAILABLE)
+						.errorCode(SERVICE_BUSY).message("busy").build()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+
+		outboxService.relayPending();
+		assertEquals(0, row().getAttempts());
+		assertNull(row().getNextAttemptAt());
+
+		outboxService.relayPending();
+		verify(emailApi, times(2)).sendVerificationEmail(any(), any());
+		assertNotNull(row().getDeliveredAt());
+	}
+}
@@ -0,0 +1,164 @@
+package com.bu.getactivecore.service.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+
+class MailDispatcherTest {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private MailDispatcher dispatcher;
+
+	@AfterEach
+	void tearDown() {
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+	}
+
+	@Test
+	void given_queued_messages_then_all_are_delivered_over_a_reused_connection() throws Exception {
+		dispatcher = new MailDispatcher(sender(greenMail.getSmtp().getPort()), properties(1), registry);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(dispatcher.submit(message(i + "@bu.edu")));
+		}
+		dispatcher.start();
+
+		assertTrue(greenMail.waitForIncomingEmail(5000, 5));
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertEquals(5, received.length);
+		assertEquals("GetActive: test", received[0].getSubject());
+		assertEquals(5.0, registry.get("mail.dispatch.sent").counter().count());
+		assertEquals(1.0, registry.get("mail.dispatch.connections").counter().count());
+	}
+
+	@Test
+	void given_unreachable_server_then_message_is_retried_and_then_dropped() throws Exception {
+		MailDispatchProperties properties = properties(1);
+		properties.setMaxAttempts(2);
+		dispatcher = new MailDispatcher(sender(1), properties, registry);
+		dispatcher.start();
+		CompletableFuture<Void> delivery = new CompletableFuture<>();
+		assertTrue(dispatcher.submit(message("1@bu.edu"), delivery));
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (registry.get("mail.dispatch.failed").counter().count() < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		assertEquals(1.0, registry.get("mail.dispatch.retried").counter().count());
+		assertEquals(1.0, registry.get("mail.dispatch.failed").counter().count());
+		assertEquals(0.0, registry.get("mail.dispatch.sent").counter().count());
+		assertThrows(ExecutionException.class, () -> delivery.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void given_connection_dropped_by_server_then_message_is_sent_over_a_new_one() throws Exception {
+		dispatcher = new MailDispatcher(sender(greenMail.getSmtp().getPort()), properties(1), registry);
+		dispatcher.start();
+		CompletableFuture<Void> first = new CompletableFuture<>();
+		assertTrue(dispatcher.submit(message("1@bu.edu"), first));
+		first.get(5, TimeUnit.SECONDS);
+
+		// Restarting the server drops the connection the worker keeps open
+		greenMail.reset();
+		CompletableFuture<Void> second = new CompletableFuture<>();
+		assertTrue(dispatcher.submit(message("2@bu.edu"), second));
+		second.get(5, TimeUnit.SECONDS);
+
+		assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+		assertEquals(2.0, registry.get("mail.dispatch.connections").counter().count());
+		assertEquals(0.0, registry.get("mail.dispatch.retried").counter().count());
+	}
+
+	@Test
+	void given_unexpected_exception_then_worker_keeps_sending() throws Exception {
+		JavaMailSender sender = mock(JavaMailSender.class);
+		doThrow(new IllegalStateException("boom")).doNothing().when(sender).send(any(SimpleMailMessage[].class));
+		dispatcher = new MailDispatcher(sender, properties(1), registry);
+		dispatcher.start();
+
+		CompletableFuture<Void> first = new CompletableFuture<>();
+		assertTrue(dispatcher.submit(message("1@bu.edu"), first));
+		first.get(5, TimeUnit.SECONDS);
+		CompletableFuture<Void> second = new CompletableFuture<>();
+		assertTrue(dispatcher.submit(message("2@bu.edu"), second));
+		second.get(5, TimeUnit.SECONDS);
+
+		assertEquals(1.0, registry.get("mail.dispatch.retried").counter().count());
+		assertEquals(2.0, registry.get("mail.dispatch.sent").counter().count());
+	}
+
+	@Test
+	void given_shutdown_then_queued_messages_are_sent_before_stopping() throws Exception {
+		dispatcher = new MailDispatcher(sender(greenMail.getSmtp().getPort()), properties(1), registry);
+		List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			CompletableFuture<Void> delivery = new CompletableFuture<>();
+			assertTrue(dispatcher.submit(message(i + "@bu.edu"), delivery));
+			deliveries.add(delivery);
+		}
+		dispatcher.start();
+		dispatcher.shutdown();
+
+		for (CompletableFuture<Void> delivery : deliveries) {
+			assertTrue(delivery.isDone());
+			assertFalse(delivery.isCompletedExceptionally());
+		}
+		assertTrue(greenMail.waitForIncomingEmail(5000, 5));
+		assertFalse(dispatcher.submit(message("late@bu.edu")), "No messages are accepted after a shutdown");
+	}
+
+	private static JavaMailSenderImpl sender(int port) {
+		JavaMailSenderImpl sender = new JavaMailSenderImpl();
+		sender.setHost("localhost");
+		sender.setPort(port);
+		sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+		return sender;
+	}
+
+	private static MailDispatchProperties properties(int workers) {
+		MailDispatchProperties properties = new MailDispatchProperties();
+		properties.setWorkers(workers);
+		properties.setInitialBackoff(Duration.ofMillis(50));
+		properties.setIdleTimeout(Duration.ofSeconds(5));
+		return properties;
+	}
+
+	private static SimpleMailMessage message(String to) {
+		SimpleMailMessage message = new SimpleMailMessage();
+		message.setFrom("noreply@bu.edu");
+		message.setTo(to);
+		message.setSubject("GetActive: test");
+		message.setText("body");
+		return message;
+	}
+}
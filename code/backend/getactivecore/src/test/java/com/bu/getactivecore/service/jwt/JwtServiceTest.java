@@ -15,8 +15,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.bu.getactivecore.service.jwt.api.JwtApi.TokenClaimType;
+import com.bu.getactivecore.service.jwt.entity.VerifiedToken;
 import com.bu.getactivecore.shared.exception.ApiException;
 
+import io.jsonwebtoken.JwtException;
+
 class JwtServiceTest {
 
 	private JwtProperties jwtProperties;
@@ -117,4 +121,34 @@ class JwtServiceTest {
 		Mockito.when(userDetails.getUsername()).thenReturn("testuser");
 		assertTrue(jwtService.validateToken(token, userDetails));
 	}
-}
\ No newline at end of file
+
+	@Test
+	void given_valid_token_then_verified_token_exposes_claims() throws NoSuchAlgorithmException {
+		jwtProperties.setExpirationMs(10 * 1000L);
+		jwtService.init();
+
+		String token = jwtService.generateToken("testuser", TokenClaimType.REGISTRATION_CONFIRMATION);
+		VerifiedToken verifiedToken = jwtService.verify(token);
+
+		assertEquals(token, verifiedToken.getToken());
+		assertEquals("testuser", verifiedToken.getUsername());
+		assertEquals(TokenClaimType.REGISTRATION_CONFIRMATION, verifiedToken.getClaimType());
+		assertNotNull(verifiedToken.getExpiration());
+
+		UserDetails userDetails = Mockito.mock(UserDetails.class);
+		Mockito.when(userDetails.getUsername()).thenReturn("testuser");
+		assertTrue(jwtService.validateToken(verifiedToken, userDetails));
+	}
+
+	@Test
+	void given_tampered_token_then_verify_throws() throws NoSuchAlgorithmException {
+		jwtProperties.setExpirationMs(10 * 1000L);
+		jwtService.init();
+
+		String[] parts = jwtService.generateToken("testuser").split("\\.");
+		String tamperedPayload = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("{\"sub\":\"some_other_user\"}".getBytes());
+
+		assertThrows(JwtException.class, () -> jwtService.verify(parts[0] + "." + tamperedPayload + "." + parts[2]));
+	}
+}
@@ -0,0 +1,116 @@
+package com.bu.getactivecore.service.registration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bu.getactivecore.model.users.AccountState;
+import com.bu.getactivecore.model.users.Users;
+import com.bu.getactivecore.repository.UserRepository;
+import com.bu.getactivecore.service.email.api.EmailOutboxApi;
+import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.jwt.api.JwtApi.TokenClaimType;
+import com.bu.getactivecore.service.registration.entity.ConfirmationResendRequestDto;
+import com.bu.getactivecore.service.security.UserPrincipalCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationServiceTest {
+
+	private static final String EMAIL = "1234@bu.edu";
+
+	private static final String USERNAME = "test";
+
+	private static final Duration COALESCE_WINDOW = Duration.ofMinutes(2);
+
+	@Mock
+	private EmailOutboxApi emailOutbox;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private JwtApi jwtApi;
+
+	@Mock
+	private UserPrincipalCache principalCache;
+
+	@Mock
+	private PasswordEncoder passwordEncoder;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private RegistrationService registrationService;
+
+	@BeforeEach
+	void setUp() {
+		ResendThrottleProperties properties = new ResendThrottleProperties();
+		properties.setCapacity(2);
+		properties.setCoalesceWindow(COALESCE_WINDOW);
+		registrationService = new RegistrationService(emailOutbox, userRepository, jwtApi, principalCache,
+				passwordEncoder, new ResendThrottle(properties, registry), properties, registry);
+	}
+
+	private void givenUnverifiedUser() {
+		Users user = Users.builder().userId("u1").email(EMAIL).username(USERNAME)
+				.accountState(AccountState.UNVERIFIED).build();
+		when(userRepository.findByEmailAndUsername(EMAIL, USERNAME)).thenReturn(Optional.of(user));
+	}
+
+	private double resends(String outcome) {
+		return registry.get("registration.resend").tag("outcome", outcome).counter().count();
+	}
+
+	@Test
+	void given_no_recent_email_then_confirmation_is_queued() {
+		givenUnverifiedUser();
+		when(emailOutbox.hasRecentVerificationEmail(USERNAME, COALESCE_WINDOW)).thenReturn(false);
+		when(jwtApi.generateToken(USERNAME, TokenClaimType.REGISTRATION_CONFIRMATION)).thenReturn("token");
+
+		registrationService.resendConfirmation(new ConfirmationResendRequestDto(EMAIL, USERNAME));
+
+		verify(emailOutbox).enqueueVerificationEmail(EMAIL, USERNAME, "token");
+		assertEquals(1.0, resends("sent"));
+	}
+
+	@Test
+	void given_recent_email_then_resend_is_coalesced() {
+		givenUnverifiedUser();
+		// Also when the earlier email was delivered already
+		when(emailOutbox.hasRecentVerificationEmail(USERNAME, COALESCE_WINDOW)).thenReturn(true);
+
+		registrationService.resendConfirmation(new ConfirmationResendRequestDto(EMAIL, USERNAME));
+
+		verify(emailOutbox, never()).enqueueVerificationEmail(any(), any(), any());
+		verify(jwtApi, never()).generateToken(any(), any());
+		assertEquals(1.0, resends("coalesced"));
+	}
+
+	@Test
+	void given_bucket_is_empty_then_resend_is_throttled_before_querying() {
+		givenUnverifiedUser();
+		when(emailOutbox.hasRecentVerificationEmail(USERNAME, COALESCE_WINDOW)).thenReturn(true);
+
+		for (int i = 0; i < 5; i++) {
+			registrationService.resendConfirmation(new ConfirmationResendRequestDto(EMAIL, USERNAME));
+		}
+
+		verify(userRepository, times(2)).findByEmailAndUsername(EMAIL, USERNAME);
+		assertEquals(2.0, resends("coalesced"));
+		assertEquals(3.0, resends("throttled"));
+	}
+}
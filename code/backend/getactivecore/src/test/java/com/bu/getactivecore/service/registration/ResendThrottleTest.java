@@ -0,0 +1,68 @@
+package com.bu.getactivecore.service.registration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResendThrottleTest {
+
+	/**
+	 * Current time of the throttles under test, advanced by the tests.
+	 */
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	private void advance(Duration duration) {
+		nanoTime.addAndGet(duration.toNanos());
+	}
+
+	@Test
+	void given_bucket_is_empty_then_resend_is_throttled_until_refilled() {
+		ResendThrottleProperties properties = new ResendThrottleProperties();
+		properties.setCapacity(2);
+		properties.setRefillInterval(Duration.ofMillis(200));
+		ResendThrottle throttle = new ResendThrottle(properties, new SimpleMeterRegistry(), nanoTime::get);
+
+		assertTrue(throttle.tryAcquire("1234@bu.edu", "test"));
+		assertTrue(throttle.tryAcquire("1234@BU.edu", "TEST"));
+		assertFalse(throttle.tryAcquire("1234@bu.edu", "test"));
+
+		// Other pairs have their own bucket
+		assertTrue(throttle.tryAcquire("5678@bu.edu", "test"));
+
+		advance(Duration.ofMillis(199));
+		assertFalse(throttle.tryAcquire("1234@bu.edu", "test"));
+		advance(Duration.ofMillis(1));
+		assertTrue(throttle.tryAcquire("1234@bu.edu", "test"));
+		assertFalse(throttle.tryAcquire("1234@bu.edu", "test"));
+	}
+
+	@Test
+	void given_max_entries_reached_then_new_pairs_are_let_through_until_cleanup() {
+		ResendThrottleProperties properties = new ResendThrottleProperties();
+		properties.setCapacity(1);
+		properties.setRefillInterval(Duration.ofMillis(200));
+		properties.setMaxEntries(1);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ResendThrottle throttle = new ResendThrottle(properties, registry, nanoTime::get);
+
+		assertTrue(throttle.tryAcquire("1234@bu.edu", "test"));
+		assertFalse(throttle.tryAcquire("1234@bu.edu", "test"));
+
+		// A full throttle must not lock out everyone else
+		assertTrue(throttle.tryAcquire("5678@bu.edu", "other"));
+		assertTrue(throttle.tryAcquire("5678@bu.edu", "other"));
+		assertEquals(2.0, registry.get("registration.resend.untracked").counter().count());
+
+		advance(Duration.ofMillis(200));
+		throttle.evictRefilled();
+		assertTrue(throttle.tryAcquire("5678@bu.edu", "other"));
+		assertFalse(throttle.tryAcquire("5678@bu.edu", "other"), "Tracked again once the cleanup made room");
+	}
+}
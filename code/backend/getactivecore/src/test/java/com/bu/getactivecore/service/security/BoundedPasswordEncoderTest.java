@@ -0,0 +1,93 @@
+package com.bu.getactivecore.service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bu.getactivecore.shared.ErrorCode;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BoundedPasswordEncoderTest {
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void given_idle_pool_then_delegate_result_is_returned() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(NoOpPasswordEncoder.getInstance(),
+				properties(1, 1, Duration.ofSeconds(5)), registry);
+		try {
+			assertEquals("secret", encoder.encode("secret"));
+			assertTrue(encoder.matches("secret", "secret"));
+			assertEquals(1, registry.get("password.hashing.latency").tag("operation", "encode").timer().count());
+		} finally {
+			encoder.destroy();
+		}
+	}
+
+	@Test
+	void given_saturated_pool_then_503_with_retry_after_is_thrown() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PasswordEncoder blocking = new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return rawPassword.toString();
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				return rawPassword.toString().equals(encodedPassword);
+			}
+		};
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, properties(1, 1, Duration.ofSeconds(5)),
+				registry);
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			// One request occupies the only thread, the next one fills the queue
+			callers.submit(() -> encoder.encode("a"));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			callers.submit(() -> encoder.encode("b"));
+			while (registry.get("password.hashing.queue.depth").gauge().value() < 1) {
+				Thread.onSpinWait();
+			}
+
+			ApiException e = assertThrows(ApiException.class, () -> encoder.encode("c"));
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getError().getStatus());
+			assertEquals(ErrorCode.SERVICE_BUSY, e.getError().getErrorCode());
+			assertEquals(2L, e.getError().getRetryAfterSeconds());
+			assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+		} finally {
+			release.countDown();
+			callers.shutdownNow();
+			encoder.destroy();
+		}
+	}
+
+	private static PasswordHashingProperties properties(int poolSize, int queueCapacity, Duration maxWait) {
+		PasswordHashingProperties properties = new PasswordHashingProperties();
+		properties.setPoolSize(poolSize);
+		properties.setQueueCapacity(queueCapacity);
+		properties.setMaxWait(maxWait);
+		return properties;
+	}
+}
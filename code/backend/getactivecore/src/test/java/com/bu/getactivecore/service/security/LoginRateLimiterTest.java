@@ -0,0 +1,111 @@
+package com.bu.getactivecore.service.security;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.bu.getactivecore.shared.ErrorCode;
+import com.bu.getactivecore.shared.exception.ApiException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginRateLimiterTest {
+
+	@Test
+	void given_username_reaches_limit_then_attempts_are_rejected_with_retry_after() {
+		LoginRateLimiter limiter = new LoginRateLimiter(properties(), new SimpleMeterRegistry());
+
+		limiter.recordFailure("10.0.0.1", "user");
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.1", "user"));
+		limiter.recordFailure("10.0.0.2", "USER");
+
+		ApiException e = assertThrows(ApiException.class, () -> limiter.checkAllowed("10.0.0.3", "user"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getError().getStatus());
+		assertEquals(ErrorCode.TOO_MANY_REQUESTS, e.getError().getErrorCode());
+		assertTrue(e.getError().getRetryAfterSeconds() >= 1);
+
+		// Other usernames from other addresses are unaffected
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.3", "other"));
+	}
+
+	@Test
+	void given_ip_reaches_limit_then_every_username_from_it_is_rejected() {
+		LoginRateLimiter limiter = new LoginRateLimiter(properties(), new SimpleMeterRegistry());
+
+		limiter.recordFailure("10.0.0.1", "a");
+		limiter.recordFailure("10.0.0.1", "b");
+		limiter.recordFailure("10.0.0.1", "c");
+
+		assertThrows(ApiException.class, () -> limiter.checkAllowed("10.0.0.1", "d"));
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.2", "d"));
+	}
+
+	@Test
+	void given_repeated_failures_while_locked_then_lockout_grows() {
+		LoginRateLimiter limiter = new LoginRateLimiter(properties(), new SimpleMeterRegistry());
+
+		limiter.recordFailure("10.0.0.1", "user");
+		limiter.recordFailure("10.0.0.2", "user");
+		long first = assertThrows(ApiException.class, () -> limiter.checkAllowed("10.0.0.9", "user")).getError()
+				.getRetryAfterSeconds();
+		limiter.recordFailure("10.0.0.3", "user");
+		long second = assertThrows(ApiException.class, () -> limiter.checkAllowed("10.0.0.9", "user")).getError()
+				.getRetryAfterSeconds();
+
+		assertTrue(second > first, "Lockout should grow, got " + first + " then " + second);
+	}
+
+	@Test
+	void given_successful_login_then_username_failures_are_cleared() {
+		LoginRateLimiter limiter = new LoginRateLimiter(properties(), new SimpleMeterRegistry());
+
+		limiter.recordFailure("10.0.0.1", "user");
+		limiter.recordSuccess("10.0.0.1", "user");
+		limiter.recordFailure("10.0.0.2", "user");
+
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.3", "user"));
+	}
+
+	@Test
+	void given_parallel_attempts_then_no_more_pass_than_failures_are_left() {
+		LoginRateLimiter limiter = new LoginRateLimiter(properties(), new SimpleMeterRegistry());
+
+		// Checked before any of them is verified, as in a burst
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.1", "user"));
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.2", "user"));
+		ApiException e = assertThrows(ApiException.class, () -> limiter.checkAllowed("10.0.0.3", "user"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getError().getStatus());
+
+		limiter.recordFailure("10.0.0.1", "user");
+		limiter.recordFailure("10.0.0.2", "user");
+		assertThrows(ApiException.class, () -> limiter.checkAllowed("10.0.0.3", "user"));
+	}
+
+	@Test
+	void given_successful_logins_then_their_reservations_are_refunded() {
+		LoginRateLimiter limiter = new LoginRateLimiter(properties(), new SimpleMeterRegistry());
+
+		for (int i = 0; i < 10; i++) {
+			assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.1", "user"));
+			limiter.recordSuccess("10.0.0.1", "user");
+		}
+		limiter.recordFailure("10.0.0.1", "other");
+		assertDoesNotThrow(() -> limiter.checkAllowed("10.0.0.1", "other"));
+	}
+
+	private static LoginRateLimitProperties properties() {
+		LoginRateLimitProperties properties = new LoginRateLimitProperties();
+		properties.setMaxFailuresPerUsername(2);
+		properties.setMaxFailuresPerIp(3);
+		properties.setBaseLockout(Duration.ofSeconds(30));
+		properties.setMaxLockout(Duration.ofMinutes(15));
+		properties.setShards(4);
+		return properties;
+	}
+}
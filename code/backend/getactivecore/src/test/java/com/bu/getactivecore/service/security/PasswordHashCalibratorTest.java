@@ -0,0 +1,63 @@
+package com.bu.getactivecore.service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHashCalibratorTest {
+
+	@Test
+	void given_calibration_then_strength_is_within_bounds_and_published() {
+		PasswordHashingProperties properties = new PasswordHashingProperties();
+		properties.setMinStrength(10);
+		properties.setMaxStrength(11);
+		properties.setTargetLatency(Duration.ofSeconds(10));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+		PasswordHashCalibrator calibrator = new PasswordHashCalibrator(properties, registry);
+		calibrator.init();
+
+		assertEquals(11, calibrator.getStrength());
+		assertEquals(11.0, registry.get("password.hashing.strength").gauge().value());
+		assertTrue(registry.get("password.hashing.calibrated.latency").gauge().value() > 0);
+	}
+
+	@Test
+	void given_configured_strength_below_floor_then_floor_is_used() {
+		PasswordHashingProperties properties = new PasswordHashingProperties();
+		properties.setStrength(4);
+
+		PasswordHashCalibrator calibrator = new PasswordHashCalibrator(properties, new SimpleMeterRegistry());
+		calibrator.init();
+
+		assertEquals(10, calibrator.getStrength());
+	}
+
+	@Test
+	void given_stored_hash_strength_then_only_weaker_or_out_of_range_hashes_are_upgraded() {
+		PasswordHashingProperties properties = new PasswordHashingProperties();
+		properties.setStrength(10);
+		properties.setMaxStrength(12);
+		PasswordHashCalibrator calibrator = new PasswordHashCalibrator(properties, new SimpleMeterRegistry());
+		calibrator.init();
+		BCryptPasswordEncoder encoder = calibrator.createEncoder();
+
+		String weak = new BCryptPasswordEncoder(4).encode("secret");
+		String current = encoder.encode("secret");
+		String stronger = current.replaceFirst("\\$10\\$", "\\$12\\$");
+		String tooStrong = current.replaceFirst("\\$10\\$", "\\$17\\$");
+
+		assertEquals(4, PasswordHashCalibrator.strengthOf(weak));
+		assertTrue(encoder.upgradeEncoding(weak));
+		assertFalse(encoder.upgradeEncoding(current));
+		assertFalse(encoder.upgradeEncoding(stronger));
+		assertTrue(encoder.upgradeEncoding(tooStrong));
+	}
+}
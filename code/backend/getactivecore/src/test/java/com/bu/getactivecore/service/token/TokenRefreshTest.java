@@ -0,0 +1,127 @@
+package com.bu.getactivecore.service.token;
+
+import static com.bu.getactivecore.service.jwt.api.JwtApi.TokenClaimType.REFRESH;
+import static com.bu.getactivecore.util.JwtTestUtil.extractClaim;
+import static com.bu.getactivecore.util.RestEndpoint.TOKEN_REFRESH;
+import static com.bu.getactivecore.util.RestUtil.registerAndLogin;
+import static com.bu.getactivecore.util.RestUtil.sendGet;
+import static com.bu.getactivecore.util.RestUtil.sendPost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.bu.getactivecore.config.JavaGmailMailConfig;
+import com.bu.getactivecore.repository.RefreshTokenFamilyRepository;
+import com.bu.getactivecore.repository.UserRepository;
+import com.bu.getactivecore.service.email.EmailVerificationService;
+import com.bu.getactivecore.service.registration.entity.RegistrationRequestDto;
+import com.bu.getactivecore.service.token.entity.TokenRefreshRequestDto;
+import com.bu.getactivecore.shared.ErrorCode;
+import com.bu.getactivecore.util.RestEndpoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenRefreshTest {
+
+	private static final String VALID_PASSWORD = "Test123.";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@MockitoBean
+	private CommandLineRunner demoPreloadData;
+
+	@MockitoBean
+	private EmailVerificationService emailVerificationService;
+
+	@MockitoBean
+	private JavaGmailMailConfig javaGmailMailConfig;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RefreshTokenFamilyRepository familyRepository;
+
+	@AfterEach
+	void cleanup() {
+		familyRepository.deleteAll();
+		userRepository.deleteAll();
+	}
+
+	private JsonNode loginData() throws Exception {
+		MvcResult response = registerAndLogin(mockMvc,
+				new RegistrationRequestDto("1234@bu.edu", "testuser", VALID_PASSWORD))
+				.andExpect(status().is2xxSuccessful()).andReturn();
+		return objectMapper.readTree(response.getResponse().getContentAsString()).at("/data");
+	}
+
+	private JsonNode refresh(String refreshToken) throws Exception {
+		MvcResult response = sendPost(mockMvc, TOKEN_REFRESH, new TokenRefreshRequestDto(refreshToken))
+				.andExpect(status().isOk()).andDo(print()).andExpect(jsonPath("$.data.token").isNotEmpty())
+				.andExpect(jsonPath("$.data.refreshToken").isNotEmpty()).andReturn();
+		return objectMapper.readTree(response.getResponse().getContentAsString()).at("/data");
+	}
+
+	@Test
+	void given_login_then_refresh_token_is_issued_and_can_be_rotated() throws Exception {
+		JsonNode login = loginData();
+		String refreshToken = login.get("refreshToken").asText();
+		assertEquals(REFRESH.name(), extractClaim(refreshToken, "type"));
+
+		JsonNode renewed = refresh(refreshToken);
+		assertNotEquals(refreshToken, renewed.get("refreshToken").asText());
+
+		// The renewed access token can be used right away
+		sendGet(mockMvc, RestEndpoint.ACTIVITIES, Map.of(), renewed.get("token").asText())
+				.andExpect(status().is2xxSuccessful());
+	}
+
+	@Test
+	void given_refresh_token_reused_then_whole_family_is_revoked() throws Exception {
+		String firstRefreshToken = loginData().get("refreshToken").asText();
+		String secondRefreshToken = refresh(firstRefreshToken).get("refreshToken").asText();
+
+		// Replaying the rotated token is rejected...
+		sendPost(mockMvc, TOKEN_REFRESH, new TokenRefreshRequestDto(firstRefreshToken))
+				.andExpect(status().isUnauthorized())
+				.andExpect(jsonPath("$.errors.errorCode").value(ErrorCode.TOKEN_INVALID.getCode()));
+
+		// ...and also invalidates the token the legitimate client holds
+		sendPost(mockMvc, TOKEN_REFRESH, new TokenRefreshRequestDto(secondRefreshToken))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void given_refresh_token_used_as_access_token_then_request_is_rejected() throws Exception {
+		String refreshToken = loginData().get("refreshToken").asText();
+
+		sendGet(mockMvc, RestEndpoint.ACTIVITIES, Map.of(), refreshToken).andExpect(status().is4xxClientError());
+	}
+
+	@Test
+	void given_access_token_used_as_refresh_token_then_401_returned() throws Exception {
+		String accessToken = loginData().get("token").asText();
+
+		sendPost(mockMvc, TOKEN_REFRESH, new TokenRefreshRequestDto(accessToken)).andExpect(status().isUnauthorized())
+				.andExpect(jsonPath("$.errors.errorCode").value(ErrorCode.TOKEN_INVALID.getCode()));
+	}
+}
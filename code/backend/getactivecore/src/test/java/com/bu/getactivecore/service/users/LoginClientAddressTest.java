@@ -0,0 +1,63 @@
+package com.bu.getactivecore.service.users;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.bu.getactivecore.config.JavaGmailMailConfig;
+import com.bu.getactivecore.service.email.EmailVerificationService;
+
+/**
+ * Runs against the embedded server, where the forwarded client address is
+ * resolved the same way as behind the frontend proxy.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "security.login-rate-limit.max-failures-per-ip=3")
+class LoginClientAddressTest {
+
+	@MockitoBean
+	private CommandLineRunner demoPreloadData;
+
+	@MockitoBean
+	private EmailVerificationService emailVerificationService;
+
+	@MockitoBean
+	private JavaGmailMailConfig javaGmailMailConfig;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	private HttpStatusCode failLogin(String forwardedFor, String username) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.set("X-Forwarded-For", forwardedFor);
+		Map<String, String> body = Map.of("username", username, "password", "wrong_password");
+		return restTemplate.postForEntity("/v1/login", new HttpEntity<>(body, headers), String.class)
+				.getStatusCode();
+	}
+
+	@Test
+	void given_forwarded_clients_then_each_is_limited_independently() {
+		// A new username per attempt so only the per-IP limit can kick in
+		for (int i = 0; i < 3; i++) {
+			assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, failLogin("203.0.113.10", "guess" + i));
+		}
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, failLogin("203.0.113.10", "guess3"));
+
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, failLogin("198.51.100.20", "other"),
+				"Another client behind the same proxy is not locked out");
+	}
+}
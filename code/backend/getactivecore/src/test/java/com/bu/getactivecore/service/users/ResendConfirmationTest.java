@@ -7,13 +7,18 @@ import static com.bu.getactivecore.util.RestUtil.register;
 import static com.bu.getactivecore.util.RestUtil.resendConfirmRegistration;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 
 import org.junit.jupiter.api.AfterEach;
@@ -33,6 +38,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import com.bu.getactivecore.config.JavaGmailMailConfig;
 import com.bu.getactivecore.model.users.AccountState;
 import com.bu.getactivecore.model.users.Users;
+import com.bu.getactivecore.repository.EmailOutboxRepository;
 import com.bu.getactivecore.repository.UserRepository;
 import com.bu.getactivecore.service.email.api.EmailApi;
 import com.bu.getactivecore.service.registration.entity.ConfirmationRequestDto;
@@ -40,7 +46,11 @@ import com.bu.getactivecore.service.registration.entity.ConfirmationResendReques
 import com.bu.getactivecore.service.registration.entity.RegistrationRequestDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-@SpringBootTest
+/**
+ * Resends are coalesced with emails queued less than a second ago only, so that
+ * the tests can resend after a short delay.
+ */
+@SpringBootTest(properties = "registration.resend.coalesce-window=1s")
 @AutoConfigureMockMvc
 class ResendConfirmationTest {
 
@@ -63,15 +73,24 @@ class ResendConfirmationTest {
 	@Autowired
 	private UserRepository userRepository;
 
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
 	@Captor
 	private ArgumentCaptor<String> emailCaptor;
 
 	@Captor
 	private ArgumentCaptor<String> tokenCaptor;
 
+	@BeforeEach
+	void stubDelivery() {
+		when(emailApi.sendVerificationEmail(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+	}
+
 	@AfterEach
 	void setUp() {
 		userRepository.deleteAll();
+		emailOutboxRepository.deleteAll();
 	}
 
 	@Test
@@ -97,8 +116,9 @@ class ResendConfirmationTest {
 		resendConfirmRegistration(mockMvc, unknownUsername).andExpect(status().isNoContent()).andDo(print())
 				.andExpect(jsonPath("$.errors").doesNotExist()).andExpect(jsonPath("$.data").doesNotExist());
 
-		// Confirm confirmation was not resent
-		verify(emailApi, times(1)).sendVerificationEmail(emailCaptor.capture(), tokenCaptor.capture());
+		// Confirm confirmation was not resent, emails are relayed from the outbox in
+		// the background
+		verify(emailApi, after(2000).times(1)).sendVerificationEmail(emailCaptor.capture(), tokenCaptor.capture());
 		assertEquals(email, emailCaptor.getValue());
 		assertEquals(registrationToken, tokenCaptor.getValue());
 
@@ -135,7 +155,7 @@ class ResendConfirmationTest {
 				.andExpect(jsonPath("$.errors").doesNotExist()).andExpect(jsonPath("$.data").doesNotExist());
 
 		// Confirm confirmation was resent
-		verify(emailApi, times(2)).sendVerificationEmail(emailCaptor.capture(), tokenCaptor.capture());
+		verify(emailApi, timeout(5000).times(2)).sendVerificationEmail(emailCaptor.capture(), tokenCaptor.capture());
 		assertEquals(email, emailCaptor.getAllValues().get(1));
 		assertNotEquals(registrationToken, tokenCaptor.getAllValues().get(1));
 		Assertions.assertEquals(REGISTRATION_CONFIRMATION.name(),
@@ -176,8 +196,8 @@ class ResendConfirmationTest {
 		resendConfirmRegistration(mockMvc, resendReq).andExpect(status().isNoContent()).andDo(print())
 				.andExpect(jsonPath("$.errors").doesNotExist()).andExpect(jsonPath("$.data").doesNotExist());
 
-		// Confirm confirmation was resent
-		verify(emailApi, times(1)).sendVerificationEmail(emailCaptor.capture(), tokenCaptor.capture());
+		// Confirm confirmation was not resent
+		verify(emailApi, after(2000).times(1)).sendVerificationEmail(emailCaptor.capture(), tokenCaptor.capture());
 		assertEquals(email, emailCaptor.getValue());
 		assertEquals(registrationToken, tokenCaptor.getValue());
 
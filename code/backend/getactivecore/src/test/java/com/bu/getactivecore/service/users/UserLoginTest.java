@@ -13,6 +13,7 @@ import static com.bu.getactivecore.util.RestUtil.sendPost;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -191,4 +192,20 @@ class UserLoginTest {
 				.andExpect(jsonPath("$.data.token").isNotEmpty());
 	}
 
-}
\ No newline at end of file
+	@Test
+	void given_repeated_wrong_passwords_then_429_returned_before_password_is_checked() throws Exception {
+		String username = "lockeduser";
+		sendPost(mockMvc, REGISTER, new RegistrationRequestDto("locked@bu.edu", username, VALID_PASSWORD))
+				.andExpect(status().is2xxSuccessful());
+
+		for (int i = 0; i < 5; i++) {
+			sendPost(mockMvc, LOGIN, new LoginRequestDto(username, "this_password_does_not_match"))
+					.andExpect(status().is4xxClientError());
+		}
+
+		// Even the correct password is rejected while locked out
+		sendPost(mockMvc, LOGIN, new LoginRequestDto(username, VALID_PASSWORD)).andDo(print())
+				.andExpect(status().isTooManyRequests()).andExpect(header().exists("Retry-After"))
+				.andExpect(jsonPath("$.errors.errorCode").value(ErrorCode.TOO_MANY_REQUESTS.getCode()));
+	}
+}
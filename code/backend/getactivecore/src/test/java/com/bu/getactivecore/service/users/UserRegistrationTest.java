@@ -8,7 +8,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -27,9 +34,11 @@ import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.UserRepository;
 import com.bu.getactivecore.service.email.EmailVerificationService;
 import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.registration.api.RegistrationApi;
 import com.bu.getactivecore.service.registration.entity.ConfirmationRequestDto;
 import com.bu.getactivecore.service.registration.entity.RegistrationRequestDto;
 import com.bu.getactivecore.shared.ErrorCode;
+import com.bu.getactivecore.shared.exception.ApiException;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -55,6 +64,9 @@ class UserRegistrationTest {
 	@Autowired
 	private JwtApi jwtApi;
 
+	@Autowired
+	private RegistrationApi registrationApi;
+
 	@AfterEach
 	void setUp() {
 		userRepository.deleteAll();
@@ -387,4 +399,74 @@ class UserRegistrationTest {
 				.andExpect(jsonPath("$.errors.errorCode").exists()) //
 				.andExpect(jsonPath("$.errors.errorCode").value(ErrorCode.TOKEN_INVALID.getCode()));
 	}
-}
\ No newline at end of file
+
+	@Test
+	void given_concurrent_registrations_with_same_username_then_exactly_one_succeeds() throws Exception {
+		int attempts = 8;
+		CyclicBarrier barrier = new CyclicBarrier(attempts);
+		ExecutorService executor = Executors.newFixedThreadPool(attempts);
+		try {
+			List<Future<ErrorCode>> results = new ArrayList<>();
+			for (int i = 0; i < attempts; i++) {
+				RegistrationRequestDto req = new RegistrationRequestDto(i + "race@bu.edu", "race", PASSWORD);
+				results.add(executor.submit(() -> {
+					barrier.await();
+					try {
+						registrationApi.registerUser(req);
+						return null;
+					} catch (ApiException e) {
+						return e.getError().getErrorCode();
+					}
+				}));
+			}
+
+			int succeeded = 0;
+			for (Future<ErrorCode> result : results) {
+				ErrorCode errorCode;
+				try {
+					errorCode = result.get();
+				} catch (ExecutionException e) {
+					throw new AssertionError("Registration failed unexpectedly", e.getCause());
+				}
+				if (errorCode == null) {
+					succeeded++;
+				} else {
+					Assertions.assertEquals(ErrorCode.EMAIL_USERNAME_TAKEN, errorCode);
+				}
+			}
+			Assertions.assertEquals(1, succeeded);
+			Assertions.assertEquals(1, userRepository.count());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void given_concurrent_confirmations_then_all_succeed_and_user_is_VERIFIED_once() throws Exception {
+		String token = registrationApi.registerUser(new RegistrationRequestDto("1234@bu.edu", "test", PASSWORD))
+				.getToken();
+		long initialVersion = userRepository.findByUsername("test").orElseThrow().getVersion();
+
+		int attempts = 8;
+		CyclicBarrier barrier = new CyclicBarrier(attempts);
+		ExecutorService executor = Executors.newFixedThreadPool(attempts);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < attempts; i++) {
+				results.add(executor.submit(() -> {
+					barrier.await();
+					return registrationApi.confirmRegistration(new ConfirmationRequestDto(token));
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Users user = userRepository.findByUsername("test").orElseThrow();
+		Assertions.assertEquals(AccountState.VERIFIED, user.getAccountState());
+		Assertions.assertEquals(initialVersion + 1, user.getVersion());
+	}
+}
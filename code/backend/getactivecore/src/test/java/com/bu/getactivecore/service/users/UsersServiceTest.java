@@ -17,7 +17,9 @@ import org.springframework.security.core.Authentication;
 import com.bu.getactivecore.model.users.UserPrincipal;
 import com.bu.getactivecore.model.users.Users;
 import com.bu.getactivecore.repository.UserRepository;
-import com.bu.getactivecore.service.jwt.api.JwtApi;
+import com.bu.getactivecore.service.security.LoginRateLimiter;
+import com.bu.getactivecore.service.security.UserPrincipalCache;
+import com.bu.getactivecore.service.token.api.TokenApi;
 import com.bu.getactivecore.service.users.api.UserInfoApi;
 import com.bu.getactivecore.service.users.entity.UpdateAvatarRequestDto;
 import com.bu.getactivecore.service.users.entity.UpdateAvatarResponseDto;
@@ -33,7 +35,7 @@ class UsersServiceTest {
     private AuthenticationManager authManager;
 
     @Mock
-    private JwtApi jwtApi;
+    private TokenApi tokenApi;
 
     @Mock
     private AccountStateChecker accountStateChecker;
@@ -41,11 +43,18 @@ class UsersServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserPrincipalCache principalCache;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
     private UsersService usersService;
 
     @BeforeEach
     void setUp() {
-        usersService = new UsersService(authManager, jwtApi, accountStateChecker, userRepository);
+        usersService = new UsersService(authManager, tokenApi, accountStateChecker, userRepository, principalCache,
+                loginRateLimiter);
     }
 
     @Test
@@ -72,6 +81,7 @@ class UsersServiceTest {
         assertNotNull(response.getAvatarUpdatedAt());
         verify(userRepository).findByUsername(username);
         verify(userRepository).save(any(Users.class));
+        verify(principalCache).invalidate(username);
     }
 
     @Test
@@ -0,0 +1,83 @@
+package com.bu.getactivecore.shared.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+
+	@Test
+	void given_cached_value_then_loader_is_not_called_again() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("value", cache.get("key", k -> {
+			loads.incrementAndGet();
+			return "value";
+		}));
+		assertEquals("value", cache.get("key", k -> {
+			loads.incrementAndGet();
+			return "other";
+		}));
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.hitCount());
+		assertEquals(1, cache.missCount());
+	}
+
+	@Test
+	void given_cache_is_full_then_least_recently_used_entry_is_evicted() {
+		BoundedCache<String, String> cache = new BoundedCache<>(2, Duration.ofMinutes(1));
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.getIfPresent("a");
+		cache.put("c", "3");
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.evictionCount());
+		assertNull(cache.getIfPresent("b"));
+		assertEquals("1", cache.getIfPresent("a"));
+	}
+
+	@Test
+	void given_expired_entry_then_it_is_reloaded() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ZERO);
+		cache.put("key", "stale");
+
+		assertEquals("fresh", cache.get("key", k -> "fresh"));
+		assertEquals(1, cache.evictionCount());
+	}
+
+	@Test
+	void given_invalidation_during_load_then_loaded_value_is_not_stored() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+		assertEquals("stale", cache.get("key", k -> {
+			cache.invalidate("key");
+			return "stale";
+		}));
+		assertNull(cache.getIfPresent("key"));
+	}
+
+	@Test
+	void given_null_from_loader_then_nothing_is_cached() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+		assertNull(cache.get("key", k -> null));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void given_value_specific_ttl_then_it_overrides_the_default() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+		cache.get("short", k -> "none", v -> Duration.ZERO);
+		cache.get("long", k -> "value", v -> null);
+
+		assertNull(cache.getIfPresent("short"));
+		assertEquals("value", cache.getIfPresent("long"));
+	}
+}
@@ -4,9 +4,9 @@ package com.bu.getactivecore.util;
  * Helper enum which contains REST API endpoints used in tests.
  */
 public enum RestEndpoint {
-	ACTIVITY("/v1/activity"), CONFIRM_REGISTRATION("/v1/register/confirmation"), LOGIN("/v1/login"),
-	REGISTER("/v1/register"), PARTICIPANTS("/v1/activities/{activityId}/participants"),
-	RESEND_CONFIRMATION("/v1/register/confirmation/resend");
+	ACTIVITY("/v1/activity"), ACTIVITIES("/v1/activities"), CONFIRM_REGISTRATION("/v1/register/confirmation"),
+	LOGIN("/v1/login"), REGISTER("/v1/register"), PARTICIPANTS("/v1/activities/{activityId}/participants"),
+	RESEND_CONFIRMATION("/v1/register/confirmation/resend"), TOKEN_REFRESH("/v1/token/refresh");
 
 	private final String endpoint;
 
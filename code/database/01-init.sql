@@ -10,14 +10,25 @@ CREATE TABLE activities (
     location VARCHAR(250) NOT NULL,
     start_date_time DATETIME NOT NULL,
     end_date_time DATETIME NOT NULL,
-    constraint unique_name unique (name)
+    participant_count INT NOT NULL DEFAULT 0,
+    max_participants INT,
+    waitlist_tail BIGINT NOT NULL DEFAULT 0,
+    waitlist_head BIGINT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    constraint unique_name unique (name),
+    INDEX idx_activities_participant_count (participant_count, id),
+    INDEX idx_activities_start_date_time (start_date_time, id),
+    INDEX idx_activities_end_date_time (end_date_time, start_date_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 CREATE TABLE user_activities (
     id CHAR(36) PRIMARY KEY,
     user_id CHAR(36) NOT NULL,
     activity_id CHAR(36) NOT NULL,
-    role ENUM('ADMIN', 'PARTICIPANT') NOT NULL,
+    role ENUM('ADMIN', 'PARTICIPANT', 'WAITLISTED') NOT NULL,
+    waitlist_sequence BIGINT,
     FOREIGN KEY (user_id) REFERENCES users(user_id),
-    FOREIGN KEY (activity_id) REFERENCES activities(id)
+    FOREIGN KEY (activity_id) REFERENCES activities(id),
+    CONSTRAINT uc_user_activities_user_activity UNIQUE (user_id, activity_id),
+    INDEX idx_user_activities_waitlist (activity_id, role, waitlist_sequence)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
\ No newline at end of file
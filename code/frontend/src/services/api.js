@@ -7,9 +7,41 @@ const api = axios.create({
   timeout: 5000,
 });
 
+// Shared in-flight refresh so that concurrent requests do not present the same
+// single-use refresh token twice, which the server treats as token reuse.
+let refreshPromise = null;
+
+const refreshAccessToken = async () => {
+  const refreshToken = jwtUtils.getToken("refresh_token");
+  if (!refreshToken || jwtUtils.isTokenExpired(refreshToken)) {
+    return null;
+  }
+  if (!refreshPromise) {
+    refreshPromise = axios
+      .post(`${import.meta.env.VITE_API_BASE_URL}/token/refresh`, { refreshToken })
+      .then((response) => {
+        const { token, refreshToken: nextRefreshToken } = response.data.data;
+        jwtUtils.setToken("auth_token", token);
+        jwtUtils.setToken("refresh_token", nextRefreshToken);
+        return token;
+      })
+      .catch(() => {
+        jwtUtils.removeToken("refresh_token");
+        return null;
+      })
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
 api.interceptors.request.use(
-  (config) => {
-    const token = jwtUtils.getToken("auth_token");
+  async (config) => {
+    let token = jwtUtils.getToken("auth_token");
+    if (token && jwtUtils.isTokenExpired(token)) {
+      token = (await refreshAccessToken()) || token;
+    }
     if (token) {
       config.headers.Authorization = `Bearer ${token}`;
     }
@@ -89,7 +89,9 @@ export const authService = {
       const { data } = response.data;
 
       jwtUtils.setToken("auth_token", data.token);
-      //jwtUtils.setToken('refresh_token', refreshToken);
+      if (data.refreshToken) {
+        jwtUtils.setToken("refresh_token", data.refreshToken);
+      }
       localStorage.setItem(
         "userData",
         JSON.stringify({ userId: data.userId, username: data.username, userEmail: data.email })
@@ -115,14 +117,14 @@ export const authService = {
 
   logout: async () => {
     jwtUtils.removeToken("auth_token");
+    jwtUtils.removeToken("refresh_token");
     localStorage.removeItem("userData");
   },
 
   getCurrentUser: async () => {
     const storedUserData = localStorage.getItem("userData");
-    const token = jwtUtils.getToken("auth_token");
 
-    if (storedUserData && token && !jwtUtils.isTokenExpired(token)) {
+    if (storedUserData && authService.isAuthenticated()) {
       try {
         return JSON.parse(storedUserData);
       } catch (error) {
@@ -138,8 +140,16 @@ export const authService = {
   },
 
   isAuthenticated: () => {
+    // An expired access token is renewed transparently as long as the refresh token is still valid
     const token = jwtUtils.getToken("auth_token");
-    return Boolean(token && !jwtUtils.isTokenExpired(token));
+    if (!token) {
+      return false;
+    }
+    if (!jwtUtils.isTokenExpired(token)) {
+      return true;
+    }
+    const refreshToken = jwtUtils.getToken("refresh_token");
+    return Boolean(refreshToken && !jwtUtils.isTokenExpired(refreshToken));
   },
 
   updateAvatar: async (avatarData) => {